@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.config;
+
+import org.springframework.cloud.sample.bookstore.reactive.security.SecurityAuthorities;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+import static org.springframework.cloud.sample.bookstore.reactive.security.BookStoreAuthorizationManager.fullAccess;
+import static org.springframework.cloud.sample.bookstore.reactive.security.BookStoreAuthorizationManager.readAccess;
+
+@Configuration
+@EnableWebFluxSecurity
+public class SecurityConfiguration {
+	@Bean
+	public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+		// creating and deleting stores stands in for the broker's provisioning, which is admin only
+		// @formatter:off
+		http
+			.csrf().disable()
+			.authorizeExchange()
+				.pathMatchers(HttpMethod.PUT, "/bookstores/{bookStoreId}").hasAuthority(SecurityAuthorities.ADMIN)
+				.pathMatchers(HttpMethod.DELETE, "/bookstores/{bookStoreId}").hasAuthority(SecurityAuthorities.ADMIN)
+				.pathMatchers(HttpMethod.GET, "/bookstores/{bookStoreId}/**").access(readAccess())
+				.pathMatchers("/bookstores/{bookStoreId}/**").access(fullAccess())
+				.anyExchange().denyAll()
+				.and()
+			// every request carries its credentials, so no session is kept for the many clients a node can hold
+			.securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+			.httpBasic();
+		// @formatter:on
+		return http.build();
+	}
+
+	@Bean
+	public PasswordEncoder passwordEncoder() {
+		return new BCryptPasswordEncoder();
+	}
+}
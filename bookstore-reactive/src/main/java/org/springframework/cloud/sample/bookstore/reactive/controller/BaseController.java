@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.controller;
+
+import org.springframework.cloud.sample.bookstore.reactive.service.BookStoreModifiedException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// the same error responses and entity tags as the broker's BaseController
+public class BaseController {
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<Map<String, String>> badBookStoreId(IllegalArgumentException e) {
+		Map<String, String> responseBody = Collections.singletonMap("errorMessage", e.getMessage());
+		return new ResponseEntity<>(responseBody, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler(BookStoreModifiedException.class)
+	public ResponseEntity<Map<String, String>> bookStoreModified(BookStoreModifiedException e) {
+		Map<String, String> responseBody = Collections.singletonMap("errorMessage", e.getMessage());
+		return new ResponseEntity<>(responseBody, HttpStatus.PRECONDITION_FAILED);
+	}
+
+	@ExceptionHandler(ConcurrencyFailureException.class)
+	public ResponseEntity<Map<String, String>> concurrentModification(ConcurrencyFailureException e) {
+		Map<String, String> responseBody = Collections.singletonMap("errorMessage",
+				"The book store was modified concurrently, please try again.");
+		return new ResponseEntity<>(responseBody, HttpStatus.CONFLICT);
+	}
+
+	// book store versions are exposed as strong entity tags
+	protected String eTag(long version) {
+		return "\"" + version + "\"";
+	}
+
+	// If-None-Match uses the weak comparison, so a W/ prefix added by a proxy still matches
+	protected boolean noneMatch(String ifNoneMatch, long version) {
+		if (ifNoneMatch == null) {
+			return true;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.equals("*") || stripWeakPrefix(tag).equals(eTag(version))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// If-Match uses the strong comparison; null means the write is unconditional
+	protected Set<Long> expectedVersions(String ifMatch) {
+		if (ifMatch == null || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		Set<Long> versions = new HashSet<>();
+		for (String tag : ifMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+				try {
+					versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+				} catch (NumberFormatException e) {
+					// not one of ours, so it can never match
+				}
+			}
+		}
+		return versions;
+	}
+
+	private String stripWeakPrefix(String tag) {
+		return tag.startsWith("W/") ? tag.substring(2) : tag;
+	}
+}
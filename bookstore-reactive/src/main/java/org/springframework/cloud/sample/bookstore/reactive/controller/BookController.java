@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.controller;
+
+import org.springframework.cloud.sample.bookstore.reactive.model.Book;
+import org.springframework.cloud.sample.bookstore.reactive.resource.BookResource;
+import org.springframework.cloud.sample.bookstore.reactive.resource.BookResourceAssembler;
+import org.springframework.cloud.sample.bookstore.reactive.service.BookStoreService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/bookstores/{bookStoreId}/books")
+public class BookController extends BaseController {
+	private final BookStoreService bookStoreService;
+
+	public BookController(BookStoreService bookStoreService) {
+		this.bookStoreService = bookStoreService;
+	}
+
+	@PutMapping
+	public Mono<ResponseEntity<BookResource>> addBook(@PathVariable String bookStoreId, @RequestBody Book book,
+													  @RequestHeader(value = "If-Match", required = false) String ifMatch,
+													  ServerHttpRequest request) {
+		return bookStoreService.putBookInStore(bookStoreId, book, expectedVersions(ifMatch))
+				.map(savedBook -> createResponse(request, bookStoreId, savedBook, HttpStatus.CREATED));
+	}
+
+	@GetMapping("/{bookId}")
+	public Mono<ResponseEntity<BookResource>> getBook(@PathVariable String bookStoreId, @PathVariable String bookId,
+													  @RequestHeader(value = "If-None-Match", required = false)
+															  String ifNoneMatch,
+													  ServerHttpRequest request) {
+		// books carry the version of their store, which changes whenever any of its books does
+		return bookStoreService.getVersion(bookStoreId)
+				.flatMap(version -> {
+					if (!noneMatch(ifNoneMatch, version)) {
+						return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag(version)).build());
+					}
+					return bookStoreService.getBookFromStore(bookStoreId, bookId)
+							.map(book -> ResponseEntity.ok().eTag(eTag(version))
+									.body(new BookResourceAssembler(request, bookStoreId).toResource(book)));
+				});
+	}
+
+	@GetMapping(params = "isbn")
+	public Flux<BookResource> getBooksByIsbn(@PathVariable String bookStoreId, @RequestParam String isbn,
+											 ServerHttpRequest request) {
+		BookResourceAssembler assembler = new BookResourceAssembler(request, bookStoreId);
+		return bookStoreService.getBooksByIsbn(bookStoreId, isbn).map(assembler::toResource);
+	}
+
+	@DeleteMapping("/{bookId}")
+	public Mono<ResponseEntity<BookResource>> deleteBook(@PathVariable String bookStoreId, @PathVariable String bookId,
+														 @RequestHeader(value = "If-Match", required = false)
+																 String ifMatch,
+														 ServerHttpRequest request) {
+		return bookStoreService.removeBookFromStore(bookStoreId, bookId, expectedVersions(ifMatch))
+				.map(book -> createResponse(request, bookStoreId, book, HttpStatus.OK));
+	}
+
+	private ResponseEntity<BookResource> createResponse(ServerHttpRequest request, String bookStoreId, Book book,
+														HttpStatus httpStatus) {
+		BookResource bookResource = new BookResourceAssembler(request, bookStoreId).toResource(book);
+		return new ResponseEntity<>(bookResource, httpStatus);
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.cloud.sample.bookstore.reactive.resource.BookResource;
+import org.springframework.cloud.sample.bookstore.reactive.resource.BookResourceAssembler;
+import org.springframework.cloud.sample.bookstore.reactive.resource.BookStoreResourceWriter;
+import org.springframework.cloud.sample.bookstore.reactive.service.BookStoreService;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/bookstores")
+public class BookStoreController extends BaseController {
+	private final BookStoreService bookStoreService;
+	private final BookStoreResourceWriter bookStoreResourceWriter;
+
+	public BookStoreController(BookStoreService bookStoreService, ObjectMapper objectMapper) {
+		this.bookStoreService = bookStoreService;
+		this.bookStoreResourceWriter = new BookStoreResourceWriter(objectMapper);
+	}
+
+	@PutMapping("/{bookStoreId}")
+	public Mono<ResponseEntity<Void>> createBookStore(@PathVariable String bookStoreId) {
+		return bookStoreService.createBookStore(bookStoreId)
+				.map(created -> ResponseEntity.status(created ? HttpStatus.CREATED : HttpStatus.OK).build());
+	}
+
+	@DeleteMapping("/{bookStoreId}")
+	public Mono<ResponseEntity<Void>> deleteBookStore(@PathVariable String bookStoreId) {
+		return bookStoreService.deleteBookStore(bookStoreId)
+				.then(Mono.fromSupplier(() -> ResponseEntity.ok().build()));
+	}
+
+	// the array is written as the rows are read, as the stream below is, rather than collected first
+	@GetMapping(value = "/{bookStoreId}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Flux<DataBuffer>>> getBooks(@PathVariable String bookStoreId,
+														   @RequestHeader(value = "If-None-Match", required = false)
+																   String ifNoneMatch,
+														   ServerHttpRequest request, ServerHttpResponse response) {
+		BookResourceAssembler assembler = new BookResourceAssembler(request, bookStoreId);
+		return bookStoreService.getVersion(bookStoreId)
+				.map(version -> {
+					if (!noneMatch(ifNoneMatch, version)) {
+						return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag(version)).build();
+					}
+					Flux<BookResource> books = bookStoreService.getBooks(bookStoreId).map(assembler::toResource);
+					return ResponseEntity.ok().eTag(eTag(version)).contentType(MediaType.APPLICATION_JSON)
+							.body(bookStoreResourceWriter.write(books, assembler.bookStoreLink(),
+									response.bufferFactory()));
+				});
+	}
+
+	// The books are written one JSON document per line as they are read, and the next rows are only fetched as fast
+	// as the client takes them, so a slow client holds neither a thread nor the whole store.
+	@GetMapping(value = "/{bookStoreId}", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+	public Mono<ResponseEntity<Flux<BookResource>>> streamBooks(@PathVariable String bookStoreId,
+																ServerHttpRequest request) {
+		BookResourceAssembler assembler = new BookResourceAssembler(request, bookStoreId);
+		return bookStoreService.getVersion(bookStoreId)
+				.map(version -> ResponseEntity.ok().eTag(eTag(version))
+						.body(bookStoreService.getBooks(bookStoreId).map(assembler::toResource)));
+	}
+}
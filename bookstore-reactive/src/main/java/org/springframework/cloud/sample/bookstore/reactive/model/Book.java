@@ -0,0 +1,75 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.PersistenceConstructor;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+// unlike the broker, a row holds the title and author itself, as there is no shared catalog
+@Table("books")
+public class Book {
+	@Id
+	private final String id;
+
+	@Column("bookstore_id")
+	private final String bookStoreId;
+
+	private final String isbn;
+
+	private final String title;
+
+	private final String author;
+
+	@JsonCreator
+	public Book(@JsonProperty("isbn") String isbn, @JsonProperty("title") String title,
+				@JsonProperty("author") String author) {
+		this(null, null, isbn, title, author);
+	}
+
+	@PersistenceConstructor
+	public Book(String id, String bookStoreId, String isbn, String title, String author) {
+		this.id = id;
+		this.bookStoreId = bookStoreId;
+		this.isbn = isbn;
+		this.title = title;
+		this.author = author;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getBookStoreId() {
+		return bookStoreId;
+	}
+
+	public String getIsbn() {
+		return isbn;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getAuthor() {
+		return author;
+	}
+}
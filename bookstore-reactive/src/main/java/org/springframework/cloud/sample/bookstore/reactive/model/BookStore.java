@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+// the books are not part of the row; they are read as a stream with BookRepository
+@Table("bookstores")
+public class BookStore {
+	@Id
+	private final String id;
+
+	private final long version;
+
+	public BookStore(String id, long version) {
+		this.id = id;
+		this.version = version;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.repository;
+
+import org.springframework.cloud.sample.bookstore.reactive.model.Book;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface BookRepository extends ReactiveCrudRepository<Book, String> {
+	// rows are emitted as the subscriber requests them, so a large store is never held in memory at once
+	@Query("select * from books where bookstore_id = :bookStoreId order by position")
+	Flux<Book> findByBookStoreId(@Param("bookStoreId") String bookStoreId);
+
+	@Query("select * from books where bookstore_id = :bookStoreId and id = :id")
+	Mono<Book> findByBookStoreIdAndId(@Param("bookStoreId") String bookStoreId, @Param("id") String id);
+
+	@Query("select * from books where bookstore_id = :bookStoreId and isbn = :isbn order by position")
+	Flux<Book> findByBookStoreIdAndIsbn(@Param("bookStoreId") String bookStoreId, @Param("isbn") String isbn);
+
+	// save() would update a book whose ID is already set, so books are inserted explicitly
+	@Modifying
+	@Query("insert into books (id, bookstore_id, isbn, title, author) " +
+			"values (:id, :bookStoreId, :isbn, :title, :author)")
+	Mono<Integer> insert(@Param("id") String id, @Param("bookStoreId") String bookStoreId, @Param("isbn") String isbn,
+						 @Param("title") String title, @Param("author") String author);
+
+	@Modifying
+	@Query("delete from books where bookstore_id = :bookStoreId and id = :id")
+	Mono<Integer> deleteByBookStoreIdAndId(@Param("bookStoreId") String bookStoreId, @Param("id") String id);
+}
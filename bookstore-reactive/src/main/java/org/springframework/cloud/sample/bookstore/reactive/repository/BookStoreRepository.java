@@ -0,0 +1,43 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.repository;
+
+import org.springframework.cloud.sample.bookstore.reactive.model.BookStore;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface BookStoreRepository extends ReactiveCrudRepository<BookStore, String> {
+	@Query("select version from bookstores where id = :id")
+	Mono<Long> findVersionById(@Param("id") String id);
+
+	@Modifying
+	@Query("insert into bookstores (id, version) values (:id, 0)")
+	Mono<Integer> create(@Param("id") String id);
+
+	// the store row is locked until the transaction ends, so concurrent writes to a store are applied one at a time
+	@Modifying
+	@Query("update bookstores set version = version + 1 where id = :id")
+	Mono<Integer> incrementVersion(@Param("id") String id);
+
+	// only updates a store that still has the version the caller checked
+	@Modifying
+	@Query("update bookstores set version = version + 1 where id = :id and version = :version")
+	Mono<Integer> incrementVersion(@Param("id") String id, @Param("version") long version);
+}
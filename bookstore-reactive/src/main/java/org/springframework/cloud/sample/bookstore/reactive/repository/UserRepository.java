@@ -0,0 +1,37 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.repository;
+
+import org.springframework.cloud.sample.bookstore.reactive.model.User;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface UserRepository extends ReactiveCrudRepository<User, Long> {
+	@Query("select * from users where username = :username")
+	Mono<User> findByUsername(@Param("username") String username);
+
+	@Query("select authority from user_authorities where user_id = :userId")
+	Flux<String> findAuthoritiesByUserId(@Param("userId") Long userId);
+
+	@Modifying
+	@Query("insert into user_authorities (user_id, authority) values (:userId, :authority)")
+	Mono<Integer> addAuthority(@Param("userId") Long userId, @Param("authority") String authority);
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.resource;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.springframework.cloud.sample.bookstore.reactive.model.Book;
+
+import java.util.Collections;
+import java.util.List;
+
+// the property order of the broker's JSON
+@JsonPropertyOrder({"isbn", "title", "author", "links"})
+@SuppressWarnings("unused")
+public class BookResource {
+	private final Book book;
+	private final List<Link> links;
+
+	BookResource(Book book, Link selfLink) {
+		this.book = book;
+		this.links = Collections.singletonList(selfLink);
+	}
+
+	public String getIsbn() {
+		return book.getIsbn();
+	}
+
+	public String getTitle() {
+		return book.getTitle();
+	}
+
+	public String getAuthor() {
+		return book.getAuthor();
+	}
+
+	public List<Link> getLinks() {
+		return links;
+	}
+}
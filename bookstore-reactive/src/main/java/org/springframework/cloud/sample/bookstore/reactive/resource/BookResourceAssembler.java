@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.resource;
+
+import org.springframework.cloud.sample.bookstore.reactive.model.Book;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.util.UriComponentsBuilder;
+
+// links are built from the request URI, as the broker's linkTo() does, once per request rather than once per book
+public class BookResourceAssembler {
+	private final String bookStoreHref;
+	private final String booksHref;
+
+	public BookResourceAssembler(ServerHttpRequest request, String bookStoreId) {
+		UriComponentsBuilder builder = UriComponentsBuilder.fromHttpRequest(request).replaceQuery(null);
+		this.bookStoreHref = href(builder, "/bookstores/{bookStoreId}", bookStoreId);
+		this.booksHref = href(builder, "/bookstores/{bookStoreId}/books/", bookStoreId);
+	}
+
+	public BookResource toResource(Book book) {
+		return new BookResource(book, new Link(Link.REL_SELF, booksHref + book.getId()));
+	}
+
+	public Link bookStoreLink() {
+		return new Link(Link.REL_SELF, bookStoreHref);
+	}
+
+	private static String href(UriComponentsBuilder builder, String path, String bookStoreId) {
+		return builder.cloneBuilder().replacePath(path).buildAndExpand(bookStoreId).encode().toUriString();
+	}
+}
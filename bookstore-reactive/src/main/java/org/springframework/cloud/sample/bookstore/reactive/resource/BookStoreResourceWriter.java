@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.resource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+// Writes the store as the broker does, {"books":[...],"links":[...]}, one book at a time as its row is read, since
+// the JSON encoder of Spring 5.2 would collect the books into a list before writing the first of them.
+public class BookStoreResourceWriter {
+	private final ObjectMapper objectMapper;
+
+	public BookStoreResourceWriter(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	public Flux<DataBuffer> write(Flux<BookResource> books, Link selfLink, DataBufferFactory bufferFactory) {
+		Flux<byte[]> bookArray = books.index()
+				.map(book -> book.getT1() == 0 ? toJson(book.getT2()) : concat(",", toJson(book.getT2())));
+		return Flux.concat(
+				Mono.just("{\"books\":[".getBytes(StandardCharsets.UTF_8)),
+				bookArray,
+				Mono.fromCallable(() -> concat("],\"links\":", toJson(Collections.singletonList(selfLink)), "}")))
+				.map(bufferFactory::wrap);
+	}
+
+	private byte[] toJson(Object value) {
+		try {
+			return objectMapper.writeValueAsBytes(value);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] concat(String prefix, byte[] json) {
+		return concat(prefix, json, "");
+	}
+
+	private static byte[] concat(String prefix, byte[] json, String suffix) {
+		byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+		byte[] suffixBytes = suffix.getBytes(StandardCharsets.UTF_8);
+		byte[] result = new byte[prefixBytes.length + json.length + suffixBytes.length];
+		System.arraycopy(prefixBytes, 0, result, 0, prefixBytes.length);
+		System.arraycopy(json, 0, result, prefixBytes.length, json.length);
+		System.arraycopy(suffixBytes, 0, result, prefixBytes.length + json.length, suffixBytes.length);
+		return result;
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.resource;
+
+// the rel and href of the broker's links, without the optional attributes it always writes as null
+public class Link {
+	public static final String REL_SELF = "self";
+
+	private final String rel;
+	private final String href;
+
+	Link(String rel, String href) {
+		this.rel = rel;
+		this.href = href;
+	}
+
+	public String getRel() {
+		return rel;
+	}
+
+	public String getHref() {
+		return href;
+	}
+}
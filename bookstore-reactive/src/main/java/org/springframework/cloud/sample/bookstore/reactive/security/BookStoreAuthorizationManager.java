@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.security;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.cloud.sample.bookstore.reactive.security.SecurityAuthorities.BOOK_STORE_ID_PREFIX;
+
+// The broker's @PreAuthorize checks as a request rule: the user needs one of the roles, and a user bound to a store
+// through a BOOK_STORE_ authority only gets at that store, which is taken from the bookStoreId path variable.
+public class BookStoreAuthorizationManager implements ReactiveAuthorizationManager<AuthorizationContext> {
+	private final List<String> roles;
+
+	private BookStoreAuthorizationManager(String... roles) {
+		this.roles = Arrays.asList(roles);
+	}
+
+	public static BookStoreAuthorizationManager readAccess() {
+		return new BookStoreAuthorizationManager(SecurityAuthorities.FULL_ACCESS, SecurityAuthorities.READ_ONLY);
+	}
+
+	public static BookStoreAuthorizationManager fullAccess() {
+		return new BookStoreAuthorizationManager(SecurityAuthorities.FULL_ACCESS);
+	}
+
+	@Override
+	public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, AuthorizationContext context) {
+		Object bookStoreId = context.getVariables().get("bookStoreId");
+		return authentication
+				.filter(Authentication::isAuthenticated)
+				.map(auth -> new AuthorizationDecision(hasAnyRole(auth) && hasPermission(auth, bookStoreId)))
+				.defaultIfEmpty(new AuthorizationDecision(false));
+	}
+
+	private boolean hasAnyRole(Authentication authentication) {
+		return authentication.getAuthorities().stream()
+				.map(GrantedAuthority::getAuthority)
+				.anyMatch(roles::contains);
+	}
+
+	private boolean hasPermission(Authentication authentication, Object bookStoreId) {
+		Optional<Boolean> matched = authentication.getAuthorities().stream()
+				.filter(authority -> authority.getAuthority().startsWith(BOOK_STORE_ID_PREFIX))
+				.map(authority -> authority.getAuthority().substring(BOOK_STORE_ID_PREFIX.length()).equals(bookStoreId))
+				.findFirst();
+
+		return matched.orElse(true);
+	}
+}
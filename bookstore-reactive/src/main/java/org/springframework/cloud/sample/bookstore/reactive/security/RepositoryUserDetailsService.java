@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.security;
+
+import org.springframework.cloud.sample.bookstore.reactive.repository.UserRepository;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+// Spring Security checks the password on its own scheduler, so the BCrypt work stays off the event loop
+@Service
+public class RepositoryUserDetailsService implements ReactiveUserDetailsService {
+	private final UserRepository userRepository;
+
+	public RepositoryUserDetailsService(UserRepository userRepository) {
+		this.userRepository = userRepository;
+	}
+
+	@Override
+	public Mono<UserDetails> findByUsername(String username) {
+		return userRepository.findByUsername(username)
+				.flatMap(user -> userRepository.findAuthoritiesByUserId(user.getId())
+						.collectList()
+						.map(authorities -> User.withUsername(user.getUsername())
+								.password(user.getPassword())
+								.authorities(authorities.toArray(new String[0]))
+								.build()));
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.service;
+
+import org.springframework.cloud.sample.bookstore.reactive.model.Book;
+import org.springframework.cloud.sample.bookstore.reactive.model.Isbn;
+import org.springframework.cloud.sample.bookstore.reactive.repository.BookRepository;
+import org.springframework.cloud.sample.bookstore.reactive.repository.BookStoreRepository;
+import org.springframework.cloud.sample.bookstore.web.service.TimeOrderedIdGenerator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.IdGenerator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+// Every write increments the store version in the same transaction as the book change, so the version works as an
+// entity tag for the store and its books, as it does in the broker.
+@Service
+public class BookStoreService {
+	private final BookStoreRepository bookStoreRepository;
+	private final BookRepository bookRepository;
+	// the broker's generator, so that book IDs sort in the order the books were added here too
+	private final IdGenerator idGenerator = new TimeOrderedIdGenerator();
+
+	public BookStoreService(BookStoreRepository bookStoreRepository, BookRepository bookRepository) {
+		this.bookStoreRepository = bookStoreRepository;
+		this.bookRepository = bookRepository;
+	}
+
+	// emits false when the store already exists
+	@Transactional
+	public Mono<Boolean> createBookStore(String storeId) {
+		return bookStoreRepository.existsById(storeId)
+				.flatMap(exists -> exists ? Mono.just(false) : bookStoreRepository.create(storeId).thenReturn(true));
+	}
+
+	@Transactional
+	public Mono<Void> deleteBookStore(String storeId) {
+		return getVersion(storeId).then(bookStoreRepository.deleteById(storeId));
+	}
+
+	public Mono<Long> getVersion(String storeId) {
+		return bookStoreRepository.findVersionById(storeId)
+				.switchIfEmpty(Mono.error(() -> invalidBookStoreId(storeId)));
+	}
+
+	// an unknown store fails before the first book, so the error can still become a 400 response
+	public Flux<Book> getBooks(String storeId) {
+		return getVersion(storeId).thenMany(bookRepository.findByBookStoreId(storeId));
+	}
+
+	public Mono<Book> getBookFromStore(String storeId, String bookId) {
+		return getVersion(storeId)
+				.then(bookRepository.findByBookStoreIdAndId(storeId, bookId))
+				.switchIfEmpty(Mono.error(() -> invalidBookId(storeId, bookId)));
+	}
+
+	public Flux<Book> getBooksByIsbn(String storeId, String isbn) {
+		return Mono.fromCallable(() -> Isbn.toIsbn13(isbn))
+				.flatMapMany(isbn13 -> getVersion(storeId)
+						.thenMany(bookRepository.findByBookStoreIdAndIsbn(storeId, isbn13)));
+	}
+
+	// expectedVersions, when given, are the versions the caller has seen; the book is only added to one of those
+	@Transactional
+	public Mono<Book> putBookInStore(String storeId, Book book, Set<Long> expectedVersions) {
+		return Mono.fromCallable(() -> Isbn.toIsbn13(book.getIsbn()))
+				.flatMap(isbn -> incrementVersion(storeId, expectedVersions)
+						.then(Mono.defer(() -> {
+							Book bookWithId = new Book(idGenerator.generateId().toString(), storeId, isbn,
+									book.getTitle(), book.getAuthor());
+							return bookRepository.insert(bookWithId.getId(), storeId, isbn,
+									bookWithId.getTitle(), bookWithId.getAuthor())
+									.thenReturn(bookWithId);
+						})));
+	}
+
+	@Transactional
+	public Mono<Book> removeBookFromStore(String storeId, String bookId, Set<Long> expectedVersions) {
+		return incrementVersion(storeId, expectedVersions)
+				.then(bookRepository.findByBookStoreIdAndId(storeId, bookId))
+				.switchIfEmpty(Mono.error(() -> invalidBookId(storeId, bookId)))
+				.flatMap(book -> bookRepository.deleteByBookStoreIdAndId(storeId, bookId).thenReturn(book));
+	}
+
+	// the conditional update fails when another write has changed the version since it was checked, while an
+	// unconditional one simply waits for that write to commit
+	private Mono<Void> incrementVersion(String storeId, Set<Long> expectedVersions) {
+		if (expectedVersions == null) {
+			return bookStoreRepository.incrementVersion(storeId)
+					.filter(updated -> updated == 0)
+					.flatMap(updated -> Mono.error(invalidBookStoreId(storeId)))
+					.then();
+		}
+		return getVersion(storeId)
+				.flatMap(version -> {
+					if (!expectedVersions.contains(version)) {
+						return Mono.error(new BookStoreModifiedException(storeId));
+					}
+					return bookStoreRepository.incrementVersion(storeId, version);
+				})
+				.filter(updated -> updated == 0)
+				.flatMap(updated -> Mono.error(new BookStoreModifiedException(storeId)))
+				.then();
+	}
+
+	private IllegalArgumentException invalidBookStoreId(String storeId) {
+		return new IllegalArgumentException("Invalid book store ID " + storeId + ".");
+	}
+
+	private IllegalArgumentException invalidBookId(String storeId, String bookId) {
+		return new IllegalArgumentException("Invalid book ID " + storeId + ":" + bookId + ".");
+	}
+}
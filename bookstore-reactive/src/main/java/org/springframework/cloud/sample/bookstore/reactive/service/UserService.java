@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.service;
+
+import org.springframework.cloud.sample.bookstore.reactive.model.User;
+import org.springframework.cloud.sample.bookstore.reactive.repository.UserRepository;
+import org.springframework.cloud.sample.bookstore.reactive.security.SecurityAuthorities;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.SecureRandom;
+
+@Service
+public class UserService {
+	private static final String PASSWORD_CHARS =
+			"0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+	private static final int PASSWORD_LENGTH = 12;
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	private final UserRepository userRepository;
+	private final PasswordEncoder passwordEncoder;
+
+	public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+		this.userRepository = userRepository;
+		this.passwordEncoder = passwordEncoder;
+	}
+
+	@Transactional
+	public Mono<Void> initializeUsers() {
+		return userRepository.count()
+				.filter(count -> count == 0)
+				.flatMap(count -> saveUser("admin", passwordEncoder.encode("supersecret"),
+						SecurityAuthorities.ADMIN, SecurityAuthorities.FULL_ACCESS))
+				.then();
+	}
+
+	// emits the user with the generated password in clear text, for handing out to the client
+	@Transactional
+	public Mono<User> createUser(String username, String... authorities) {
+		String password = generatePassword();
+		return saveUser(username, passwordEncoder.encode(password), authorities)
+				.map(user -> new User(user.getId(), username, password));
+	}
+
+	private Mono<User> saveUser(String username, String encodedPassword, String... authorities) {
+		return userRepository.save(new User(null, username, encodedPassword))
+				.flatMap(user -> Flux.fromArray(authorities)
+						.concatMap(authority -> userRepository.addAuthority(user.getId(), authority))
+						.then(Mono.just(user)));
+	}
+
+	private String generatePassword() {
+		StringBuilder sb = new StringBuilder(PASSWORD_LENGTH);
+		for (int i = 0; i < PASSWORD_LENGTH; i++) {
+			sb.append(PASSWORD_CHARS.charAt(RANDOM.nextInt(PASSWORD_CHARS.length())));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,29 @@
+create table if not exists bookstores (
+	id varchar(50) primary key,
+	version bigint default 0 not null
+);
+
+-- position keeps the books of a store in the order they were added
+create table if not exists books (
+	id varchar(50) primary key,
+	bookstore_id varchar(50) not null references bookstores (id) on delete cascade,
+	position bigint auto_increment,
+	isbn varchar(20),
+	title varchar(255),
+	author varchar(255)
+);
+
+create index if not exists books_bookstore_position_idx on books (bookstore_id, position);
+
+create index if not exists books_bookstore_isbn_idx on books (bookstore_id, isbn);
+
+create table if not exists users (
+	id bigint auto_increment primary key,
+	username varchar(50) not null unique,
+	password varchar(100)
+);
+
+create table if not exists user_authorities (
+	user_id bigint not null references users (id) on delete cascade,
+	authority varchar(255)
+);
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.reactive.integration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.sample.bookstore.reactive.model.Book;
+import org.springframework.cloud.sample.bookstore.reactive.model.User;
+import org.springframework.cloud.sample.bookstore.reactive.security.SecurityAuthorities;
+import org.springframework.cloud.sample.bookstore.reactive.service.BookStoreService;
+import org.springframework.cloud.sample.bookstore.reactive.service.UserService;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReactiveBookStoreIntegrationTests {
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private BookStoreService service;
+
+	@Autowired
+	private UserService userService;
+
+	private String bookStoreId;
+
+	private String bookId;
+
+	@Before
+	public void setUp() {
+		bookStoreId = UUID.randomUUID().toString();
+		service.createBookStore(bookStoreId).block();
+		bookId = service.putBookInStore(bookStoreId,
+				new Book("978-1617292545", "Spring Boot in Action", "Craig Walls"), null).block().getId();
+		service.putBookInStore(bookStoreId,
+				new Book("1784393029", "Learning Spring Boot", "Greg L. Turnquist"), null).block();
+	}
+
+	@Test
+	public void bookStoreIsReturnedWithItsVersion() {
+		String eTag = get("/bookstores/{bookStoreId}", bookStoreId)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.books.length()").isEqualTo(2)
+				.jsonPath("$.books[0].title").isEqualTo("Spring Boot in Action")
+				.jsonPath("$.books[0].links[0].href").value(endsWith("/bookstores/" + bookStoreId + "/books/" + bookId))
+				.jsonPath("$.books[1].isbn").isEqualTo("9781784393021")
+				.jsonPath("$.links[0].href").value(endsWith("/bookstores/" + bookStoreId))
+				.returnResult().getResponseHeaders().getETag();
+
+		get("/bookstores/{bookStoreId}", bookStoreId)
+				.header("If-None-Match", eTag)
+				.exchange()
+				.expectStatus().isNotModified();
+
+		get("/bookstores/{bookStoreId}/books/{bookId}", bookStoreId, bookId)
+				.header("If-None-Match", "W/" + eTag)
+				.exchange()
+				.expectStatus().isNotModified();
+	}
+
+	@Test
+	public void booksGetTimeOrderedIds() {
+		String laterBookId = service.putBookInStore(bookStoreId,
+				new Book("978-1449374648", "Cloud Native Java", "Josh Long"), null).block().getId();
+
+		assertThat(UUID.fromString(bookId).version()).isEqualTo(7);
+		assertThat(laterBookId).isGreaterThan(bookId);
+	}
+
+	@Test
+	public void booksAreStreamedAsTheClientReadsThem() {
+		for (int i = 0; i < 500; i++) {
+			service.putBookInStore(bookStoreId, new Book("978-1449374648", "Cloud Native Java " + i, "Josh Long"),
+					null).block();
+		}
+
+		Flux<String> books = get("/bookstores/{bookStoreId}", bookStoreId)
+				.accept(MediaType.APPLICATION_STREAM_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_STREAM_JSON)
+				.returnResult(String.class)
+				.getResponseBody();
+
+		StepVerifier.create(books, 2)
+				.expectNextMatches(book -> book.contains("Spring Boot in Action"))
+				.expectNextMatches(book -> book.contains("Learning Spring Boot"))
+				.thenRequest(1)
+				.expectNextMatches(book -> book.contains("Cloud Native Java 0"))
+				.thenCancel()
+				.verify();
+	}
+
+	@Test
+	public void booksAreAddedAndRemoved() {
+		put("/bookstores/{bookStoreId}/books", bookStoreId)
+				.bodyValue(new Book("9781449374648", "Cloud Native Java", "Josh Long"))
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody()
+				.jsonPath("$.title").isEqualTo("Cloud Native Java");
+
+		get("/bookstores/{bookStoreId}/books?isbn={isbn}", bookStoreId, "1-4493-7464-6")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.length()").isEqualTo(1)
+				.jsonPath("$[0].author").isEqualTo("Josh Long");
+
+		delete("/bookstores/{bookStoreId}/books/{bookId}", bookStoreId, bookId)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.title").isEqualTo("Spring Boot in Action");
+
+		get("/bookstores/{bookStoreId}/books/{bookId}", bookStoreId, bookId)
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("$.errorMessage").isEqualTo("Invalid book ID " + bookStoreId + ":" + bookId + ".");
+	}
+
+	@Test
+	public void writesWithStaleVersionAreRejected() {
+		String eTag = eTag();
+		service.putBookInStore(bookStoreId, new Book("9781449374648", "Cloud Native Java", "Josh Long"), null).block();
+
+		put("/bookstores/{bookStoreId}/books", bookStoreId)
+				.header("If-Match", eTag)
+				.bodyValue(new Book("9781784393021", "Learning Spring Boot", "Greg L. Turnquist"))
+				.exchange()
+				.expectStatus().isEqualTo(412);
+
+		delete("/bookstores/{bookStoreId}/books/{bookId}", bookStoreId, bookId)
+				.header("If-Match", "\"-1\", " + eTag())
+				.exchange()
+				.expectStatus().isOk();
+
+		get("/bookstores/{bookStoreId}", bookStoreId)
+				.exchange()
+				.expectBody()
+				.jsonPath("$.books.length()").isEqualTo(2);
+	}
+
+	@Test
+	public void unknownBookStoreIsRejected() {
+		get("/bookstores/{bookStoreId}", "unknown")
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("$.errorMessage").isEqualTo("Invalid book store ID unknown.");
+
+		get("/bookstores/{bookStoreId}", "unknown")
+				.accept(MediaType.APPLICATION_STREAM_JSON)
+				.exchange()
+				.expectStatus().isBadRequest();
+
+		put("/bookstores/{bookStoreId}/books", "unknown")
+				.bodyValue(new Book("9781449374648", "Cloud Native Java", "Josh Long"))
+				.exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	@Test
+	public void requestsNeedCredentials() {
+		webTestClient.get().uri("/bookstores/{bookStoreId}", bookStoreId)
+				.exchange()
+				.expectStatus().isUnauthorized();
+	}
+
+	@Test
+	public void readOnlyUsersCanOnlyReadTheirStore() {
+		User user = userService.createUser("reader-" + bookStoreId,
+				SecurityAuthorities.READ_ONLY, SecurityAuthorities.BOOK_STORE_ID_PREFIX + bookStoreId).block();
+		String otherStoreId = UUID.randomUUID().toString();
+		service.createBookStore(otherStoreId).block();
+
+		get(user, "/bookstores/{bookStoreId}", bookStoreId)
+				.exchange()
+				.expectStatus().isOk();
+
+		get(user, "/bookstores/{bookStoreId}", otherStoreId)
+				.exchange()
+				.expectStatus().isForbidden();
+
+		webTestClient.delete().uri("/bookstores/{bookStoreId}/books/{bookId}", bookStoreId, bookId)
+				.headers(headers -> headers.setBasicAuth(user.getUsername(), user.getPassword()))
+				.exchange()
+				.expectStatus().isForbidden();
+
+		webTestClient.put().uri("/bookstores/{bookStoreId}", UUID.randomUUID())
+				.headers(headers -> headers.setBasicAuth(user.getUsername(), user.getPassword()))
+				.exchange()
+				.expectStatus().isForbidden();
+	}
+
+	@Test
+	public void adminCreatesAndDeletesBookStores() {
+		String newStoreId = UUID.randomUUID().toString();
+
+		put("/bookstores/{bookStoreId}", newStoreId)
+				.exchange()
+				.expectStatus().isCreated();
+
+		put("/bookstores/{bookStoreId}", newStoreId)
+				.exchange()
+				.expectStatus().isOk();
+
+		delete("/bookstores/{bookStoreId}", bookStoreId)
+				.exchange()
+				.expectStatus().isOk();
+
+		get("/bookstores/{bookStoreId}", bookStoreId)
+				.exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	private String eTag() {
+		return get("/bookstores/{bookStoreId}", bookStoreId)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().value("ETag", equalTo("\"" + service.getVersion(bookStoreId).block() + "\""))
+				.returnResult(String.class).getResponseHeaders().getETag();
+	}
+
+	private WebTestClient.RequestHeadersSpec<?> get(String uri, Object... uriVariables) {
+		return webTestClient.get().uri(uri, uriVariables)
+				.accept(MediaType.APPLICATION_JSON)
+				.headers(headers -> headers.setBasicAuth("admin", "supersecret"));
+	}
+
+	private WebTestClient.RequestHeadersSpec<?> get(User user, String uri, Object... uriVariables) {
+		return webTestClient.get().uri(uri, uriVariables)
+				.accept(MediaType.APPLICATION_JSON)
+				.headers(headers -> headers.setBasicAuth(user.getUsername(), user.getPassword()));
+	}
+
+	private WebTestClient.RequestBodySpec put(String uri, Object... uriVariables) {
+		return webTestClient.put().uri(uri, uriVariables)
+				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
+				.headers(headers -> headers.setBasicAuth("admin", "supersecret"));
+	}
+
+	private WebTestClient.RequestHeadersSpec<?> delete(String uri, Object... uriVariables) {
+		return webTestClient.delete().uri(uri, uriVariables)
+				.accept(MediaType.APPLICATION_JSON)
+				.headers(headers -> headers.setBasicAuth("admin", "supersecret"));
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+public final class BenchmarkApplication {
+	private BenchmarkApplication() {
+	}
+
+	public static ConfigurableApplicationContext start(String databaseName) {
+		return start(databaseName, WebApplicationType.NONE);
+	}
+
+	public static ConfigurableApplicationContext start(String databaseName, WebApplicationType webApplicationType) {
+		return new SpringApplicationBuilder(ServiceBrokerApplication.class)
+				.web(webApplicationType)
+				.properties(
+						"server.port=0",
+						"spring.datasource.url=jdbc:hsqldb:mem:" + databaseName,
+						"spring.jpa.show-sql=false",
+						"logging.level.root=WARN")
+				.run();
+	}
+}
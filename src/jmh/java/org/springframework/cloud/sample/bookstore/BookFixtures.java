@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore;
+
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+public final class BookFixtures {
+	private static final long SEED = 42L;
+
+	private static final String[] AUTHORS = {
+			"Craig Walls", "Greg L. Turnquist", "Alex Antonov", "Josh Long", "Mark Heckler",
+			"Juergen Hoeller", "Rod Johnson", "Mark Fisher", "Dave Syer", "Phillip Webb"
+	};
+
+	private BookFixtures() {
+	}
+
+	public static List<Book> books(int count) {
+		Random random = new Random(SEED);
+		List<Book> books = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			books.add(new Book(randomId(random), book(random, i)));
+		}
+		return books;
+	}
+
+	public static Book book(Random random, int index) {
+		String isbn = isbn(random);
+		String title = "Spring Boot Recipes, Volume " + index;
+		String author = AUTHORS[random.nextInt(AUTHORS.length)];
+		return new Book(isbn, title, author);
+	}
+
+	public static String isbn(Random random) {
+		StringBuilder isbn = new StringBuilder("978");
+		for (int i = 0; i < 9; i++) {
+			isbn.append(random.nextInt(10));
+		}
+
+		int sum = 0;
+		for (int i = 0; i < isbn.length(); i++) {
+			sum += (isbn.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return isbn.append((10 - sum % 10) % 10).toString();
+	}
+
+	public static BookStore bookStore(String storeId, int size) {
+		BookStore bookStore = new BookStore(storeId);
+		books(size).forEach(bookStore::addBook);
+		return bookStore;
+	}
+
+	public static String randomId(Random random) {
+		return new UUID(random.nextLong(), random.nextLong()).toString();
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.model;
+
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+import org.springframework.cloud.sample.bookstore.BookFixtures;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreResource;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreResourceAssembler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public final class BookFootprint {
+	private static final int[] SIZES = {1, 100, 10_000, 100_000};
+
+	private BookFootprint() {
+	}
+
+	public static void main(String[] args) {
+		System.out.println(VM.current().details());
+
+		long emptyStore = GraphLayout.parseInstance(bookStore(0, new HashMap<>())).totalSize();
+		long emptyResource = GraphLayout.parseInstance(resource(bookStore(0, new HashMap<>()))).totalSize();
+
+		// "shared bytes/book" is what a second store holding the same titles adds once the catalog entries exist
+		System.out.printf("%10s %14s %12s %19s %16s %14s%n",
+				"books", "store bytes", "bytes/book", "shared bytes/book", "resource bytes", "bytes/book");
+		for (int size : SIZES) {
+			Map<String, BookCatalogEntry> catalog = new HashMap<>();
+			BookStore bookStore = bookStore(size, catalog);
+			BookStore otherBookStore = bookStore(size, catalog);
+			long storeBytes = GraphLayout.parseInstance(bookStore).totalSize();
+			long sharedBytes = GraphLayout.parseInstance(bookStore, otherBookStore).totalSize() - storeBytes;
+			long resourceBytes = GraphLayout.parseInstance(resource(bookStore)).totalSize();
+
+			System.out.printf("%10d %14d %12.1f %19.1f %16d %14.1f%n", size,
+					storeBytes, (storeBytes - emptyStore) / (double) size,
+					(sharedBytes - emptyStore) / (double) size,
+					resourceBytes, (resourceBytes - emptyResource) / (double) size);
+		}
+
+		BookStore sample = bookStore(1, new HashMap<>());
+		System.out.println();
+		System.out.println(GraphLayout.parseInstance(sample.getBooks().get(0)).toFootprint());
+	}
+
+	// books read from the database carry their own id and ISBN strings, unlike the fixture literals, and are
+	// resolved against the catalog the way BookCatalogService does, sharing the names of authors
+	private static BookStore bookStore(int size, Map<String, BookCatalogEntry> catalog) {
+		Map<String, String> authors = new HashMap<>();
+		BookStore bookStore = new BookStore("1111-1111-1111-1111");
+		for (Book book : BookFixtures.books(size)) {
+			Book loaded = new Book(new String(book.getId()), new Book(new String(book.getIsbn()), null, null));
+			loaded.setCatalogEntry(catalog.computeIfAbsent(book.getIsbn(), isbn -> {
+				BookCatalogEntry entry = new BookCatalogEntry(new String(isbn), new String(book.getTitle()),
+						new String(book.getAuthor()));
+				entry.shareAuthor(authors.computeIfAbsent(entry.getAuthor(), author -> author));
+				return entry;
+			}));
+			bookStore.addBook(loaded);
+		}
+		return bookStore;
+	}
+
+	private static BookStoreResource resource(BookStore bookStore) {
+		return new BookStoreResourceAssembler().toResource(bookStore);
+	}
+}
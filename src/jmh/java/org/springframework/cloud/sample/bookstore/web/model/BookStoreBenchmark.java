@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.cloud.sample.bookstore.BookFixtures;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookStoreBenchmark {
+	@Param({"10", "1000", "100000", "1000000"})
+	private int storeSize;
+
+	private BookStore bookStore;
+
+	private String[] bookIds;
+
+	private int next;
+
+	@Setup
+	public void setUp() {
+		bookStore = BookFixtures.bookStore("benchmark-store", storeSize);
+
+		List<Book> books = bookStore.getBooks();
+		bookIds = new String[books.size()];
+		for (int i = 0; i < bookIds.length; i++) {
+			bookIds[i] = books.get(i).getId();
+		}
+	}
+
+	@Benchmark
+	public Optional<Book> getBookById() {
+		return bookStore.getBookById(nextBookId());
+	}
+
+	@Benchmark
+	public Optional<Book> getBookByUnknownId() {
+		return bookStore.getBookById("unknown-book-id");
+	}
+
+	@Benchmark
+	public Optional<Book> removeAndAddBack() {
+		Optional<Book> book = bookStore.remove(nextBookId());
+		book.ifPresent(bookStore::addBook);
+		return book;
+	}
+
+	private String nextBookId() {
+		String bookId = bookIds[next];
+		next = (next + 1) % bookIds.length;
+		return bookId;
+	}
+}
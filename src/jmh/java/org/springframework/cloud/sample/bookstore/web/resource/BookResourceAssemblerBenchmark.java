@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.cloud.sample.bookstore.BookFixtures;
+import org.springframework.cloud.sample.bookstore.web.controller.BookController;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookResourceAssemblerBenchmark {
+	private static final String STORE_ID = "benchmark-store";
+
+	@Param({"10", "1000", "10000", "100000"})
+	private int storeSize;
+
+	private List<Book> books;
+
+	private final BookResourceAssembler assembler = new BookResourceAssembler();
+
+	@Setup
+	public void setUp() {
+		books = BookFixtures.books(storeSize);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bookstores/" + STORE_ID);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	@TearDown
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Benchmark
+	public List<BookResource> toResources() {
+		return assembler.toResources(books, STORE_ID);
+	}
+
+	// the previous assembly, which resolved the controller link once per book
+	@Benchmark
+	public List<BookResource> toResourcesWithLinkPerBook() {
+		List<BookResource> bookResources = new ArrayList<>(books.size());
+		for (Book book : books) {
+			BookResource bookResource = new BookResource(book);
+			bookResource.add(linkTo(BookController.class, STORE_ID).slash(book.getId()).withSelfRel());
+			bookResources.add(bookResource);
+		}
+		return bookResources;
+	}
+}
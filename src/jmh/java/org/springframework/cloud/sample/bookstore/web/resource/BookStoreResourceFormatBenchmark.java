@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.cloud.sample.bookstore.BookFixtures;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+// compares the encodings a client can ask for, writing on the server side and reading on the client side
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookStoreResourceFormatBenchmark {
+	private static final String STORE_ID = "benchmark-store";
+
+	@Param({"1000", "10000", "100000"})
+	private int storeSize;
+
+	@Param({"json", "cbor", "smile"})
+	private String format;
+
+	private BookStoreResource resource;
+
+	private ObjectMapper objectMapper;
+
+	private byte[] content;
+
+	@Setup
+	public void setUp() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bookstores/" + STORE_ID);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+		resource = new BookStoreResourceAssembler().toResource(BookFixtures.bookStore(STORE_ID, storeSize));
+		objectMapper = new ObjectMapper(factory(format));
+		Jackson2ObjectMapperBuilder.json().configure(objectMapper);
+		content = objectMapper.writeValueAsBytes(resource);
+	}
+
+	@TearDown
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Benchmark
+	public byte[] write() throws Exception {
+		return objectMapper.writeValueAsBytes(resource);
+	}
+
+	@Benchmark
+	public JsonNode read() throws Exception {
+		return objectMapper.readTree(content);
+	}
+
+	private static JsonFactory factory(String format) {
+		switch (format) {
+			case "cbor":
+				return new CBORFactory();
+			case "smile":
+				return new SmileFactory();
+			default:
+				return new JsonFactory();
+		}
+	}
+}
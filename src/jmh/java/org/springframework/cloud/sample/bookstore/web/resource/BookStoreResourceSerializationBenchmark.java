@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.cloud.sample.bookstore.BookFixtures;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookStoreResourceSerializationBenchmark {
+	private static final String STORE_ID = "benchmark-store";
+
+	@Param({"10", "1000", "10000", "100000"})
+	private int storeSize;
+
+	private BookStore bookStore;
+
+	private BookStoreResource resource;
+
+	private ObjectMapper objectMapper;
+
+	@Setup
+	public void setUp() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bookstores/" + STORE_ID);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+		bookStore = BookFixtures.bookStore(STORE_ID, storeSize);
+		resource = new BookStoreResourceAssembler().toResource(bookStore);
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Benchmark
+	public byte[] serialize() throws Exception {
+		return objectMapper.writeValueAsBytes(resource);
+	}
+
+	@Benchmark
+	public byte[] assembleAndSerialize() throws Exception {
+		return objectMapper.writeValueAsBytes(new BookStoreResourceAssembler().toResource(bookStore));
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.cloud.sample.bookstore.BenchmarkApplication;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.User;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreService;
+import org.springframework.cloud.sample.bookstore.web.service.UserService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.sample.bookstore.web.security.SecurityAuthorities.BOOK_STORE_ID_PREFIX;
+import static org.springframework.cloud.sample.bookstore.web.security.SecurityAuthorities.FULL_ACCESS;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BasicAuthenticationChainBenchmark {
+	private static final String BOOK_STORE_ID = "1111-1111-1111-1111";
+	private static final String BINDING_ID = "benchmark-binding";
+
+	private ConfigurableApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	private RequestBuilder authenticatedRequest;
+
+	private RequestBuilder badCredentialsRequest;
+
+	private RequestBuilder anonymousRequest;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		context = BenchmarkApplication.start("security-benchmark", WebApplicationType.SERVLET);
+
+		BookStoreService bookStoreService = context.getBean(BookStoreService.class);
+		bookStoreService.createBookStore(BOOK_STORE_ID);
+		Book book = bookStoreService.putBookInStore(BOOK_STORE_ID,
+				new Book("978-1617292545", "Spring Boot in Action", "Craig Walls"));
+
+		User user = context.getBean(UserService.class)
+				.createUser(BINDING_ID, FULL_ACCESS, BOOK_STORE_ID_PREFIX + BOOK_STORE_ID);
+
+		mockMvc = MockMvcBuilders
+				.webAppContextSetup((WebApplicationContext) context)
+				.apply(springSecurity())
+				.build();
+
+		String bookUri = "/bookstores/" + BOOK_STORE_ID + "/books/" + book.getId();
+		authenticatedRequest = get(bookUri)
+				.accept(MediaType.APPLICATION_JSON)
+				.with(httpBasic(user.getUsername(), user.getPassword()));
+		badCredentialsRequest = get(bookUri)
+				.accept(MediaType.APPLICATION_JSON)
+				.with(httpBasic(user.getUsername(), "wrong-password"));
+		anonymousRequest = get(bookUri)
+				.accept(MediaType.APPLICATION_JSON);
+
+		expectStatus(authenticatedRequest, 200);
+		expectStatus(badCredentialsRequest, 401);
+		expectStatus(anonymousRequest, 401);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int authenticatedRequest() throws Exception {
+		return perform(authenticatedRequest);
+	}
+
+	@Benchmark
+	public int badCredentialsRequest() throws Exception {
+		return perform(badCredentialsRequest);
+	}
+
+	@Benchmark
+	public int anonymousRequest() throws Exception {
+		return perform(anonymousRequest);
+	}
+
+	private int perform(RequestBuilder request) throws Exception {
+		return mockMvc.perform(request).andReturn().getResponse().getStatus();
+	}
+
+	private void expectStatus(RequestBuilder request, int expectedStatus) throws Exception {
+		int status = perform(request);
+		if (status != expectedStatus) {
+			throw new IllegalStateException("Expected status " + expectedStatus + " but was " + status);
+		}
+	}
+}
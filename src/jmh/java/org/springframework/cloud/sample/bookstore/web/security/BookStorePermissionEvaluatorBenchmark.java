@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.sample.bookstore.web.security.SecurityAuthorities.BOOK_STORE_ID_PREFIX;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookStorePermissionEvaluatorBenchmark {
+	private static final String BOOK_STORE_ID = "1111-1111-1111-1111";
+
+	@Param({"1", "4", "16", "64"})
+	private int authorityCount;
+
+	private final BookStorePermissionEvaluator permissionEvaluator = new BookStorePermissionEvaluator();
+
+	private Authentication authentication;
+
+	@Setup
+	public void setUp() {
+		List<GrantedAuthority> authorities = new ArrayList<>(authorityCount);
+		for (int i = 1; i < authorityCount; i++) {
+			authorities.add(new SimpleGrantedAuthority("ROLE_AUTHORITY_" + i));
+		}
+		authorities.add(new SimpleGrantedAuthority(BOOK_STORE_ID_PREFIX + BOOK_STORE_ID));
+
+		authentication = new UsernamePasswordAuthenticationToken("user", "password", authorities);
+	}
+
+	@Benchmark
+	public boolean hasPermissionForOwnStore() {
+		return permissionEvaluator.hasPermission(authentication, BOOK_STORE_ID, "");
+	}
+
+	@Benchmark
+	public boolean hasPermissionForOtherStore() {
+		return permissionEvaluator.hasPermission(authentication, "2222-2222-2222-2222", "");
+	}
+}
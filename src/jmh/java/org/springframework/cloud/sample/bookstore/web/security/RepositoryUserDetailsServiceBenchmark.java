@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.cloud.sample.bookstore.web.model.User;
+import org.springframework.cloud.sample.bookstore.web.repository.UserRepository;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.sample.bookstore.web.security.SecurityAuthorities.BOOK_STORE_ID_PREFIX;
+import static org.springframework.cloud.sample.bookstore.web.security.SecurityAuthorities.FULL_ACCESS;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RepositoryUserDetailsServiceBenchmark {
+	private static final String USERNAME = "binding-id";
+
+	@Param({"2", "8", "32"})
+	private int authorityCount;
+
+	private RepositoryUserDetailsService userDetailsService;
+
+	private UserDetails userDetails;
+
+	@Setup
+	public void setUp() {
+		String[] authorities = new String[authorityCount];
+		authorities[0] = FULL_ACCESS;
+		for (int i = 1; i < authorityCount; i++) {
+			authorities[i] = BOOK_STORE_ID_PREFIX + "instance-" + i;
+		}
+
+		User user = new User(USERNAME, "encoded-password", authorities);
+		userDetailsService = new RepositoryUserDetailsService(inMemoryUserRepository(user));
+		userDetails = userDetailsService.loadUserByUsername(USERNAME);
+	}
+
+	@Benchmark
+	public UserDetails loadUserByUsername() {
+		return userDetailsService.loadUserByUsername(USERNAME);
+	}
+
+	@Benchmark
+	public Collection<? extends GrantedAuthority> getAuthorities() {
+		return userDetails.getAuthorities();
+	}
+
+	private static UserRepository inMemoryUserRepository(User user) {
+		return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+				new Class<?>[]{UserRepository.class},
+				(proxy, method, args) -> {
+					if ("findByUsername".equals(method.getName())) {
+						return user.getUsername().equals(args[0]) ? user : null;
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+}
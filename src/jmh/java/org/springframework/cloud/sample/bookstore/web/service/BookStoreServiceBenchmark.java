@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.sample.bookstore.BenchmarkApplication;
+import org.springframework.cloud.sample.bookstore.BookFixtures;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.cloud.sample.bookstore.web.repository.BookStoreRepository;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BookStoreServiceBenchmark {
+	private static final String STORE_ID = "benchmark-store";
+
+	@Param({"10", "1000", "100000", "1000000"})
+	private int storeSize;
+
+	private ConfigurableApplicationContext context;
+
+	private BookStoreService bookStoreService;
+
+	private BookStoreRepository repository;
+
+	private final Random random = new Random(7L);
+
+	private Book addedBook;
+
+	@Setup(Level.Trial)
+	public void startApplication() {
+		context = BenchmarkApplication.start("benchmark-" + storeSize);
+		bookStoreService = context.getBean(BookStoreService.class);
+		repository = context.getBean(BookStoreRepository.class);
+
+		// saved directly, which the ID filter built at startup does not hear of
+		repository.save(BookFixtures.bookStore(STORE_ID, storeSize));
+		context.getBean(BookStoreIdFilter.class).rebuild();
+	}
+
+	@TearDown(Level.Trial)
+	public void stopApplication() {
+		context.close();
+	}
+
+	@Benchmark
+	public Book putBookInStore() {
+		addedBook = bookStoreService.putBookInStore(STORE_ID, BookFixtures.book(random, storeSize));
+		return addedBook;
+	}
+
+	@Benchmark
+	public BookStore getBookStore() {
+		return bookStoreService.getBookStore(STORE_ID);
+	}
+
+	@TearDown(Level.Invocation)
+	public void restoreStoreSize() {
+		// removes only the added book, so the teardown does not reload and save the whole store
+		if (addedBook != null) {
+			bookStoreService.removeBookFromStore(STORE_ID, addedBook.getId());
+			addedBook = null;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+// generation under contention, and inserts into a primary key index that does not fit in the database's row cache
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+	private static final int INSERT_BATCH_SIZE = 1000;
+
+	@Param({"random", "time-ordered"})
+	private String generator;
+
+	private IdGenerator idGenerator;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		idGenerator = "random".equals(generator) ? new JdkIdGenerator() : new TimeOrderedIdGenerator();
+	}
+
+	@Benchmark
+	@Threads(8)
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public String generate() {
+		return idGenerator.generateId().toString();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public int insertIntoIndex(Index index) throws SQLException {
+		return index.insert(idGenerator);
+	}
+
+	@State(Scope.Benchmark)
+	public static class Index {
+		@Param({"100000"})
+		private int indexSize;
+
+		private File directory;
+
+		private Connection connection;
+
+		private PreparedStatement insert;
+
+		@Setup(Level.Trial)
+		public void setUp(IdGeneratorBenchmark benchmark) throws Exception {
+			directory = Files.createTempDirectory("id-index").toFile();
+			connection = DriverManager.getConnection("jdbc:hsqldb:file:" + directory + "/index;" +
+					"hsqldb.default_table_type=cached;hsqldb.cache_rows=10000", "sa", "");
+			connection.setAutoCommit(false);
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("create table books (id varchar(36) primary key)");
+			}
+			insert = connection.prepareStatement("insert into books (id) values (?)");
+			for (int i = 0; i < indexSize; i += INSERT_BATCH_SIZE) {
+				insert(benchmark.idGenerator);
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws SQLException {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("shutdown");
+			}
+			connection.close();
+			FileSystemUtils.deleteRecursively(directory);
+		}
+
+		int insert(IdGenerator idGenerator) throws SQLException {
+			for (int i = 0; i < INSERT_BATCH_SIZE; i++) {
+				insert.setString(1, idGenerator.generateId().toString());
+				insert.addBatch();
+			}
+			int inserted = insert.executeBatch().length;
+			connection.commit();
+			return inserted;
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import java.util.Properties;
+
+public class ChurnOptions {
+	private static final String PREFIX = "churn.";
+
+	private final int concurrency;
+	private final long durationSeconds;
+	private final long warmupSeconds;
+	private final int bindingsPerInstance;
+	private final int booksPerInstance;
+	private final String reportDirectory;
+
+	public ChurnOptions(Properties properties) {
+		this.concurrency = Integer.parseInt(properties.getProperty(PREFIX + "concurrency", "16"));
+		this.durationSeconds = Long.parseLong(properties.getProperty(PREFIX + "duration", "60"));
+		this.warmupSeconds = Long.parseLong(properties.getProperty(PREFIX + "warmup", "10"));
+		this.bindingsPerInstance = Integer.parseInt(properties.getProperty(PREFIX + "bindingsPerInstance", "2"));
+		this.booksPerInstance = Integer.parseInt(properties.getProperty(PREFIX + "booksPerInstance", "5"));
+		this.reportDirectory = properties.getProperty(PREFIX + "reportDirectory", "build/reports/churn");
+
+		if (concurrency <= 0) {
+			throw new IllegalArgumentException(PREFIX + "concurrency must be positive");
+		}
+		if (bindingsPerInstance < 0 || booksPerInstance < 0) {
+			throw new IllegalArgumentException(PREFIX + "bindingsPerInstance and " + PREFIX +
+					"booksPerInstance must not be negative");
+		}
+	}
+
+	public static ChurnOptions fromSystemProperties() {
+		return new ChurnOptions(System.getProperties());
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public long getDurationSeconds() {
+		return durationSeconds;
+	}
+
+	public long getWarmupSeconds() {
+		return warmupSeconds;
+	}
+
+	public int getBindingsPerInstance() {
+		return bindingsPerInstance;
+	}
+
+	public int getBooksPerInstance() {
+		return booksPerInstance;
+	}
+
+	public String getReportDirectory() {
+		return reportDirectory;
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import org.springframework.cloud.sample.bookstore.servicebroker.service.BookStoreServiceInstanceBindingService;
+import org.springframework.cloud.sample.bookstore.servicebroker.service.BookStoreServiceInstanceService;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreService;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Closed-model scenario: each of the concurrent workers runs complete instance lifecycles back to back by calling
+// the broker services directly, so the numbers show the cost of the services and the database without HTTP.
+public class ChurnScenario {
+	private static final List<Operation> OPERATIONS =
+			Arrays.asList(Operation.PROVISION, Operation.BIND, Operation.ADD_BOOK, Operation.UNBIND, Operation.DEPROVISION);
+
+	private final ChurnOptions options;
+	private final BookStoreServiceInstanceService instanceService;
+	private final BookStoreServiceInstanceBindingService bindingService;
+	private final BookStoreService bookStoreService;
+	private final String serviceDefinitionId;
+	private final String planId;
+
+	private final Map<Operation, OperationStatistics> statistics = new EnumMap<>(Operation.class);
+	private final OperationStatistics total = new OperationStatistics("total");
+	private final OperationStatistics lifecycles = new OperationStatistics("lifecycle");
+
+	public ChurnScenario(ChurnOptions options,
+						 BookStoreServiceInstanceService instanceService,
+						 BookStoreServiceInstanceBindingService bindingService,
+						 BookStoreService bookStoreService,
+						 ServiceDefinition serviceDefinition) {
+		this.options = options;
+		this.instanceService = instanceService;
+		this.bindingService = bindingService;
+		this.bookStoreService = bookStoreService;
+		this.serviceDefinitionId = serviceDefinition.getId();
+		this.planId = serviceDefinition.getPlans().get(0).getId();
+
+		for (Operation operation : OPERATIONS) {
+			statistics.put(operation, new OperationStatistics(operation.getKey()));
+		}
+	}
+
+	public LoadReport run() throws InterruptedException {
+		Instant startedAt = Instant.now();
+		long start = System.nanoTime();
+		long measurementStart = start + TimeUnit.SECONDS.toNanos(options.getWarmupSeconds());
+		long end = measurementStart + TimeUnit.SECONDS.toNanos(options.getDurationSeconds());
+
+		ExecutorService workers = Executors.newFixedThreadPool(options.getConcurrency());
+		for (int i = 0; i < options.getConcurrency(); i++) {
+			workers.execute(() -> {
+				long lifecycleStart;
+				while ((lifecycleStart = System.nanoTime()) < end) {
+					runLifecycle(lifecycleStart >= measurementStart);
+				}
+			});
+		}
+		workers.shutdown();
+		// a lifecycle that started before the deadline is always allowed to finish so that it cleans up after itself
+		workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+		List<OperationStatistics> operations = new ArrayList<>(statistics.values());
+		operations.add(lifecycles);
+
+		LoadReport report = new LoadReport("Bookstore broker churn", startedAt,
+				TimeUnit.NANOSECONDS.toMillis(end - measurementStart), operations, total);
+		report.addSetting("concurrency", options.getConcurrency());
+		report.addSetting("warmupSeconds", options.getWarmupSeconds());
+		report.addSetting("durationSeconds", options.getDurationSeconds());
+		report.addSetting("bindingsPerInstance", options.getBindingsPerInstance());
+		report.addSetting("booksPerInstance", options.getBooksPerInstance());
+		return report;
+	}
+
+	private void runLifecycle(boolean measured) {
+		long start = System.nanoTime();
+		String instanceId = UUID.randomUUID().toString();
+
+		boolean completed = execute(Operation.PROVISION, measured, () ->
+				instanceService.createServiceInstance(CreateServiceInstanceRequest.builder()
+						.serviceInstanceId(instanceId)
+						.serviceDefinitionId(serviceDefinitionId)
+						.planId(planId)
+						.build()));
+		if (!completed) {
+			recordLifecycle(start, measured, false);
+			return;
+		}
+
+		List<String> bindingIds = new ArrayList<>();
+		for (int i = 0; i < options.getBindingsPerInstance(); i++) {
+			String bindingId = UUID.randomUUID().toString();
+			if (execute(Operation.BIND, measured, () ->
+					bindingService.createServiceInstanceBinding(CreateServiceInstanceBindingRequest.builder()
+							.serviceInstanceId(instanceId)
+							.bindingId(bindingId)
+							.serviceDefinitionId(serviceDefinitionId)
+							.planId(planId)
+							.build()))) {
+				bindingIds.add(bindingId);
+			} else {
+				completed = false;
+			}
+		}
+
+		for (int i = 0; i < options.getBooksPerInstance(); i++) {
+			int index = i;
+			completed &= execute(Operation.ADD_BOOK, measured, () ->
+					bookStoreService.putBookInStore(instanceId,
+							new Book("978-1617292545", "Churn Title " + index, "Churn Author " + index)));
+		}
+
+		for (String bindingId : bindingIds) {
+			completed &= execute(Operation.UNBIND, measured, () ->
+					bindingService.deleteServiceInstanceBinding(DeleteServiceInstanceBindingRequest.builder()
+							.serviceInstanceId(instanceId)
+							.bindingId(bindingId)
+							.serviceDefinitionId(serviceDefinitionId)
+							.planId(planId)
+							.build()));
+		}
+
+		completed &= execute(Operation.DEPROVISION, measured, () ->
+				instanceService.deleteServiceInstance(DeleteServiceInstanceRequest.builder()
+						.serviceInstanceId(instanceId)
+						.serviceDefinitionId(serviceDefinitionId)
+						.planId(planId)
+						.build()));
+
+		recordLifecycle(start, measured, completed);
+	}
+
+	private boolean execute(Operation operation, boolean measured, Runnable action) {
+		long start = System.nanoTime();
+		String outcome = "ok";
+		try {
+			action.run();
+		} catch (RuntimeException e) {
+			outcome = e.getClass().getSimpleName();
+		}
+		long elapsed = System.nanoTime() - start;
+
+		boolean successful = "ok".equals(outcome);
+		if (measured) {
+			statistics.get(operation).record(elapsed, elapsed, outcome, successful);
+			total.record(elapsed, elapsed, outcome, successful);
+		}
+		return successful;
+	}
+
+	private void recordLifecycle(long start, boolean measured, boolean completed) {
+		if (measured) {
+			long elapsed = System.nanoTime() - start;
+			lifecycles.record(elapsed, elapsed, completed ? "completed" : "failed", completed);
+		}
+	}
+}
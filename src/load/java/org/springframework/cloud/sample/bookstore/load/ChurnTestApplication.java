@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.sample.bookstore.ServiceBrokerApplication;
+import org.springframework.cloud.sample.bookstore.servicebroker.service.BookStoreServiceInstanceBindingService;
+import org.springframework.cloud.sample.bookstore.servicebroker.service.BookStoreServiceInstanceService;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreService;
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+public class ChurnTestApplication {
+	public static void main(String[] args) throws Exception {
+		ChurnOptions options = ChurnOptions.fromSystemProperties();
+
+		System.setProperty("spring.devtools.restart.enabled", "false");
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ServiceBrokerApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=jdbc:hsqldb:mem:churn-test",
+						"--spring.datasource.hikari.maximum-pool-size=" + Math.max(10, options.getConcurrency()),
+						"--spring.jpa.show-sql=false",
+						"--logging.level.root=WARN")) {
+			ChurnScenario scenario = new ChurnScenario(options,
+					context.getBean(BookStoreServiceInstanceService.class),
+					context.getBean(BookStoreServiceInstanceBindingService.class),
+					context.getBean(BookStoreService.class),
+					context.getBean(Catalog.class).getServiceDefinitions().get(0));
+
+			LoadReport report = scenario.run();
+
+			OrphanCheck orphanCheck = new OrphanCheck(context.getBean(JdbcTemplate.class));
+			Map<String, Long> orphans = orphanCheck.countOrphans();
+			report.addDetail("orphanedRows", orphans);
+			report.addDetail("remainingRows", orphanCheck.countRemaining());
+
+			Path reportDirectory = report.writeTo(options.getReportDirectory());
+			System.out.print(report.toSummary());
+			System.out.println("Report written to " + reportDirectory.toAbsolutePath());
+
+			long orphanCount = orphans.values().stream().mapToLong(Long::longValue).sum();
+			if (orphanCount > 0) {
+				throw new IllegalStateException(orphanCount + " orphaned rows remain after the churn run: " + orphans);
+			}
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+// delays every statement the broker executes, standing in for a database across a network; the embedded HSQLDB
+// otherwise answers in microseconds and no request ever waits on it
+class DatabaseLatency implements BeanPostProcessor {
+	private final long latencyMillis;
+
+	DatabaseLatency(long latencyMillis) {
+		this.latencyMillis = latencyMillis;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof DataSource) {
+			return proxy(DataSource.class, bean);
+		}
+		return bean;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T proxy(Class<T> type, Object target) {
+		InvocationHandler handler = (proxy, method, args) -> {
+			if (Statement.class.isAssignableFrom(type) && method.getName().startsWith("execute")) {
+				TimeUnit.MILLISECONDS.sleep(latencyMillis);
+			}
+			Object result = invoke(method, target, args);
+			if (result instanceof Connection) {
+				return proxy(Connection.class, result);
+			}
+			if (result instanceof Statement) {
+				return proxy((Class<? extends Statement>) method.getReturnType(), result);
+			}
+			return result;
+		};
+		return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type}, handler);
+	}
+
+	private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
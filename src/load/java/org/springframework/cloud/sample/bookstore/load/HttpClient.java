@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class HttpClient {
+	private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+	private static final int READ_TIMEOUT_MILLIS = 30_000;
+
+	private final String baseUrl;
+
+	public HttpClient(String baseUrl) {
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+	}
+
+	public Response get(String path, Credentials credentials) throws IOException {
+		return exchange("GET", path, null, credentials);
+	}
+
+	public Response put(String path, String body, Credentials credentials) throws IOException {
+		return exchange("PUT", path, body, credentials);
+	}
+
+	public Response delete(String path, Credentials credentials) throws IOException {
+		return exchange("DELETE", path, null, credentials);
+	}
+
+	private Response exchange(String method, String path, String body, Credentials credentials) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+		connection.setRequestMethod(method);
+		connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+		connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+		connection.setRequestProperty("Accept", "application/json");
+		connection.setRequestProperty("X-Broker-API-Version", "2.13");
+		connection.setRequestProperty("Authorization", credentials.toBasicAuthorizationHeader());
+
+		if (body != null) {
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			connection.setDoOutput(true);
+			connection.setFixedLengthStreamingMode(bytes.length);
+			connection.setRequestProperty("Content-Type", "application/json");
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(bytes);
+			}
+		}
+
+		int status = connection.getResponseCode();
+		InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+		// reading the body to the end lets the connection go back to the keep-alive cache
+		return new Response(status, in == null ? "" : readFully(in));
+	}
+
+	private static String readFully(InputStream in) throws IOException {
+		try (InputStream input = in) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	public static class Credentials {
+		private final String username;
+		private final String authorizationHeader;
+
+		public Credentials(String username, String password) {
+			this.username = username;
+			this.authorizationHeader = "Basic " + Base64.getEncoder()
+					.encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+		}
+
+		public String getUsername() {
+			return username;
+		}
+
+		String toBasicAuthorizationHeader() {
+			return authorizationHeader;
+		}
+	}
+
+	public static class Response {
+		private final int status;
+		private final String body;
+
+		public Response(int status, String body) {
+			this.status = status;
+			this.body = body;
+		}
+
+		public int getStatus() {
+			return status;
+		}
+
+		public String getBody() {
+			return body;
+		}
+
+		public boolean isSuccessful() {
+			return status >= 200 && status < 300;
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.cloud.sample.bookstore.load.LoadTestOptions.ArrivalProcess;
+import org.springframework.cloud.sample.bookstore.load.Workload.Outcome;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-model generator: requests are issued on a schedule that does not depend on how quickly earlier requests
+// complete, and each response time is measured from the scheduled send time rather than the actual one. Requests
+// still queued or in flight once the drain timeout has passed are recorded as timeouts, measured from their
+// scheduled send time too, so that a server too slow to keep up is not reported on the requests it did answer.
+public class LoadGenerator {
+	private static final long DRAIN_TIMEOUT_SECONDS = 60;
+
+	private final LoadTestOptions options;
+	private final Workload workload;
+
+	public LoadGenerator(LoadTestOptions options, Workload workload) {
+		this.options = options;
+		this.workload = workload;
+	}
+
+	public LoadReport run() throws InterruptedException {
+		Map<Operation, OperationStatistics> statistics = new EnumMap<>(Operation.class);
+		for (Operation operation : Operation.values()) {
+			statistics.put(operation, new OperationStatistics(operation.getKey()));
+		}
+		OperationStatistics total = new OperationStatistics("total");
+		Histogram schedulingLag = new Histogram(TimeUnit.MINUTES.toMicros(10), 3);
+
+		Random random = new Random(options.getSeed());
+		double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+
+		ExecutorService workers = Executors.newFixedThreadPool(options.getThreads(), new WorkerThreadFactory());
+		Set<ScheduledRequest> unfinished = ConcurrentHashMap.newKeySet();
+
+		Instant startedAt = Instant.now();
+		long start = System.nanoTime();
+		long measurementStart = start + TimeUnit.SECONDS.toNanos(options.getWarmupSeconds());
+		long end = measurementStart + TimeUnit.SECONDS.toNanos(options.getDurationSeconds());
+
+		double intendedStart = start;
+		while (intendedStart < end) {
+			long scheduled = (long) intendedStart;
+			long now = System.nanoTime();
+			while (now < scheduled) {
+				LockSupport.parkNanos(scheduled - now);
+				now = System.nanoTime();
+			}
+			schedulingLag.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(now - scheduled),
+					schedulingLag.getHighestTrackableValue()));
+
+			ScheduledRequest request = new ScheduledRequest(options.getMix().next(random), scheduled);
+			boolean measured = scheduled >= measurementStart;
+			if (measured) {
+				unfinished.add(request);
+			}
+			workers.execute(() -> {
+				long sent = System.nanoTime();
+				Outcome outcome = workload.execute(request.operation);
+				long completed = System.nanoTime();
+
+				if (measured && request.finish()) {
+					unfinished.remove(request);
+					String status = String.valueOf(outcome.getStatus());
+					statistics.get(outcome.getOperation()).record(completed - scheduled, completed - sent,
+							status, outcome.isSuccessful());
+					total.record(completed - scheduled, completed - sent, status, outcome.isSuccessful());
+				}
+			});
+
+			intendedStart += nextInterval(random, meanIntervalNanos);
+		}
+
+		workers.shutdown();
+		if (!workers.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+			long timedOut = System.nanoTime();
+			for (ScheduledRequest request : unfinished) {
+				if (request.finish()) {
+					statistics.get(request.operation).recordTimeout(timedOut - request.scheduled);
+					total.recordTimeout(timedOut - request.scheduled);
+				}
+			}
+			// requests that finish from here on are not recorded; the workers are interrupted, and waited for so
+			// that none is still running against the server once the report is built
+			workers.shutdownNow();
+			workers.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+
+		LoadReport report = new LoadReport("Bookstore load test", startedAt,
+				TimeUnit.NANOSECONDS.toMillis(end - measurementStart), statistics.values(), total);
+		report.addSetting("baseUrl", options.isEmbedded() ? "embedded" : options.getBaseUrl());
+		report.addSetting("rate", options.getRate());
+		report.addSetting("arrival", options.getArrivalProcess().name().toLowerCase());
+		report.addSetting("warmupSeconds", options.getWarmupSeconds());
+		report.addSetting("durationSeconds", options.getDurationSeconds());
+		report.addSetting("threads", options.getThreads());
+		report.addSetting("bookStores", options.getBookStores());
+		report.addSetting("seed", options.getSeed());
+		report.addSetting("mix", options.getMix().toString());
+		if (options.isEmbedded()) {
+			report.addSetting("virtualThreads", options.isVirtualThreads());
+			report.addSetting("dbLatencyMillis", options.getDbLatencyMillis());
+			report.addSetting("dbConnections", options.getDbConnections());
+			report.addSetting("serverThreads", options.isVirtualThreads() ? "virtual" : options.getServerThreads());
+		}
+		report.addDetail("schedulingLagMicros", LoadReport.summarize(schedulingLag));
+		return report;
+	}
+
+	private double nextInterval(Random random, double meanIntervalNanos) {
+		if (options.getArrivalProcess() == ArrivalProcess.POISSON) {
+			return -Math.log(1.0 - random.nextDouble()) * meanIntervalNanos;
+		}
+		return meanIntervalNanos;
+	}
+
+	// recorded once, either by the worker that completes it or as a timeout
+	private static class ScheduledRequest {
+		private final Operation operation;
+		private final long scheduled;
+		private final AtomicBoolean finished = new AtomicBoolean();
+
+		ScheduledRequest(Operation operation, long scheduled) {
+			this.operation = operation;
+			this.scheduled = scheduled;
+		}
+
+		boolean finish() {
+			return finished.compareAndSet(false, true);
+		}
+	}
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "load-worker-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
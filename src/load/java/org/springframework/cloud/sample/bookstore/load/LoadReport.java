@@ -0,0 +1,233 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LoadReport {
+	private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+	private static final DateTimeFormatter RUN_DIRECTORY_FORMAT =
+			DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+
+	private final String title;
+	private final Instant startedAt;
+	private final long measuredMillis;
+	private final List<OperationStatistics> operations;
+	private final OperationStatistics total;
+	private final Map<String, Object> settings = new LinkedHashMap<>();
+	private final Map<String, Object> details = new LinkedHashMap<>();
+
+	public LoadReport(String title, Instant startedAt, long measuredMillis,
+					  Collection<OperationStatistics> operations, OperationStatistics total) {
+		this.title = title;
+		this.startedAt = startedAt;
+		this.measuredMillis = measuredMillis;
+		this.operations = new ArrayList<>(operations);
+		this.total = total;
+	}
+
+	public void addSetting(String name, Object value) {
+		settings.put(name, value);
+	}
+
+	public void addDetail(String name, Object value) {
+		details.put(name, value);
+	}
+
+	public double getThroughput() {
+		return throughput(total);
+	}
+
+	public Path writeTo(String reportDirectory) throws IOException {
+		Path directory = Paths.get(reportDirectory, RUN_DIRECTORY_FORMAT.format(startedAt));
+		Files.createDirectories(directory);
+
+		new ObjectMapper()
+				.enable(SerializationFeature.INDENT_OUTPUT)
+				.writeValue(directory.resolve("report.json").toFile(), toMap());
+
+		Files.write(directory.resolve("report.html"), toHtml().getBytes(StandardCharsets.UTF_8));
+
+		for (OperationStatistics statistics : recordedOperations()) {
+			Files.write(directory.resolve(statistics.getName() + ".hgrm"),
+					percentileDistribution(statistics.getResponseTime()).getBytes(StandardCharsets.UTF_8));
+		}
+
+		return directory;
+	}
+
+	public String toSummary() {
+		StringBuilder summary = new StringBuilder();
+		summary.append(String.format("%-14s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+				"operation", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+		for (OperationStatistics statistics : recordedOperations()) {
+			Histogram histogram = statistics.getResponseTime();
+			summary.append(String.format("%-14s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+					statistics.getName(), statistics.getCount(), statistics.getErrors(), throughput(statistics),
+					millis(histogram.getValueAtPercentile(50.0)), millis(histogram.getValueAtPercentile(90.0)),
+					millis(histogram.getValueAtPercentile(99.0)), millis(histogram.getValueAtPercentile(99.9)),
+					millis(histogram.getMaxValue())));
+		}
+		details.forEach((name, value) -> summary.append(name).append(": ").append(value).append(System.lineSeparator()));
+		return summary.toString();
+	}
+
+	public static Map<String, Object> summarize(Histogram histogram) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("mean", histogram.getMean());
+		for (double percentile : PERCENTILES) {
+			map.put("p" + formatPercentile(percentile), histogram.getValueAtPercentile(percentile));
+		}
+		map.put("max", histogram.getMaxValue());
+		return map;
+	}
+
+	private Map<String, Object> toMap() {
+		Map<String, Object> operationsByName = new LinkedHashMap<>();
+		for (OperationStatistics statistics : recordedOperations()) {
+			operationsByName.put(statistics.getName(), toMap(statistics));
+		}
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("title", title);
+		report.put("startedAt", startedAt.toString());
+		report.put("settings", settings);
+		report.put("measuredMillis", measuredMillis);
+		report.put("throughput", getThroughput());
+		report.putAll(details);
+		report.put("operations", operationsByName);
+		return report;
+	}
+
+	private Map<String, Object> toMap(OperationStatistics statistics) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("count", statistics.getCount());
+		map.put("errors", statistics.getErrors());
+		map.put("throughput", throughput(statistics));
+		map.put("outcomes", statistics.getOutcomes());
+		map.put("responseTimeMicros", summarize(statistics.getResponseTime()));
+		map.put("serviceTimeMicros", summarize(statistics.getServiceTime()));
+		return map;
+	}
+
+	private String toHtml() {
+		StringBuilder html = new StringBuilder();
+		html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n")
+				.append("<title>").append(title).append(' ').append(startedAt).append("</title>\n")
+				.append("<style>body{font-family:sans-serif}table{border-collapse:collapse;margin-bottom:1em}")
+				.append("td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}")
+				.append("td:first-child,th:first-child{text-align:left}</style>\n")
+				.append("</head>\n<body>\n")
+				.append("<h1>").append(title).append("</h1>\n")
+				.append(String.format("<p>Started %s, measured for %.1f s, %.1f operations/s.</p>\n",
+						startedAt, measuredMillis / 1000.0, getThroughput()))
+				.append("<p>Response times are measured from the time each operation was due to start and include ")
+				.append("any queueing in the generator; service times are measured from the time it actually ")
+				.append("started.</p>\n");
+
+		appendTable(html, "Settings", settings);
+		appendTable(html, "Details", details);
+
+		html.append("<table>\n<tr><th>operation</th><th>count</th><th>errors</th><th>ops/s</th>");
+		for (double percentile : PERCENTILES) {
+			html.append("<th>p").append(formatPercentile(percentile)).append(" ms</th>");
+		}
+		html.append("<th>max ms</th><th>service p99 ms</th></tr>\n");
+		for (OperationStatistics statistics : recordedOperations()) {
+			Histogram histogram = statistics.getResponseTime();
+			html.append("<tr><td>").append(statistics.getName()).append("</td>")
+					.append("<td>").append(statistics.getCount()).append("</td>")
+					.append("<td>").append(statistics.getErrors()).append("</td>")
+					.append(String.format("<td>%.1f</td>", throughput(statistics)));
+			for (double percentile : PERCENTILES) {
+				html.append(String.format("<td>%.2f</td>", millis(histogram.getValueAtPercentile(percentile))));
+			}
+			html.append(String.format("<td>%.2f</td><td>%.2f</td></tr>%n", millis(histogram.getMaxValue()),
+					millis(statistics.getServiceTime().getValueAtPercentile(99.0))));
+		}
+		html.append("</table>\n");
+
+		for (OperationStatistics statistics : recordedOperations()) {
+			html.append("<h2>").append(statistics.getName()).append("</h2>\n")
+					.append("<p>Outcomes: ").append(statistics.getOutcomes()).append("</p>\n")
+					.append("<pre>").append(percentileDistribution(statistics.getResponseTime())).append("</pre>\n");
+		}
+
+		html.append("</body>\n</html>\n");
+		return html.toString();
+	}
+
+	private static void appendTable(StringBuilder html, String caption, Map<String, Object> values) {
+		if (values.isEmpty()) {
+			return;
+		}
+		html.append("<table>\n<caption>").append(caption).append("</caption>\n");
+		values.forEach((name, value) ->
+				html.append("<tr><td>").append(name).append("</td><td>").append(value).append("</td></tr>\n"));
+		html.append("</table>\n");
+	}
+
+	private List<OperationStatistics> recordedOperations() {
+		List<OperationStatistics> recorded = new ArrayList<>();
+		for (OperationStatistics statistics : operations) {
+			if (statistics.getCount() > 0) {
+				recorded.add(statistics);
+			}
+		}
+		recorded.add(total);
+		return recorded;
+	}
+
+	private double throughput(OperationStatistics statistics) {
+		return statistics.getCount() * 1000.0 / measuredMillis;
+	}
+
+	private static String percentileDistribution(Histogram histogram) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (PrintStream printStream = new PrintStream(out, true)) {
+			histogram.outputPercentileDistribution(printStream, 1000.0);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static String formatPercentile(double percentile) {
+		return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000.0;
+	}
+}
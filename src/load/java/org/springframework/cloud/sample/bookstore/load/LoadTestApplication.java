@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.sample.bookstore.ServiceBrokerApplication;
+import org.springframework.cloud.sample.bookstore.load.HttpClient.Credentials;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+
+public class LoadTestApplication {
+	public static void main(String[] args) throws Exception {
+		LoadTestOptions options = LoadTestOptions.fromSystemProperties();
+
+		// the JDK client keeps only five idle connections per host by default
+		System.setProperty("http.maxConnections", String.valueOf(options.getThreads()));
+
+		ConfigurableApplicationContext context = options.isEmbedded() ? startBroker(options) : null;
+		try {
+			String baseUrl = context == null ? options.getBaseUrl() :
+					"http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+			Workload workload = new Workload(new HttpClient(baseUrl),
+					new Credentials(options.getAdminUsername(), options.getAdminPassword()));
+			workload.setUp(options.getBookStores());
+
+			LoadReport report;
+			try {
+				report = new LoadGenerator(options, workload).run();
+			} finally {
+				workload.tearDown();
+			}
+
+			Path reportDirectory = report.writeTo(options.getReportDirectory());
+			System.out.print(report.toSummary());
+			System.out.printf("target rate %.1f req/s, achieved %.1f req/s%n", options.getRate(), report.getThroughput());
+			System.out.println("Report written to " + reportDirectory.toAbsolutePath());
+		} finally {
+			if (context != null) {
+				context.close();
+			}
+		}
+	}
+
+	private static ConfigurableApplicationContext startBroker(LoadTestOptions options) {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+
+		SpringApplicationBuilder builder = new SpringApplicationBuilder(ServiceBrokerApplication.class);
+		if (options.getDbLatencyMillis() > 0) {
+			builder.initializers(context -> context.getBeanFactory()
+					.addBeanPostProcessor(new DatabaseLatency(options.getDbLatencyMillis())));
+		}
+		return builder.run("--server.port=0",
+				"--spring.datasource.url=jdbc:hsqldb:mem:load-test",
+				"--spring.jpa.show-sql=false",
+				"--spring.datasource.hikari.maximum-pool-size=" + options.getDbConnections(),
+				"--server.tomcat.max-threads=" + options.getServerThreads(),
+				"--bookstore.virtual-threads=" + options.isVirtualThreads(),
+				"--logging.level.root=WARN");
+	}
+}
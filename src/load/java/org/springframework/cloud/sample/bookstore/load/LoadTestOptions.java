@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import java.util.Properties;
+
+public class LoadTestOptions {
+	private static final String PREFIX = "load.";
+
+	private static final String DEFAULT_MIX =
+			"provision=2,deprovision=2,bind=2,unbind=2,getBookStore=40,getBook=30,addBook=12,deleteBook=10";
+
+	private final String baseUrl;
+	private final double rate;
+	private final long durationSeconds;
+	private final long warmupSeconds;
+	private final int threads;
+	private final int bookStores;
+	private final ArrivalProcess arrivalProcess;
+	private final OperationMix mix;
+	private final long seed;
+	private final String adminUsername;
+	private final String adminPassword;
+	private final String reportDirectory;
+	private final boolean virtualThreads;
+	private final long dbLatencyMillis;
+	private final int dbConnections;
+	private final int serverThreads;
+
+	public LoadTestOptions(Properties properties) {
+		this.baseUrl = properties.getProperty(PREFIX + "baseUrl");
+		this.rate = Double.parseDouble(properties.getProperty(PREFIX + "rate", "200"));
+		this.durationSeconds = Long.parseLong(properties.getProperty(PREFIX + "duration", "60"));
+		this.warmupSeconds = Long.parseLong(properties.getProperty(PREFIX + "warmup", "10"));
+		this.threads = Integer.parseInt(properties.getProperty(PREFIX + "threads", "64"));
+		this.bookStores = Integer.parseInt(properties.getProperty(PREFIX + "bookStores", "4"));
+		this.arrivalProcess = ArrivalProcess.valueOf(
+				properties.getProperty(PREFIX + "arrival", "poisson").toUpperCase());
+		this.mix = OperationMix.parse(properties.getProperty(PREFIX + "mix", DEFAULT_MIX));
+		this.seed = Long.parseLong(properties.getProperty(PREFIX + "seed", "42"));
+		this.adminUsername = properties.getProperty(PREFIX + "adminUsername", "admin");
+		this.adminPassword = properties.getProperty(PREFIX + "adminPassword", "supersecret");
+		this.reportDirectory = properties.getProperty(PREFIX + "reportDirectory", "build/reports/load");
+		this.virtualThreads = Boolean.parseBoolean(properties.getProperty(PREFIX + "virtualThreads", "false"));
+		this.dbLatencyMillis = Long.parseLong(properties.getProperty(PREFIX + "dbLatency", "0"));
+		this.dbConnections = Integer.parseInt(properties.getProperty(PREFIX + "dbConnections", "10"));
+		this.serverThreads = Integer.parseInt(properties.getProperty(PREFIX + "serverThreads", "200"));
+
+		if (rate <= 0) {
+			throw new IllegalArgumentException(PREFIX + "rate must be positive");
+		}
+		if (threads <= 0 || bookStores <= 0) {
+			throw new IllegalArgumentException(PREFIX + "threads and " + PREFIX + "bookStores must be positive");
+		}
+		if (dbLatencyMillis < 0) {
+			throw new IllegalArgumentException(PREFIX + "dbLatency must not be negative");
+		}
+		if (dbConnections <= 0 || serverThreads <= 0) {
+			throw new IllegalArgumentException(PREFIX + "dbConnections and " + PREFIX + "serverThreads must be positive");
+		}
+	}
+
+	public static LoadTestOptions fromSystemProperties() {
+		return new LoadTestOptions(System.getProperties());
+	}
+
+	public String getBaseUrl() {
+		return baseUrl;
+	}
+
+	public boolean isEmbedded() {
+		return baseUrl == null || baseUrl.isEmpty();
+	}
+
+	public double getRate() {
+		return rate;
+	}
+
+	public long getDurationSeconds() {
+		return durationSeconds;
+	}
+
+	public long getWarmupSeconds() {
+		return warmupSeconds;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public int getBookStores() {
+		return bookStores;
+	}
+
+	public ArrivalProcess getArrivalProcess() {
+		return arrivalProcess;
+	}
+
+	public OperationMix getMix() {
+		return mix;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public String getAdminUsername() {
+		return adminUsername;
+	}
+
+	public String getAdminPassword() {
+		return adminPassword;
+	}
+
+	public String getReportDirectory() {
+		return reportDirectory;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public long getDbLatencyMillis() {
+		return dbLatencyMillis;
+	}
+
+	public int getDbConnections() {
+		return dbConnections;
+	}
+
+	public int getServerThreads() {
+		return serverThreads;
+	}
+
+	public enum ArrivalProcess {
+		CONSTANT,
+		POISSON
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+public enum Operation {
+	PROVISION("provision"),
+	DEPROVISION("deprovision"),
+	BIND("bind"),
+	UNBIND("unbind"),
+	GET_BOOK_STORE("getBookStore"),
+	GET_BOOK("getBook"),
+	ADD_BOOK("addBook"),
+	DELETE_BOOK("deleteBook");
+
+	private final String key;
+
+	Operation(String key) {
+		this.key = key;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public static Operation fromKey(String key) {
+		for (Operation operation : values()) {
+			if (operation.key.equals(key)) {
+				return operation;
+			}
+		}
+		throw new IllegalArgumentException("Unknown operation '" + key + "'");
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+public class OperationMix {
+	private final Map<Operation, Integer> weights;
+	private final Operation[] operations;
+	private final int[] cumulativeWeights;
+	private final int totalWeight;
+
+	public OperationMix(Map<Operation, Integer> weights) {
+		this.weights = Collections.unmodifiableMap(new EnumMap<>(weights));
+		this.operations = new Operation[weights.size()];
+		this.cumulativeWeights = new int[weights.size()];
+
+		int total = 0;
+		int i = 0;
+		for (Map.Entry<Operation, Integer> entry : this.weights.entrySet()) {
+			if (entry.getValue() < 0) {
+				throw new IllegalArgumentException("Weight of " + entry.getKey().getKey() + " must not be negative");
+			}
+			total += entry.getValue();
+			operations[i] = entry.getKey();
+			cumulativeWeights[i] = total;
+			i++;
+		}
+
+		if (total == 0) {
+			throw new IllegalArgumentException("At least one operation must have a positive weight");
+		}
+		this.totalWeight = total;
+	}
+
+	public static OperationMix parse(String mix) {
+		Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+		for (String entry : mix.split(",")) {
+			String[] keyAndWeight = entry.trim().split("=");
+			if (keyAndWeight.length != 2) {
+				throw new IllegalArgumentException("Expected <operation>=<weight> but got '" + entry + "'");
+			}
+			weights.put(Operation.fromKey(keyAndWeight[0].trim()), Integer.parseInt(keyAndWeight[1].trim()));
+		}
+		return new OperationMix(weights);
+	}
+
+	public Operation next(Random random) {
+		int value = random.nextInt(totalWeight);
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			if (value < cumulativeWeights[i]) {
+				return operations[i];
+			}
+		}
+		throw new IllegalStateException("Weights are inconsistent");
+	}
+
+	public Map<Operation, Integer> getWeights() {
+		return weights;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder mix = new StringBuilder();
+		for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+			if (mix.length() > 0) {
+				mix.append(',');
+			}
+			mix.append(entry.getKey().getKey()).append('=').append(entry.getValue());
+		}
+		return mix.toString();
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class OperationStatistics {
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+	private static final int SIGNIFICANT_DIGITS = 3;
+	private static final String TIMEOUT = "timeout";
+
+	private final String name;
+
+	// measured from the time the request was due to be sent, so that queueing behind slow requests is not hidden
+	private final Histogram responseTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+	// measured from the time the request was actually sent
+	private final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+	private final ConcurrentMap<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+	private final LongAdder errors = new LongAdder();
+
+	public OperationStatistics(String name) {
+		this.name = name;
+	}
+
+	public void record(long responseTimeNanos, long serviceTimeNanos, String outcome, boolean successful) {
+		responseTime.recordValue(toMicros(responseTimeNanos));
+		serviceTime.recordValue(toMicros(serviceTimeNanos));
+		outcomes.computeIfAbsent(outcome, o -> new LongAdder()).increment();
+		if (!successful) {
+			errors.increment();
+		}
+	}
+
+	// a request that was still queued or in flight when the run gave up on it, so that it has no service time
+	public void recordTimeout(long responseTimeNanos) {
+		responseTime.recordValue(toMicros(responseTimeNanos));
+		outcomes.computeIfAbsent(TIMEOUT, o -> new LongAdder()).increment();
+		errors.increment();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getCount() {
+		return responseTime.getTotalCount();
+	}
+
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	public Histogram getResponseTime() {
+		return responseTime;
+	}
+
+	public Histogram getServiceTime() {
+		return serviceTime;
+	}
+
+	public SortedMap<String, Long> getOutcomes() {
+		SortedMap<String, Long> counts = new TreeMap<>();
+		for (Map.Entry<String, LongAdder> entry : outcomes.entrySet()) {
+			counts.put(entry.getKey(), entry.getValue().sum());
+		}
+		return counts;
+	}
+
+	private static long toMicros(long nanos) {
+		return Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0), HIGHEST_TRACKABLE_MICROS);
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class OrphanCheck {
+	private static final Map<String, String> QUERIES = new LinkedHashMap<>();
+
+	static {
+		QUERIES.put("users", "select count(*) from users u where u.username <> 'admin' " +
+				"and not exists (select 1 from service_bindings b where b.binding_id = u.username)");
+		QUERIES.put("user_authorities", "select count(*) from user_authorities a " +
+				"where not exists (select 1 from users u where u.id = a.user_id)");
+		QUERIES.put("bookstores", "select count(*) from bookstores s " +
+				"where not exists (select 1 from service_instances i where i.instance_id = s.id)");
+		QUERIES.put("books", "select count(*) from books b " +
+				"where not exists (select 1 from service_instances i where i.instance_id = b.bookstore_id)");
+		QUERIES.put("bookstore_statistics", "select count(*) from bookstore_statistics s " +
+				"where not exists (select 1 from bookstores b where b.id = s.store_id)");
+		QUERIES.put("bookstore_change_sequences", "select count(*) from bookstore_change_sequences s " +
+				"where not exists (select 1 from bookstores b where b.id = s.store_id)");
+		QUERIES.put("bookstore_changes", "select count(*) from bookstore_changes c " +
+				"where not exists (select 1 from bookstores b where b.id = c.store_id)");
+		QUERIES.put("service_instance_parameters", "select count(*) from service_instance_parameters p " +
+				"where not exists (select 1 from service_instances i where i.instance_id = p.instance_id)");
+		QUERIES.put("service_binding_parameters", "select count(*) from service_binding_parameters p " +
+				"where not exists (select 1 from service_bindings b where b.binding_id = p.binding_id)");
+		QUERIES.put("service_binding_credentials", "select count(*) from service_binding_credentials c " +
+				"where not exists (select 1 from service_bindings b where b.binding_id = c.binding_id)");
+	}
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public OrphanCheck(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	public Map<String, Long> countOrphans() {
+		Map<String, Long> orphans = new LinkedHashMap<>();
+		QUERIES.forEach((table, query) -> orphans.put(table, jdbcTemplate.queryForObject(query, Long.class)));
+		return orphans;
+	}
+
+	public Map<String, Long> countRemaining() {
+		Map<String, Long> remaining = new LinkedHashMap<>();
+		remaining.put("service_instances", count("service_instances"));
+		remaining.put("service_bindings", count("service_bindings"));
+		remaining.put("bookstores", count("bookstores"));
+		remaining.put("books", count("books"));
+		remaining.put("users", jdbcTemplate.queryForObject(
+				"select count(*) from users where username <> 'admin'", Long.class));
+		return remaining;
+	}
+
+	private long count(String table) {
+		return jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+	}
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.cloud.sample.bookstore.load.HttpClient.Credentials;
+import org.springframework.cloud.sample.bookstore.load.HttpClient.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class Workload {
+	private final HttpClient client;
+	private final Credentials adminCredentials;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	// bookstore traffic only targets the instances created in setUp so it never races with deprovisioning;
+	// deprovision and unbind consume what provision and bind created, falling back to them when there is nothing left
+	private final List<BookStore> bookStores = new ArrayList<>();
+	private final Queue<String> provisionedInstances = new ConcurrentLinkedQueue<>();
+	private final Queue<Binding> bindings = new ConcurrentLinkedQueue<>();
+
+	private String serviceId;
+	private String planId;
+
+	public Workload(HttpClient client, Credentials adminCredentials) {
+		this.client = client;
+		this.adminCredentials = adminCredentials;
+	}
+
+	public void setUp(int bookStoreCount) throws IOException {
+		readCatalog();
+
+		for (int i = 0; i < bookStoreCount; i++) {
+			String instanceId = UUID.randomUUID().toString();
+			expectSuccess(provision(instanceId), "provision " + instanceId);
+
+			String bindingId = UUID.randomUUID().toString();
+			Response response = bind(instanceId, bindingId);
+			expectSuccess(response, "bind " + instanceId);
+
+			JsonNode credentials = objectMapper.readTree(response.getBody()).path("credentials");
+			bookStores.add(new BookStore(instanceId, bindingId, new Credentials(
+					credentials.path("username").asText(), credentials.path("password").asText())));
+		}
+	}
+
+	public void tearDown() {
+		try {
+			Binding binding;
+			while ((binding = bindings.poll()) != null) {
+				unbind(binding);
+			}
+			String instanceId;
+			while ((instanceId = provisionedInstances.poll()) != null) {
+				deprovision(instanceId);
+			}
+			for (BookStore bookStore : bookStores) {
+				unbind(new Binding(bookStore.instanceId, bookStore.bindingId));
+				deprovision(bookStore.instanceId);
+			}
+		} catch (IOException e) {
+			// the broker is about to be shut down; leftovers only matter when targeting a remote broker
+			System.err.println("Unable to clean up load test data: " + e);
+		}
+	}
+
+	public Outcome execute(Operation operation) {
+		try {
+			switch (operation) {
+				case PROVISION:
+					return provision();
+				case DEPROVISION:
+					return deprovision();
+				case BIND:
+					return bind();
+				case UNBIND:
+					return unbind();
+				case GET_BOOK_STORE:
+					return getBookStore();
+				case GET_BOOK:
+					return getBook();
+				case ADD_BOOK:
+					return addBook();
+				case DELETE_BOOK:
+					return deleteBook();
+				default:
+					throw new IllegalArgumentException("Unsupported operation " + operation);
+			}
+		} catch (IOException e) {
+			return Outcome.failed(operation);
+		}
+	}
+
+	private Outcome provision() throws IOException {
+		String instanceId = UUID.randomUUID().toString();
+		Response response = provision(instanceId);
+		if (response.isSuccessful()) {
+			provisionedInstances.add(instanceId);
+		}
+		return new Outcome(Operation.PROVISION, response);
+	}
+
+	private Outcome deprovision() throws IOException {
+		String instanceId = provisionedInstances.poll();
+		if (instanceId == null) {
+			return provision();
+		}
+		return new Outcome(Operation.DEPROVISION, deprovision(instanceId));
+	}
+
+	private Outcome bind() throws IOException {
+		Binding binding = new Binding(randomBookStore().instanceId, UUID.randomUUID().toString());
+		Response response = bind(binding.instanceId, binding.bindingId);
+		if (response.isSuccessful()) {
+			bindings.add(binding);
+		}
+		return new Outcome(Operation.BIND, response);
+	}
+
+	private Outcome unbind() throws IOException {
+		Binding binding = bindings.poll();
+		if (binding == null) {
+			return bind();
+		}
+		return new Outcome(Operation.UNBIND, unbind(binding));
+	}
+
+	private Outcome getBookStore() throws IOException {
+		BookStore bookStore = randomBookStore();
+		return new Outcome(Operation.GET_BOOK_STORE,
+				client.get("/bookstores/" + bookStore.instanceId, bookStore.credentials));
+	}
+
+	private Outcome getBook() throws IOException {
+		BookStore bookStore = randomBookStore();
+		String bookId = bookStore.bookIds.poll();
+		if (bookId == null) {
+			return addBook(bookStore);
+		}
+		try {
+			return new Outcome(Operation.GET_BOOK,
+					client.get(bookPath(bookStore, bookId), bookStore.credentials));
+		} finally {
+			bookStore.bookIds.add(bookId);
+		}
+	}
+
+	private Outcome addBook() throws IOException {
+		return addBook(randomBookStore());
+	}
+
+	private Outcome addBook(BookStore bookStore) throws IOException {
+		Response response = client.put("/bookstores/" + bookStore.instanceId + "/books",
+				objectMapper.writeValueAsString(randomBook()), bookStore.credentials);
+		if (response.isSuccessful()) {
+			bookStore.bookIds.add(bookId(objectMapper.readTree(response.getBody())));
+		}
+		return new Outcome(Operation.ADD_BOOK, response);
+	}
+
+	private Outcome deleteBook() throws IOException {
+		BookStore bookStore = randomBookStore();
+		String bookId = bookStore.bookIds.poll();
+		if (bookId == null) {
+			return addBook(bookStore);
+		}
+		return new Outcome(Operation.DELETE_BOOK,
+				client.delete(bookPath(bookStore, bookId), bookStore.credentials));
+	}
+
+	private void readCatalog() throws IOException {
+		Response response = client.get("/v2/catalog", adminCredentials);
+		expectSuccess(response, "read catalog");
+
+		JsonNode service = objectMapper.readTree(response.getBody()).path("services").path(0);
+		serviceId = service.path("id").asText();
+		planId = service.path("plans").path(0).path("id").asText();
+	}
+
+	private Response provision(String instanceId) throws IOException {
+		Map<String, Object> body = new HashMap<>();
+		body.put("service_id", serviceId);
+		body.put("plan_id", planId);
+		body.put("organization_guid", "load-test-org");
+		body.put("space_guid", "load-test-space");
+		return client.put(instancePath(instanceId), objectMapper.writeValueAsString(body), adminCredentials);
+	}
+
+	private Response deprovision(String instanceId) throws IOException {
+		return client.delete(instancePath(instanceId) + planQuery(), adminCredentials);
+	}
+
+	private Response bind(String instanceId, String bindingId) throws IOException {
+		Map<String, Object> body = new HashMap<>();
+		body.put("service_id", serviceId);
+		body.put("plan_id", planId);
+		body.put("bind_resource", Collections.singletonMap("app_guid", "load-test-app"));
+		return client.put(bindingPath(instanceId, bindingId), objectMapper.writeValueAsString(body), adminCredentials);
+	}
+
+	private Response unbind(Binding binding) throws IOException {
+		return client.delete(bindingPath(binding.instanceId, binding.bindingId) + planQuery(), adminCredentials);
+	}
+
+	private BookStore randomBookStore() {
+		return bookStores.get(ThreadLocalRandom.current().nextInt(bookStores.size()));
+	}
+
+	private String planQuery() {
+		return "?service_id=" + serviceId + "&plan_id=" + planId;
+	}
+
+	private static String instancePath(String instanceId) {
+		return "/v2/service_instances/" + instanceId;
+	}
+
+	private static String bindingPath(String instanceId, String bindingId) {
+		return instancePath(instanceId) + "/service_bindings/" + bindingId;
+	}
+
+	private static String bookPath(BookStore bookStore, String bookId) {
+		return "/bookstores/" + bookStore.instanceId + "/books/" + bookId;
+	}
+
+	private static String bookId(JsonNode bookResource) {
+		String selfHref = bookResource.path("_links").path("self").path("href").asText(null);
+		if (selfHref == null) {
+			for (JsonNode link : bookResource.path("links")) {
+				if ("self".equals(link.path("rel").asText())) {
+					selfHref = link.path("href").asText();
+				}
+			}
+		}
+		if (selfHref == null) {
+			throw new IllegalStateException("Book resource has no self link: " + bookResource);
+		}
+		return selfHref.substring(selfHref.lastIndexOf('/') + 1);
+	}
+
+	private static Map<String, String> randomBook() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		Map<String, String> book = new HashMap<>();
+		book.put("isbn", randomIsbn(random));
+		book.put("title", "Load Test Title " + random.nextInt(100_000));
+		book.put("author", "Load Test Author " + random.nextInt(1_000));
+		return book;
+	}
+
+	private static String randomIsbn(ThreadLocalRandom random) {
+		StringBuilder digits = new StringBuilder("978");
+		for (int i = 0; i < 9; i++) {
+			digits.append(random.nextInt(10));
+		}
+
+		int sum = 0;
+		for (int i = 0; i < digits.length(); i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		digits.append((10 - sum % 10) % 10);
+
+		return digits.insert(3, '-').toString();
+	}
+
+	private static void expectSuccess(Response response, String action) {
+		if (!response.isSuccessful()) {
+			throw new IllegalStateException("Unable to " + action + ": HTTP " + response.getStatus() +
+					" " + response.getBody());
+		}
+	}
+
+	public static class Outcome {
+		private static final int NO_RESPONSE = -1;
+
+		private final Operation operation;
+		private final int status;
+
+		Outcome(Operation operation, Response response) {
+			this(operation, response.getStatus());
+		}
+
+		private Outcome(Operation operation, int status) {
+			this.operation = operation;
+			this.status = status;
+		}
+
+		static Outcome failed(Operation operation) {
+			return new Outcome(operation, NO_RESPONSE);
+		}
+
+		public Operation getOperation() {
+			return operation;
+		}
+
+		public int getStatus() {
+			return status;
+		}
+
+		public boolean isSuccessful() {
+			return status >= 200 && status < 300;
+		}
+	}
+
+	private static class BookStore {
+		private final String instanceId;
+		private final String bindingId;
+		private final Credentials credentials;
+		private final Queue<String> bookIds = new ConcurrentLinkedQueue<>();
+
+		BookStore(String instanceId, String bindingId, Credentials credentials) {
+			this.instanceId = instanceId;
+			this.bindingId = bindingId;
+			this.credentials = credentials;
+		}
+	}
+
+	private static class Binding {
+		private final String instanceId;
+		private final String bindingId;
+
+		Binding(String instanceId, String bindingId) {
+			this.instanceId = instanceId;
+			this.bindingId = bindingId;
+		}
+	}
+}
@@ -20,6 +20,8 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnCloudPlatfo
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.cloud.CloudPlatform;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
 import org.springframework.cloud.sample.bookstore.web.model.ApplicationInformation;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,6 +29,7 @@ import org.springframework.core.env.Environment;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @Configuration
+@EnableConfigurationProperties(BookStoreProperties.class)
 public class ApplicationConfiguration {
 	@Bean
 	@ConditionalOnCloudPlatform(CloudPlatform.CLOUD_FOUNDRY)
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "bookstore")
+public class BookStoreProperties {
+	private DuplicateIsbns duplicateIsbns = DuplicateIsbns.ALLOW;
+
+	private IdGeneration idGeneration = IdGeneration.TIME_ORDERED;
+
+	private boolean virtualThreads = false;
+
+	private final Catalog catalog = new Catalog();
+
+	private final Search search = new Search();
+
+	private final Changes changes = new Changes();
+
+	private final Events events = new Events();
+
+	private final ResponseCache responseCache = new ResponseCache();
+
+	private final Batch batch = new Batch();
+
+	private final IdFilter idFilter = new IdFilter();
+
+	private final ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+	public DuplicateIsbns getDuplicateIsbns() {
+		return duplicateIsbns;
+	}
+
+	public void setDuplicateIsbns(DuplicateIsbns duplicateIsbns) {
+		this.duplicateIsbns = duplicateIsbns;
+	}
+
+	public IdGeneration getIdGeneration() {
+		return idGeneration;
+	}
+
+	public void setIdGeneration(IdGeneration idGeneration) {
+		this.idGeneration = idGeneration;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	public Catalog getCatalog() {
+		return catalog;
+	}
+
+	public static class Catalog {
+		private int cacheSize = 10_000;
+
+		public int getCacheSize() {
+			return cacheSize;
+		}
+
+		public void setCacheSize(int cacheSize) {
+			this.cacheSize = cacheSize;
+		}
+	}
+
+	public Search getSearch() {
+		return search;
+	}
+
+	public static class Search {
+		private int maxIndexedStores = 100;
+
+		public int getMaxIndexedStores() {
+			return maxIndexedStores;
+		}
+
+		public void setMaxIndexedStores(int maxIndexedStores) {
+			this.maxIndexedStores = maxIndexedStores;
+		}
+	}
+
+	public Changes getChanges() {
+		return changes;
+	}
+
+	public static class Changes {
+		private int retainedPerStore = 1000;
+
+		public int getRetainedPerStore() {
+			return retainedPerStore;
+		}
+
+		public void setRetainedPerStore(int retainedPerStore) {
+			this.retainedPerStore = retainedPerStore;
+		}
+	}
+
+	public Events getEvents() {
+		return events;
+	}
+
+	public static class Events {
+		private int bufferSize = 256;
+
+		// platform threads writing to subscribers at once; a stalled write holds its thread until it times out
+		private int deliveryThreads = 64;
+
+		// deliveries waiting for a thread, beyond which subscribers are turned away or disconnected
+		private int deliveryQueueSize = 1024;
+
+		private Duration writeTimeout = Duration.ofSeconds(10);
+
+		private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+		private Duration timeout = Duration.ofMinutes(30);
+
+		public int getBufferSize() {
+			return bufferSize;
+		}
+
+		public void setBufferSize(int bufferSize) {
+			this.bufferSize = bufferSize;
+		}
+
+		public int getDeliveryThreads() {
+			return deliveryThreads;
+		}
+
+		public void setDeliveryThreads(int deliveryThreads) {
+			this.deliveryThreads = deliveryThreads;
+		}
+
+		public int getDeliveryQueueSize() {
+			return deliveryQueueSize;
+		}
+
+		public void setDeliveryQueueSize(int deliveryQueueSize) {
+			this.deliveryQueueSize = deliveryQueueSize;
+		}
+
+		public Duration getWriteTimeout() {
+			return writeTimeout;
+		}
+
+		public void setWriteTimeout(Duration writeTimeout) {
+			this.writeTimeout = writeTimeout;
+		}
+
+		public Duration getHeartbeatInterval() {
+			return heartbeatInterval;
+		}
+
+		public void setHeartbeatInterval(Duration heartbeatInterval) {
+			this.heartbeatInterval = heartbeatInterval;
+		}
+
+		public Duration getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+	}
+
+	public ResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	public static class ResponseCache {
+		private int maxStores = 100;
+
+		private int maxVariantsPerStore = 4;
+
+		public int getMaxStores() {
+			return maxStores;
+		}
+
+		public void setMaxStores(int maxStores) {
+			this.maxStores = maxStores;
+		}
+
+		public int getMaxVariantsPerStore() {
+			return maxVariantsPerStore;
+		}
+
+		public void setMaxVariantsPerStore(int maxVariantsPerStore) {
+			this.maxVariantsPerStore = maxVariantsPerStore;
+		}
+	}
+
+	public Batch getBatch() {
+		return batch;
+	}
+
+	public static class Batch {
+		private int maxOperations = 1000;
+
+		public int getMaxOperations() {
+			return maxOperations;
+		}
+
+		public void setMaxOperations(int maxOperations) {
+			this.maxOperations = maxOperations;
+		}
+	}
+
+	public IdFilter getIdFilter() {
+		return idFilter;
+	}
+
+	public static class IdFilter {
+		private boolean enabled = true;
+
+		private int expectedStores = 10_000;
+
+		private double falsePositiveRate = 0.01;
+
+		// set when other instances create stores in the same database, which this filter does not hear of; a miss is
+		// then checked in the database
+		private boolean sharedDatabase = false;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getExpectedStores() {
+			return expectedStores;
+		}
+
+		public void setExpectedStores(int expectedStores) {
+			this.expectedStores = expectedStores;
+		}
+
+		public double getFalsePositiveRate() {
+			return falsePositiveRate;
+		}
+
+		public void setFalsePositiveRate(double falsePositiveRate) {
+			this.falsePositiveRate = falsePositiveRate;
+		}
+
+		public boolean isSharedDatabase() {
+			return sharedDatabase;
+		}
+
+		public void setSharedDatabase(boolean sharedDatabase) {
+			this.sharedDatabase = sharedDatabase;
+		}
+	}
+
+	public ConcurrencyLimit getConcurrencyLimit() {
+		return concurrencyLimit;
+	}
+
+	public static class ConcurrencyLimit {
+		private boolean enabled = true;
+
+		private int initialLimit = 20;
+
+		private int minLimit = 4;
+
+		private int maxLimit = 200;
+
+		// how far latency may rise above its long-term average before the limit is lowered
+		private double tolerance = 1.5;
+
+		private Duration retryAfter = Duration.ofSeconds(1);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getInitialLimit() {
+			return initialLimit;
+		}
+
+		public void setInitialLimit(int initialLimit) {
+			this.initialLimit = initialLimit;
+		}
+
+		public int getMinLimit() {
+			return minLimit;
+		}
+
+		public void setMinLimit(int minLimit) {
+			this.minLimit = minLimit;
+		}
+
+		public int getMaxLimit() {
+			return maxLimit;
+		}
+
+		public void setMaxLimit(int maxLimit) {
+			this.maxLimit = maxLimit;
+		}
+
+		public double getTolerance() {
+			return tolerance;
+		}
+
+		public void setTolerance(double tolerance) {
+			this.tolerance = tolerance;
+		}
+
+		public Duration getRetryAfter() {
+			return retryAfter;
+		}
+
+		public void setRetryAfter(Duration retryAfter) {
+			this.retryAfter = retryAfter;
+		}
+	}
+
+	public enum DuplicateIsbns {
+		ALLOW,
+		REJECT,
+		MERGE
+	}
+
+	public enum IdGeneration {
+		TIME_ORDERED,
+		RANDOM
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.config;
+
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties.IdGeneration;
+import org.springframework.cloud.sample.bookstore.web.service.TimeOrderedIdGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+
+@Configuration
+public class IdGeneratorConfiguration {
+	@Bean
+	public IdGenerator idGenerator(BookStoreProperties properties) {
+		if (properties.getIdGeneration() == IdGeneration.RANDOM) {
+			return new JdkIdGenerator();
+		}
+		return new TimeOrderedIdGenerator();
+	}
+}
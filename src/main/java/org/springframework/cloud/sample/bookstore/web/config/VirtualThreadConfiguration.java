@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.config;
+
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// requests waiting on the database hold a cheap virtual thread instead of one of Tomcat's pooled threads; concurrency
+// is then bounded by Tomcat's connection limit and the connection pool, not by server.tomcat.max-threads
+@Configuration
+@ConditionalOnProperty(prefix = "bookstore", name = "virtual-threads", havingValue = "true")
+public class VirtualThreadConfiguration {
+	@Bean
+	public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer() {
+		if (!VirtualThreads.isAvailable()) {
+			throw new IllegalStateException("bookstore.virtual-threads needs Java 21 or later, this is Java " +
+					System.getProperty("java.version") + ".");
+		}
+		return factory -> factory.addConnectorCustomizers(connector -> {
+			if (connector.getProtocolHandler() instanceof AbstractProtocol) {
+				((AbstractProtocol<?>) connector.getProtocolHandler())
+						.setExecutor(VirtualThreads.newThreadPerTaskExecutor("http-virtual-"));
+			}
+		});
+	}
+}
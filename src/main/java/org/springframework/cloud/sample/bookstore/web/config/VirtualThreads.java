@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// virtual threads need Java 21; they are looked up reflectively, so that the broker still builds for and runs on
+// older JDKs as long as they are not asked for
+public final class VirtualThreads {
+	private static final Method OF_VIRTUAL = method(Thread.class, "ofVirtual");
+	private static final Method NAME = method(type("java.lang.Thread$Builder"), "name", String.class, long.class);
+	private static final Method FACTORY = method(type("java.lang.Thread$Builder"), "factory");
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR =
+			method(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+	private VirtualThreads() {
+	}
+
+	public static boolean isAvailable() {
+		return OF_VIRTUAL != null && NAME != null && FACTORY != null && NEW_THREAD_PER_TASK_EXECUTOR != null;
+	}
+
+	// starts a new virtual thread for every task, named with the prefix and a counter
+	public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+		if (!isAvailable()) {
+			throw new IllegalStateException("Virtual threads need Java 21 or later, this is Java " +
+					System.getProperty("java.version") + ".");
+		}
+		try {
+			Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+			ThreadFactory threadFactory = (ThreadFactory) FACTORY.invoke(builder);
+			return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Virtual threads could not be created.", e);
+		}
+	}
+
+	private static Class<?> type(String name) {
+		try {
+			return Class.forName(name);
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+	}
+
+	private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+		try {
+			return type == null ? null : type.getMethod(name, parameterTypes);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+}
@@ -16,12 +16,18 @@
 
 package org.springframework.cloud.sample.bookstore.web.controller;
 
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreModifiedException;
+import org.springframework.cloud.sample.bookstore.web.service.ChangesCompactedException;
+import org.springframework.cloud.sample.bookstore.web.service.DuplicateIsbnException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class BaseController {
 	@ExceptionHandler(IllegalArgumentException.class)
@@ -29,4 +35,77 @@ public class BaseController {
 		Map<String, String> responseBody = Collections.singletonMap("errorMessage", e.getMessage());
 		return new ResponseEntity<>(responseBody, HttpStatus.BAD_REQUEST);
 	}
+
+	@ExceptionHandler(DuplicateIsbnException.class)
+	public ResponseEntity<Map<String, String>> duplicateIsbn(DuplicateIsbnException e) {
+		Map<String, String> responseBody = Collections.singletonMap("errorMessage", e.getMessage());
+		return new ResponseEntity<>(responseBody, HttpStatus.CONFLICT);
+	}
+
+	@ExceptionHandler(ChangesCompactedException.class)
+	public ResponseEntity<Map<String, String>> changesCompacted(ChangesCompactedException e) {
+		Map<String, String> responseBody = Collections.singletonMap("errorMessage", e.getMessage());
+		return new ResponseEntity<>(responseBody, HttpStatus.GONE);
+	}
+
+	@ExceptionHandler(BookStoreModifiedException.class)
+	public ResponseEntity<Map<String, String>> bookStoreModified(BookStoreModifiedException e) {
+		Map<String, String> responseBody = Collections.singletonMap("errorMessage", e.getMessage());
+		return new ResponseEntity<>(responseBody, HttpStatus.PRECONDITION_FAILED);
+	}
+
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<Map<String, String>> concurrentModification(OptimisticLockingFailureException e) {
+		Map<String, String> responseBody = Collections.singletonMap("errorMessage",
+				"The book store was modified concurrently, please try again.");
+		return new ResponseEntity<>(responseBody, HttpStatus.CONFLICT);
+	}
+
+	// book store versions are exposed as weak entity tags, as each version is served in several formats, gzipped or
+	// not, which are not byte for byte the same
+	protected String eTag(long version) {
+		return "W/" + opaqueTag(version);
+	}
+
+	// If-None-Match uses the weak comparison
+	protected boolean noneMatch(String ifNoneMatch, long version) {
+		if (ifNoneMatch == null) {
+			return true;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.equals("*") || stripWeakPrefix(tag).equals(opaqueTag(version))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// If-Match compares the versions the tags stand for, so it uses the weak comparison as well; null means the write
+	// is unconditional
+	protected Set<Long> expectedVersions(String ifMatch) {
+		if (ifMatch == null || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		Set<Long> versions = new HashSet<>();
+		for (String tag : ifMatch.split(",")) {
+			tag = stripWeakPrefix(tag.trim());
+			if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+				try {
+					versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+				} catch (NumberFormatException e) {
+					// not one of ours, so it can never match
+				}
+			}
+		}
+		return versions;
+	}
+
+	private String opaqueTag(long version) {
+		return "\"" + version + "\"";
+	}
+
+	private String stripWeakPrefix(String tag) {
+		return tag.startsWith("W/") ? tag.substring(2) : tag;
+	}
 }
@@ -17,8 +17,12 @@
 package org.springframework.cloud.sample.bookstore.web.controller;
 
 import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookOperation;
+import org.springframework.cloud.sample.bookstore.web.resource.BookOperationResultResource;
+import org.springframework.cloud.sample.bookstore.web.resource.BookOperationResultResourceAssembler;
 import org.springframework.cloud.sample.bookstore.web.resource.BookResource;
 import org.springframework.cloud.sample.bookstore.web.resource.BookResourceAssembler;
+import org.springframework.cloud.sample.bookstore.web.service.BookOperationResult;
 import org.springframework.cloud.sample.bookstore.web.service.BookStoreService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -26,11 +30,16 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/bookstores/{bookStoreId}/books")
 public class BookController extends BaseController {
@@ -42,25 +51,88 @@ public class BookController extends BaseController {
 
 	@PutMapping
 	@PreAuthorize("hasRole('ROLE_FULL_ACCESS') and hasPermission(#bookStoreId, '')")
-	public ResponseEntity<BookResource> addBook(@PathVariable String bookStoreId, @RequestBody Book book) {
-		Book savedBook = bookStoreService.putBookInStore(bookStoreId, book);
+	public ResponseEntity<BookResource> addBook(@PathVariable String bookStoreId, @RequestBody Book book,
+												@RequestHeader(value = "If-Match", required = false) String ifMatch) {
+		Book savedBook = bookStoreService.putBookInStore(bookStoreId, book, expectedVersions(ifMatch));
 		return createResponse(bookStoreId, savedBook, HttpStatus.CREATED);
 	}
 
+	@PostMapping("/batch")
+	@PreAuthorize("hasAnyRole('ROLE_FULL_ACCESS','ROLE_READ_ONLY') and hasPermission(#bookStoreId, '') and " +
+			"(hasRole('ROLE_FULL_ACCESS') or " +
+			"T(org.springframework.cloud.sample.bookstore.web.model.BookOperation).areReadOnly(#operations))")
+	public ResponseEntity<List<BookOperationResultResource>> applyOperations(
+			@PathVariable String bookStoreId, @RequestBody List<BookOperation> operations,
+			@RequestHeader(value = "If-Match", required = false) String ifMatch) {
+		List<BookOperationResult> results =
+				bookStoreService.applyBookOperations(bookStoreId, operations, expectedVersions(ifMatch));
+		return createResponse(bookStoreId, results);
+	}
+
 	@GetMapping("/{bookId}")
 	@PreAuthorize("hasAnyRole('ROLE_FULL_ACCESS','ROLE_READ_ONLY') and hasPermission(#bookStoreId, '')")
-	public ResponseEntity<BookResource> getBook(@PathVariable String bookStoreId, @PathVariable String bookId) {
+	public ResponseEntity<BookResource> getBook(@PathVariable String bookStoreId, @PathVariable String bookId,
+												@RequestHeader(value = "If-None-Match", required = false)
+														String ifNoneMatch) {
+		// books carry the version of their store, which changes whenever any of its books does
+		long version = bookStoreService.getVersion(bookStoreId);
+		if (!noneMatch(ifNoneMatch, version)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag(version)).build();
+		}
 		Book book = bookStoreService.getBookFromStore(bookStoreId, bookId);
-		return createResponse(bookStoreId, book, HttpStatus.OK);
+		BookResource bookResource = new BookResourceAssembler().toResource(book, bookStoreId);
+		return ResponseEntity.ok().eTag(eTag(version)).body(bookResource);
+	}
+
+	@GetMapping(params = "isbn")
+	@PreAuthorize("hasAnyRole('ROLE_FULL_ACCESS','ROLE_READ_ONLY') and hasPermission(#bookStoreId, '')")
+	public ResponseEntity<List<BookResource>> getBooksByIsbn(@PathVariable String bookStoreId,
+															 @RequestParam String isbn) {
+		List<Book> books = bookStoreService.getBooksByIsbn(bookStoreId, isbn);
+		List<BookResource> bookResources = new BookResourceAssembler().toResources(books, bookStoreId);
+		return new ResponseEntity<>(bookResources, HttpStatus.OK);
+	}
+
+	@GetMapping(params = "ids")
+	@PreAuthorize("hasAnyRole('ROLE_FULL_ACCESS','ROLE_READ_ONLY') and hasPermission(#bookStoreId, '')")
+	public ResponseEntity<List<BookOperationResultResource>> getBooksByIds(@PathVariable String bookStoreId,
+																		   @RequestParam List<String> ids) {
+		return createResponse(bookStoreId, bookStoreService.getBooksFromStore(bookStoreId, ids));
+	}
+
+	// for ID lists too long for a URL
+	@PostMapping("/lookup")
+	@PreAuthorize("hasAnyRole('ROLE_FULL_ACCESS','ROLE_READ_ONLY') and hasPermission(#bookStoreId, '')")
+	public ResponseEntity<List<BookOperationResultResource>> lookUpBooks(@PathVariable String bookStoreId,
+																		 @RequestBody List<String> ids) {
+		return createResponse(bookStoreId, bookStoreService.getBooksFromStore(bookStoreId, ids));
+	}
+
+	@GetMapping("/search")
+	@PreAuthorize("hasAnyRole('ROLE_FULL_ACCESS','ROLE_READ_ONLY') and hasPermission(#bookStoreId, '')")
+	public ResponseEntity<List<BookResource>> searchBooks(@PathVariable String bookStoreId,
+														  @RequestParam("q") String query,
+														  @RequestParam(defaultValue = "20") int limit) {
+		List<Book> books = bookStoreService.searchBooks(bookStoreId, query, limit);
+		List<BookResource> bookResources = new BookResourceAssembler().toResources(books, bookStoreId);
+		return new ResponseEntity<>(bookResources, HttpStatus.OK);
 	}
 
 	@DeleteMapping("/{bookId}")
 	@PreAuthorize("hasRole('ROLE_FULL_ACCESS') and hasPermission(#bookStoreId, '')")
-	public ResponseEntity<BookResource> deleteBook(@PathVariable String bookStoreId, @PathVariable String bookId) {
-		Book book = bookStoreService.removeBookFromStore(bookStoreId, bookId);
+	public ResponseEntity<BookResource> deleteBook(@PathVariable String bookStoreId, @PathVariable String bookId,
+												   @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+		Book book = bookStoreService.removeBookFromStore(bookStoreId, bookId, expectedVersions(ifMatch));
 		return createResponse(bookStoreId, book, HttpStatus.OK);
 	}
 
+	private ResponseEntity<List<BookOperationResultResource>> createResponse(String bookStoreId,
+																			 List<BookOperationResult> results) {
+		List<BookOperationResultResource> resources =
+				new BookOperationResultResourceAssembler().toResources(results, bookStoreId);
+		return new ResponseEntity<>(resources, HttpStatus.OK);
+	}
+
 	private ResponseEntity<BookResource> createResponse(String bookStoreId, Book book, HttpStatus httpStatus) {
 		BookResource bookResource = new BookResourceAssembler().toResource(book, bookStoreId);
 		return new ResponseEntity<>(bookResource, httpStatus);
@@ -17,34 +17,102 @@
 package org.springframework.cloud.sample.bookstore.web.controller;
 
 import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreAuthorCount;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreStatistics;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreChangesResource;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreChangesResourceAssembler;
 import org.springframework.cloud.sample.bookstore.web.resource.BookStoreResource;
 import org.springframework.cloud.sample.bookstore.web.resource.BookStoreResourceAssembler;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreResponseCache;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreResponseCache.CachedResponse;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreStatisticsResource;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreStatisticsResourceAssembler;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreChangeService.BookStoreChanges;
 import org.springframework.cloud.sample.bookstore.web.service.BookStoreService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/bookstores")
 public class BookStoreController extends BaseController {
 	private final BookStoreService bookStoreService;
+	private final BookStoreResponseCache responseCache;
 
-	public BookStoreController(BookStoreService bookStoreService) {
+	public BookStoreController(BookStoreService bookStoreService, BookStoreResponseCache responseCache) {
 		this.bookStoreService = bookStoreService;
+		this.responseCache = responseCache;
 	}
 
 	@GetMapping("/{bookStoreId}")
 	@PreAuthorize("hasAnyRole('ROLE_FULL_ACCESS','ROLE_READ_ONLY') and hasPermission(#bookStoreId, '')")
-	public ResponseEntity<BookStoreResource> getBooks(@PathVariable String bookStoreId) {
-		BookStore bookStore = bookStoreService.getBookStore(bookStoreId);
-		return createResponse(bookStore);
+	public ResponseEntity<byte[]> getBooks(@PathVariable String bookStoreId,
+										   @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+										   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+										   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+												   String acceptEncoding)
+			throws IOException, HttpMediaTypeNotAcceptableException {
+		// the version alone decides whether the client's copy is current, without loading any books
+		long version = bookStoreService.getVersion(bookStoreId);
+		if (!noneMatch(ifNoneMatch, version)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag(version)).build();
+		}
+
+		MediaType mediaType = responseCache.negotiate(accept);
+		CachedResponse response = responseCache.find(bookStoreId, version, mediaType);
+		if (response == null) {
+			// read before the books, so that following the feed from here can only repeat changes, never miss them
+			long changeSequence = bookStoreService.getChangeSequence(bookStoreId);
+			BookStore bookStore = bookStoreService.getBookStore(bookStoreId);
+			BookStoreResource resource = new BookStoreResourceAssembler().toResource(bookStore, changeSequence);
+			response = responseCache.put(bookStoreId, bookStore.getVersion(), mediaType, resource);
+		}
+		return createResponse(response, BookStoreResponseCache.acceptsGzip(acceptEncoding));
+	}
+
+	@GetMapping("/{bookStoreId}/changes")
+	@PreAuthorize("hasAnyRole('ROLE_FULL_ACCESS','ROLE_READ_ONLY') and hasPermission(#bookStoreId, '')")
+	public ResponseEntity<BookStoreChangesResource> getChanges(@PathVariable String bookStoreId,
+															   @RequestParam(defaultValue = "0") long since,
+															   @RequestParam(defaultValue = "100") int limit) {
+		BookStoreChanges changes = bookStoreService.getChanges(bookStoreId, since, limit);
+		BookStoreChangesResource resource = new BookStoreChangesResourceAssembler().toResource(changes);
+		return new ResponseEntity<>(resource, HttpStatus.OK);
+	}
+
+	@GetMapping("/{bookStoreId}/stats")
+	@PreAuthorize("hasAnyRole('ROLE_FULL_ACCESS','ROLE_READ_ONLY') and hasPermission(#bookStoreId, '')")
+	public ResponseEntity<BookStoreStatisticsResource> getStatistics(@PathVariable String bookStoreId,
+																	 @RequestParam(defaultValue = "10") int top) {
+		BookStoreStatistics statistics = bookStoreService.getStatistics(bookStoreId);
+		List<BookStoreAuthorCount> topAuthors = bookStoreService.getTopAuthors(bookStoreId, top);
+		BookStoreStatisticsResource resource =
+				new BookStoreStatisticsResourceAssembler().toResource(statistics, topAuthors);
+		return new ResponseEntity<>(resource, HttpStatus.OK);
+	}
+
+	@GetMapping("/{bookStoreId}/events")
+	@PreAuthorize("hasAnyRole('ROLE_FULL_ACCESS','ROLE_READ_ONLY') and hasPermission(#bookStoreId, '')")
+	public SseEmitter subscribe(@PathVariable String bookStoreId,
+								@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+		return bookStoreService.subscribe(bookStoreId, lastEventId);
 	}
 
 	@ExceptionHandler(IllegalArgumentException.class)
@@ -52,8 +120,22 @@ public class BookStoreController extends BaseController {
 		return super.badBookStoreId(e);
 	}
 
-	private ResponseEntity<BookStoreResource> createResponse(BookStore bookStore) {
-		BookStoreResource bookStoreResource = new BookStoreResourceAssembler().toResource(bookStore);
-		return new ResponseEntity<>(bookStoreResource, HttpStatus.OK);
+	// every delivery thread is taken and the deliveries waiting for one have filled their queue
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<Map<String, String>> subscriberRejected(RejectedExecutionException e) {
+		Map<String, String> responseBody = Collections.singletonMap("errorMessage",
+				"Too many event subscribers, please try again later.");
+		return new ResponseEntity<>(responseBody, HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
+	private ResponseEntity<byte[]> createResponse(CachedResponse response, boolean acceptsGzip) {
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+				.contentType(response.getContentType())
+				.eTag(eTag(response.getVersion()))
+				.varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+		if (acceptsGzip && response.getCompressedBody() != null) {
+			return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.getCompressedBody());
+		}
+		return builder.body(response.getBody());
 	}
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.limiter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties.ConcurrencyLimit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// Bookstore and broker requests each get their own limit, so a slow bookstore cannot starve the platform's calls to
+// the broker, or the other way round. Anything else, such as the actuator endpoints, is never limited.
+public class ConcurrencyLimitFilter extends OncePerRequestFilter implements MeterBinder {
+	private static final String BUSY_RESPONSE = "{\"errorMessage\":\"The server is busy, please try again later.\"}";
+
+	private final ConcurrencyLimiter bookStoreLimiter;
+	private final ConcurrencyLimiter brokerLimiter;
+	private final String retryAfter;
+	private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+	public ConcurrencyLimitFilter(ConcurrencyLimit settings) {
+		this.bookStoreLimiter = createLimiter(settings);
+		this.brokerLimiter = createLimiter(settings);
+		this.retryAfter = String.valueOf(Math.max(1, settings.getRetryAfter().getSeconds()));
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		ConcurrencyLimiter limiter = limiterFor(urlPathHelper.getPathWithinApplication(request));
+		if (limiter == null) {
+			chain.doFilter(request, response);
+			return;
+		}
+		if (!limiter.tryAcquire()) {
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+			response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+			response.getWriter().write(BUSY_RESPONSE);
+			return;
+		}
+
+		long start = System.nanoTime();
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			// an event stream gives up its thread once it has started, and how long that took is not its latency
+			if (request.isAsyncStarted()) {
+				limiter.release();
+			} else {
+				limiter.release(System.nanoTime() - start);
+			}
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		bindTo(registry, "bookstore", bookStoreLimiter);
+		bindTo(registry, "broker", brokerLimiter);
+	}
+
+	ConcurrencyLimiter limiterFor(String path) {
+		if (path.equals("/bookstores") || path.startsWith("/bookstores/")) {
+			return bookStoreLimiter;
+		}
+		if (path.equals("/v2") || path.startsWith("/v2/")) {
+			return brokerLimiter;
+		}
+		return null;
+	}
+
+	private void bindTo(MeterRegistry registry, String group, ConcurrencyLimiter limiter) {
+		Gauge.builder("bookstore.concurrency.limit", limiter, ConcurrencyLimiter::getLimit)
+				.tag("group", group)
+				.description("Requests allowed to run at once before more are rejected")
+				.register(registry);
+		Gauge.builder("bookstore.concurrency.in.flight", limiter, ConcurrencyLimiter::getInFlight)
+				.tag("group", group)
+				.description("Requests currently running")
+				.register(registry);
+		FunctionCounter.builder("bookstore.concurrency.rejected", limiter, ConcurrencyLimiter::getRejected)
+				.tag("group", group)
+				.description("Requests rejected with 503 because the limit was reached")
+				.register(registry);
+	}
+
+	private static ConcurrencyLimiter createLimiter(ConcurrencyLimit settings) {
+		return new ConcurrencyLimiter(settings.getInitialLimit(), settings.getMinLimit(), settings.getMaxLimit(),
+				settings.getTolerance());
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A gradient limit on concurrent requests, after Netflix's concurrency-limits. The average latency of each window of
+// requests is compared with its long-term average: while they agree the limit grows by a small queue allowance, and as
+// latency rises above the tolerance the limit shrinks in proportion. Requests beyond the limit are rejected at once
+// instead of waiting, so a slow dependency sheds load rather than making every request time out together.
+public class ConcurrencyLimiter {
+	private static final int WINDOW_SIZE = 10;
+
+	private static final int LONG_TERM_WINDOWS = 60;
+
+	private static final double SMOOTHING = 0.2;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final double tolerance;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong rejected = new AtomicLong();
+	private volatile int limit;
+
+	// guarded by this
+	private double estimatedLimit;
+	private double longTermRtt;
+	private long windowRttSum;
+	private int windowCount;
+	private int windowMaxInFlight;
+
+	public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+		if (minLimit < 1 || maxLimit < minLimit) {
+			throw new IllegalArgumentException("Invalid concurrency limit range " + minLimit + "-" + maxLimit + ".");
+		}
+		if (tolerance < 1) {
+			throw new IllegalArgumentException("Invalid latency tolerance " + tolerance + ", must be at least 1.");
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.tolerance = tolerance;
+		this.estimatedLimit = clamp(initialLimit);
+		this.limit = (int) estimatedLimit;
+	}
+
+	public boolean tryAcquire() {
+		int current;
+		do {
+			current = inFlight.get();
+			if (current >= limit) {
+				rejected.incrementAndGet();
+				return false;
+			}
+		} while (!inFlight.compareAndSet(current, current + 1));
+		return true;
+	}
+
+	// rttNanos is how long the request held its slot
+	public void release(long rttNanos) {
+		int inFlightBefore = inFlight.getAndDecrement();
+		sample(rttNanos, inFlightBefore);
+	}
+
+	// for requests whose duration says nothing about the server's latency
+	public void release() {
+		inFlight.decrementAndGet();
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	private synchronized void sample(long rttNanos, int inFlight) {
+		windowRttSum += rttNanos;
+		windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+		if (++windowCount < WINDOW_SIZE) {
+			return;
+		}
+
+		double rtt = (double) windowRttSum / windowCount;
+		int maxInFlight = windowMaxInFlight;
+		windowRttSum = 0;
+		windowCount = 0;
+		windowMaxInFlight = 0;
+		update(rtt, maxInFlight);
+	}
+
+	private void update(double rtt, int maxInFlight) {
+		longTermRtt = longTermRtt == 0 ? rtt : longTermRtt + (rtt - longTermRtt) / LONG_TERM_WINDOWS;
+		// after a burst the long-term average would take many windows to come back down on its own
+		if (longTermRtt > 2 * rtt) {
+			longTermRtt *= 0.95;
+		}
+
+		// a window that used less than half the limit says nothing about how much more the server can take
+		if (maxInFlight < estimatedLimit / 2) {
+			return;
+		}
+
+		double gradient = Math.max(0.5, Math.min(1.0, tolerance * longTermRtt / rtt));
+		double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+		estimatedLimit = clamp(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+		limit = (int) estimatedLimit;
+	}
+
+	private double clamp(double value) {
+		return Math.max(minLimit, Math.min(maxLimit, value));
+	}
+}
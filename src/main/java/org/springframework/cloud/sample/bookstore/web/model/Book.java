@@ -18,59 +18,187 @@ package org.springframework.cloud.sample.bookstore.web.model;
 
 import org.springframework.hateoas.Identifiable;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
 import javax.persistence.Column;
 import javax.persistence.Embeddable;
+import javax.persistence.Transient;
+import java.util.Objects;
+import java.util.UUID;
 
+// A store row only holds the book id, the ISBN and the id of its catalog entry; the title and author live in the
+// catalog, and books with the same details refer to the same entry once it has been resolved. The ISBN is kept on
+// the row so that a store's books can be found by it. A UUID id is kept as two longs.
 @Embeddable
+@Access(AccessType.PROPERTY)
 public class Book implements Identifiable<String> {
-	@Column(length = 50)
-	private final String id;
-
-	@Column(length = 20)
-	private final String isbn;
+	private static final int UUID_LENGTH = 36;
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
-	@Column(length = 100)
-	private final String title;
+	private long idMostSignificantBits;
+	private long idLeastSignificantBits;
+	private String idText;
 
-	@Column(length = 100)
-	private final String author;
+	private BookCatalogEntry catalogEntry;
 
 	@SuppressWarnings("unused")
 	private Book() {
-		this.id = null;
-		this.isbn = null;
-		this.title = null;
-		this.author = null;
 	}
 
 	public Book(String isbn, String title, String author) {
-		this.id = null;
-		this.isbn = isbn;
-		this.title = title;
-		this.author = author;
+		this.catalogEntry = new BookCatalogEntry(isbn, title, author);
 	}
 
 	public Book(String id, Book book) {
-		this.id = id;
-		this.isbn = book.getIsbn();
-		this.title = book.getTitle();
-		this.author = book.getAuthor();
+		this(id, book.catalogEntry);
+	}
+
+	public Book(String id, BookCatalogEntry catalogEntry) {
+		setId(id);
+		this.catalogEntry = catalogEntry;
+	}
+
+	Book(Book book) {
+		this.idMostSignificantBits = book.idMostSignificantBits;
+		this.idLeastSignificantBits = book.idLeastSignificantBits;
+		this.idText = book.idText;
+		this.catalogEntry = book.catalogEntry;
 	}
 
 	@Override
+	@Column(length = 50)
 	public String getId() {
-		return this.id;
+		if (idText != null || !hasPackedId()) {
+			return idText;
+		}
+		return new UUID(idMostSignificantBits, idLeastSignificantBits).toString();
 	}
 
+	@Column(length = 20)
 	public String getIsbn() {
-		return this.isbn;
+		return catalogEntry == null ? null : catalogEntry.getIsbn();
 	}
 
+	@Column(name = "catalog_id")
+	public Long getCatalogId() {
+		long catalogId = catalogId();
+		return catalogId == 0 ? null : catalogId;
+	}
+
+	@Transient
 	public String getTitle() {
-		return this.title;
+		return catalogEntry == null ? null : catalogEntry.getTitle();
 	}
 
+	@Transient
 	public String getAuthor() {
-		return this.author;
+		return catalogEntry == null ? null : catalogEntry.getAuthor();
+	}
+
+	@Transient
+	public BookCatalogEntry getCatalogEntry() {
+		return this.catalogEntry;
+	}
+
+	public void setCatalogEntry(BookCatalogEntry catalogEntry) {
+		boolean sameIsbn = this.catalogEntry != null ?
+				this.catalogEntry.hasSameIsbn(catalogEntry) : catalogEntry.getIsbn() == null;
+		if (!sameIsbn) {
+			throw new IllegalArgumentException("Catalog entry " + catalogEntry.getIsbn() +
+					" does not match book ISBN " + getIsbn() + ".");
+		}
+		this.catalogEntry = catalogEntry;
+	}
+
+	public boolean hasId(String id) {
+		if (idText != null || !hasPackedId()) {
+			return Objects.equals(idText, id);
+		}
+		if (id == null || id.length() != UUID_LENGTH) {
+			return false;
+		}
+
+		int nibble = 0;
+		for (int i = 0; i < UUID_LENGTH; i++) {
+			char c = id.charAt(i);
+			if (isUuidHyphenPosition(i)) {
+				if (c != '-') {
+					return false;
+				}
+				continue;
+			}
+			long bits = nibble < 16 ? idMostSignificantBits : idLeastSignificantBits;
+			int shift = (15 - (nibble & 15)) * 4;
+			if (c != HEX_DIGITS[(int) (bits >>> shift) & 0xF]) {
+				return false;
+			}
+			nibble++;
+		}
+		return true;
+	}
+
+	private boolean hasPackedId() {
+		return idMostSignificantBits != 0 || idLeastSignificantBits != 0;
+	}
+
+	private void setId(String id) {
+		if (isCanonicalUuid(id)) {
+			UUID uuid = UUID.fromString(id);
+			this.idMostSignificantBits = uuid.getMostSignificantBits();
+			this.idLeastSignificantBits = uuid.getLeastSignificantBits();
+			this.idText = null;
+		} else {
+			this.idMostSignificantBits = 0;
+			this.idLeastSignificantBits = 0;
+			this.idText = id;
+		}
+	}
+
+	// loading a row only sets the ISBN and the catalog id; the catalog entry with the details is attached by
+	// BookCatalogService
+	private void setCatalogId(Long catalogId) {
+		this.catalogEntry = new BookCatalogEntry(catalogId == null ? 0 : catalogId, getIsbn(), getTitle(), getAuthor());
+	}
+
+	private void setIsbn(String isbn) {
+		this.catalogEntry = new BookCatalogEntry(catalogId(), isbn, getTitle(), getAuthor());
+	}
+
+	private void setTitle(String title) {
+		this.catalogEntry = new BookCatalogEntry(catalogId(), getIsbn(), title, getAuthor());
+	}
+
+	private void setAuthor(String author) {
+		this.catalogEntry = new BookCatalogEntry(catalogId(), getIsbn(), getTitle(), author);
+	}
+
+	private long catalogId() {
+		return catalogEntry == null ? 0 : catalogEntry.getId();
+	}
+
+	// only the lower case form produced by UUID.toString() is packed, so that getId() returns the original text;
+	// the nil UUID is left as text because both halves being zero means there is no packed id
+	private static boolean isCanonicalUuid(String id) {
+		if (id == null || id.length() != UUID_LENGTH) {
+			return false;
+		}
+		boolean nil = true;
+		for (int i = 0; i < UUID_LENGTH; i++) {
+			char c = id.charAt(i);
+			if (isUuidHyphenPosition(i)) {
+				if (c != '-') {
+					return false;
+				}
+			} else if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+				return false;
+			} else if (c != '0') {
+				nil = false;
+			}
+		}
+		return !nil;
+	}
+
+	private static boolean isUuidHyphenPosition(int index) {
+		return index == 8 || index == 13 || index == 18 || index == 23;
 	}
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.model;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+// The details a book was added with. An entry is never changed once stores refer to it: a book added with other
+// details for the same ISBN gets an entry of its own, so that no store sees the details another store added.
+// Every book held in memory refers to one, so an ISBN-13 is kept as a long and the title as UTF-8 bytes; any other
+// ISBN goes ahead of the title in the same array, followed by a 0xFF byte, which UTF-8 never contains. Entries
+// with the same author can share its name.
+@Entity
+@Access(AccessType.PROPERTY)
+@Table(name = "book_catalog_entries", uniqueConstraints = @UniqueConstraint(name = "book_catalog_entries_details_uk",
+		columnNames = {"isbn", "title", "author"}))
+public class BookCatalogEntry {
+	private static final int ISBN_13_LENGTH = 13;
+	private static final long NO_ISBN = -1;
+	private static final long ISBN_IN_DETAILS = -2;
+	private static final byte TITLE_SEPARATOR = (byte) 0xFF;
+
+	private int id;
+	private long packedIsbn = NO_ISBN;
+	private byte[] details;
+	private String author;
+
+	@SuppressWarnings("unused")
+	private BookCatalogEntry() {
+	}
+
+	public BookCatalogEntry(String isbn, String title, String author) {
+		this(0, isbn, title, author);
+	}
+
+	BookCatalogEntry(long id, String isbn, String title, String author) {
+		setId(id);
+		setDetails(isbn, title);
+		this.author = author;
+	}
+
+	// zero until the entry is inserted
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	public long getId() {
+		return this.id;
+	}
+
+	@Column(length = 20)
+	public String getIsbn() {
+		if (packedIsbn == NO_ISBN) {
+			return null;
+		}
+		if (packedIsbn == ISBN_IN_DETAILS) {
+			return new String(details, 0, titleSeparator(), StandardCharsets.UTF_8);
+		}
+		String digits = Long.toString(packedIsbn);
+		StringBuilder isbn = new StringBuilder(ISBN_13_LENGTH);
+		for (int i = digits.length(); i < ISBN_13_LENGTH; i++) {
+			isbn.append('0');
+		}
+		return isbn.append(digits).toString();
+	}
+
+	@Column(length = 100)
+	public String getTitle() {
+		if (packedIsbn != ISBN_IN_DETAILS) {
+			return details == null ? null : new String(details, StandardCharsets.UTF_8);
+		}
+		int separator = titleSeparator();
+		return separator == details.length ? null :
+				new String(details, separator + 1, details.length - separator - 1, StandardCharsets.UTF_8);
+	}
+
+	@Column(length = 100)
+	public String getAuthor() {
+		return this.author;
+	}
+
+	public boolean hasSameIsbn(BookCatalogEntry other) {
+		if (packedIsbn >= 0 || other.packedIsbn >= 0) {
+			return packedIsbn == other.packedIsbn;
+		}
+		return Objects.equals(getIsbn(), other.getIsbn());
+	}
+
+	// lets entries read separately refer to one instance of an author's name
+	public void shareAuthor(String author) {
+		if (!Objects.equals(this.author, author)) {
+			throw new IllegalArgumentException("Author " + author + " does not match " + this.author + ".");
+		}
+		this.author = author;
+	}
+
+	private void setId(long id) {
+		this.id = Math.toIntExact(id);
+	}
+
+	@SuppressWarnings("unused")
+	private void setIsbn(String isbn) {
+		setDetails(isbn, getTitle());
+	}
+
+	@SuppressWarnings("unused")
+	private void setTitle(String title) {
+		setDetails(getIsbn(), title);
+	}
+
+	@SuppressWarnings("unused")
+	private void setAuthor(String author) {
+		this.author = author;
+	}
+
+	// only a plain ISBN-13 is packed, so that getIsbn() returns what was given
+	private void setDetails(String isbn, String title) {
+		byte[] titleBytes = title == null ? null : title.getBytes(StandardCharsets.UTF_8);
+		if (isbn == null) {
+			this.packedIsbn = NO_ISBN;
+			this.details = titleBytes;
+		} else if (isbn.length() == ISBN_13_LENGTH && isbn.chars().allMatch(c -> c >= '0' && c <= '9')) {
+			this.packedIsbn = Long.parseLong(isbn);
+			this.details = titleBytes;
+		} else {
+			byte[] isbnBytes = isbn.getBytes(StandardCharsets.UTF_8);
+			int length = isbnBytes.length + (titleBytes == null ? 0 : titleBytes.length + 1);
+			byte[] bytes = Arrays.copyOf(isbnBytes, length);
+			if (titleBytes != null) {
+				bytes[isbnBytes.length] = TITLE_SEPARATOR;
+				System.arraycopy(titleBytes, 0, bytes, isbnBytes.length + 1, titleBytes.length);
+			}
+			this.packedIsbn = ISBN_IN_DETAILS;
+			this.details = bytes;
+		}
+	}
+
+	private int titleSeparator() {
+		int separator = 0;
+		while (separator < details.length && details[separator] != TITLE_SEPARATOR) {
+			separator++;
+		}
+		return separator;
+	}
+}
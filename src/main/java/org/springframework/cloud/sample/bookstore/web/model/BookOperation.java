@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.model;
+
+import java.util.Collection;
+
+// one step of a batch request: adding a book, or getting or removing a book by ID
+public class BookOperation {
+	private final Type type;
+
+	private final String id;
+
+	private final String isbn;
+
+	private final String title;
+
+	private final String author;
+
+	@SuppressWarnings("unused")
+	private BookOperation() {
+		this.type = null;
+		this.id = null;
+		this.isbn = null;
+		this.title = null;
+		this.author = null;
+	}
+
+	public BookOperation(Type type, String id, String isbn, String title, String author) {
+		this.type = type;
+		this.id = id;
+		this.isbn = isbn;
+		this.title = title;
+		this.author = author;
+	}
+
+	public static BookOperation add(Book book) {
+		return new BookOperation(Type.ADD, null, book.getIsbn(), book.getTitle(), book.getAuthor());
+	}
+
+	public static BookOperation get(String id) {
+		return new BookOperation(Type.GET, id, null, null, null);
+	}
+
+	public static BookOperation remove(String id) {
+		return new BookOperation(Type.REMOVE, id, null, null, null);
+	}
+
+	// batches that only read are allowed with read-only access
+	public static boolean areReadOnly(Collection<BookOperation> operations) {
+		return operations.stream().allMatch(operation -> operation.getType() == Type.GET);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getIsbn() {
+		return isbn;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getAuthor() {
+		return author;
+	}
+
+	public Book toBook() {
+		return new Book(isbn, title, author);
+	}
+
+	public enum Type {
+		ADD,
+		GET,
+		REMOVE
+	}
+}
@@ -24,9 +24,12 @@ import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,16 +41,37 @@ public class BookStore implements Identifiable<String> {
 	private final String id;
 
 	@ElementCollection(fetch = FetchType.EAGER)
-	@CollectionTable(name = "books", joinColumns = @JoinColumn(name = "bookstore_id"))
-	private final List<Book> books = new ArrayList<>();
+	@CollectionTable(name = "books", joinColumns = @JoinColumn(name = "bookstore_id"),
+			indexes = {
+					@Index(name = "books_bookstore_isbn_idx", columnList = "bookstore_id, isbn"),
+					@Index(name = "books_bookstore_id_idx", columnList = "bookstore_id, id")
+			})
+	private final List<Book> books;
+
+	// the default fills the column for stores created before it was added
+	@Version
+	@Column(columnDefinition = "bigint default 0 not null")
+	private long version;
 
 	@SuppressWarnings("unused")
 	private BookStore() {
 		this.id = null;
+		this.books = new ArrayList<>();
 	}
 
 	public BookStore(String id) {
 		this.id = id;
+		this.books = new ArrayList<>();
+	}
+
+	private BookStore(BookStore bookStore) {
+		this.id = bookStore.id;
+		this.version = bookStore.version;
+		List<Book> books = new ArrayList<>(bookStore.books.size());
+		for (Book book : bookStore.books) {
+			books.add(new Book(book));
+		}
+		this.books = Collections.unmodifiableList(books);
 	}
 
 	@Override
@@ -55,17 +79,27 @@ public class BookStore implements Identifiable<String> {
 		return this.id;
 	}
 
+	public long getVersion() {
+		return this.version;
+	}
+
 	public List<Book> getBooks() {
 		return this.books;
 	}
 
+	// a copy that no persistence context knows about and whose books cannot be added or removed, for sharing
+	// between threads
+	public BookStore snapshot() {
+		return new BookStore(this);
+	}
+
 	public void addBook(Book book) {
 		books.add(book);
 	}
 
 	public Optional<Book> getBookById(String bookId) {
 		return books.stream()
-				.filter(book -> book.getId().equals(bookId))
+				.filter(book -> book.hasId(bookId))
 				.findFirst();
 	}
 
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.util.Objects;
+
+// The number of a store's books by one author. Rows are only changed in place by BookStoreAuthorCountRepository,
+// and a row is deleted once the author has no books left in the store.
+@Entity
+@Table(name = "bookstore_author_counts",
+		indexes = @Index(name = "bookstore_author_counts_books_idx", columnList = "storeId, bookCount"))
+@IdClass(BookStoreAuthorCount.Key.class)
+public class BookStoreAuthorCount {
+	@Id
+	@Column(length = 50)
+	private final String storeId;
+
+	@Id
+	@Column(length = 100)
+	private final String author;
+
+	private final int bookCount;
+
+	@SuppressWarnings("unused")
+	private BookStoreAuthorCount() {
+		this.storeId = null;
+		this.author = null;
+		this.bookCount = 0;
+	}
+
+	public BookStoreAuthorCount(String storeId, String author, int bookCount) {
+		this.storeId = storeId;
+		this.author = author;
+		this.bookCount = bookCount;
+	}
+
+	public String getStoreId() {
+		return this.storeId;
+	}
+
+	public String getAuthor() {
+		return this.author;
+	}
+
+	public int getBookCount() {
+		return this.bookCount;
+	}
+
+	public static class Key implements Serializable {
+		private String storeId;
+		private String author;
+
+		@SuppressWarnings("unused")
+		private Key() {
+		}
+
+		public Key(String storeId, String author) {
+			this.storeId = storeId;
+			this.author = author;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Key key = (Key) o;
+			return Objects.equals(storeId, key.storeId) && Objects.equals(author, key.author);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(storeId, author);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Entity
+@Table(name = "bookstore_changes")
+@IdClass(BookStoreChange.Key.class)
+public class BookStoreChange {
+	@Id
+	@Column(length = 50)
+	private final String storeId;
+
+	@Id
+	private final long sequence;
+
+	@Enumerated(EnumType.STRING)
+	@Column(length = 10)
+	private final Type type;
+
+	@Column(length = 50)
+	private final String bookId;
+
+	@Column(length = 20)
+	private final String isbn;
+
+	@Column(length = 100)
+	private final String title;
+
+	@Column(length = 100)
+	private final String author;
+
+	@SuppressWarnings("unused")
+	private BookStoreChange() {
+		this.storeId = null;
+		this.sequence = 0;
+		this.type = null;
+		this.bookId = null;
+		this.isbn = null;
+		this.title = null;
+		this.author = null;
+	}
+
+	public BookStoreChange(String storeId, long sequence, Type type, Book book) {
+		this.storeId = storeId;
+		this.sequence = sequence;
+		this.type = type;
+		this.bookId = book.getId();
+		this.isbn = book.getIsbn();
+		this.title = type == Type.REMOVED ? null : book.getTitle();
+		this.author = type == Type.REMOVED ? null : book.getAuthor();
+	}
+
+	public String getStoreId() {
+		return this.storeId;
+	}
+
+	public long getSequence() {
+		return this.sequence;
+	}
+
+	public Type getType() {
+		return this.type;
+	}
+
+	public String getBookId() {
+		return this.bookId;
+	}
+
+	public String getIsbn() {
+		return this.isbn;
+	}
+
+	public String getTitle() {
+		return this.title;
+	}
+
+	public String getAuthor() {
+		return this.author;
+	}
+
+	public enum Type {
+		ADDED,
+		UPDATED,
+		REMOVED
+	}
+
+	public static class Key implements Serializable {
+		private String storeId;
+		private long sequence;
+
+		@SuppressWarnings("unused")
+		private Key() {
+		}
+
+		public Key(String storeId, long sequence) {
+			this.storeId = storeId;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Key key = (Key) o;
+			return sequence == key.sequence && Objects.equals(storeId, key.storeId);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(storeId, sequence);
+		}
+	}
+}
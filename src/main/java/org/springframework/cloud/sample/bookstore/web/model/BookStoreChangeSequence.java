@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+// The last sequence number given to a change in the store, and the sequence up to which changes have been
+// compacted away. Both only ever increase.
+@Entity
+@Table(name = "bookstore_change_sequences")
+public class BookStoreChangeSequence {
+	@Id
+	@Column(length = 50)
+	private final String storeId;
+
+	private long lastSequence;
+
+	private long compactedSequence;
+
+	@SuppressWarnings("unused")
+	private BookStoreChangeSequence() {
+		this.storeId = null;
+	}
+
+	public BookStoreChangeSequence(String storeId) {
+		this.storeId = storeId;
+	}
+
+	public String getStoreId() {
+		return this.storeId;
+	}
+
+	public long getLastSequence() {
+		return this.lastSequence;
+	}
+
+	public long getCompactedSequence() {
+		return this.compactedSequence;
+	}
+
+	public long next() {
+		return ++lastSequence;
+	}
+
+	public void compactedThrough(long sequence) {
+		this.compactedSequence = Math.max(compactedSequence, Math.min(sequence, lastSequence));
+	}
+}
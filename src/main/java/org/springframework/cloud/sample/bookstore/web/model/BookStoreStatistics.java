@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+// A summary of a store's books kept up to date as books are added and removed, so that reading it does not need
+// the books themselves. The books of each author are counted in BookStoreAuthorCount.
+@Entity
+@Table(name = "bookstore_statistics")
+public class BookStoreStatistics {
+	@Id
+	@Column(length = 50)
+	private final String storeId;
+
+	private final int bookCount;
+
+	private final int authorCount;
+
+	@SuppressWarnings("unused")
+	private BookStoreStatistics() {
+		this(null, 0, 0);
+	}
+
+	public BookStoreStatistics(String storeId) {
+		this(storeId, 0, 0);
+	}
+
+	public BookStoreStatistics(String storeId, int bookCount, int authorCount) {
+		this.storeId = storeId;
+		this.bookCount = bookCount;
+		this.authorCount = authorCount;
+	}
+
+	public String getStoreId() {
+		return this.storeId;
+	}
+
+	public int getBookCount() {
+		return this.bookCount;
+	}
+
+	public int getAuthorCount() {
+		return this.authorCount;
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.model;
+
+public final class Isbn {
+	private Isbn() {
+	}
+
+	public static String toIsbn13(String isbn) {
+		if (isbn == null) {
+			throw new IllegalArgumentException("Invalid ISBN " + isbn + ".");
+		}
+
+		StringBuilder digits = new StringBuilder(13);
+		for (int i = 0; i < isbn.length(); i++) {
+			char c = isbn.charAt(i);
+			if (c != '-' && c != ' ') {
+				digits.append(c == 'x' ? 'X' : c);
+			}
+		}
+
+		if (digits.length() == 13 && isIsbn13(digits)) {
+			return digits.toString();
+		}
+		if (digits.length() == 10 && isIsbn10(digits)) {
+			digits.setLength(9);
+			digits.insert(0, "978");
+			return digits.append(isbn13CheckDigit(digits)).toString();
+		}
+
+		throw new IllegalArgumentException("Invalid ISBN " + isbn + ".");
+	}
+
+	private static boolean isIsbn13(CharSequence digits) {
+		if (!isDigits(digits, 0, 13)) {
+			return false;
+		}
+		if (digits.charAt(0) != '9' || digits.charAt(1) != '7' || (digits.charAt(2) != '8' && digits.charAt(2) != '9')) {
+			return false;
+		}
+		return isbn13CheckDigit(digits) == digits.charAt(12);
+	}
+
+	private static boolean isIsbn10(CharSequence digits) {
+		if (!isDigits(digits, 0, 9)) {
+			return false;
+		}
+		char check = digits.charAt(9);
+		if (check != 'X' && (check < '0' || check > '9')) {
+			return false;
+		}
+
+		int sum = 0;
+		for (int i = 0; i < 9; i++) {
+			sum += (digits.charAt(i) - '0') * (10 - i);
+		}
+		sum += check == 'X' ? 10 : check - '0';
+		return sum % 11 == 0;
+	}
+
+	private static char isbn13CheckDigit(CharSequence digits) {
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return (char) ('0' + (10 - sum % 10) % 10);
+	}
+
+	private static boolean isDigits(CharSequence digits, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = digits.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.repository;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+// Book rows refer to their catalog entry by its id. Databases created before that hold the details either on every
+// book row or, once per ISBN, in the book_catalog table; books without a catalog id are given entries with those
+// details once at startup. The old columns and table are left in place.
+@Component
+public class BookCatalogApplicationListener implements ApplicationListener<ApplicationReadyEvent> {
+	// compares catalog entry e with the legacy details d, either of which may lack a title or author
+	private static final String SAME_DETAILS = "e.isbn = d.isbn " +
+			"and (e.title = d.title or e.title is null and d.title is null) " +
+			"and (e.author = d.author or e.author is null and d.author is null)";
+
+	private static final String IMPORT_ISBN_CATALOG =
+			"insert into book_catalog_entries (isbn, title, author) " +
+					"select d.isbn, d.title, d.author from book_catalog d " +
+					"where exists (select 1 from books b where b.isbn = d.isbn and b.catalog_id is null) " +
+					"and not exists (select 1 from book_catalog_entries e where " + SAME_DETAILS + ")";
+
+	private static final String LINK_TO_ISBN_CATALOG =
+			"update books b set catalog_id = " +
+					"(select min(e.id) from book_catalog_entries e, book_catalog d " +
+					"where d.isbn = b.isbn and " + SAME_DETAILS + ") " +
+					"where b.catalog_id is null and b.isbn is not null";
+
+	private static final String IMPORT_BOOK_DETAILS =
+			"insert into book_catalog_entries (isbn, title, author) " +
+					"select distinct d.isbn, d.title, d.author from books d " +
+					"where d.catalog_id is null and d.isbn is not null " +
+					"and not exists (select 1 from book_catalog_entries e where " + SAME_DETAILS + ")";
+
+	private static final String LINK_TO_BOOK_DETAILS =
+			"update books d set catalog_id = " +
+					"(select min(e.id) from book_catalog_entries e where " + SAME_DETAILS + ") " +
+					"where d.catalog_id is null and d.isbn is not null";
+
+	private JdbcTemplate jdbcTemplate;
+
+	public BookCatalogApplicationListener(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	// the ISBN catalog holds the latest details of the books it knows
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		if (hasTable("book_catalog")) {
+			jdbcTemplate.update(IMPORT_ISBN_CATALOG);
+			jdbcTemplate.update(LINK_TO_ISBN_CATALOG);
+		}
+		if (hasColumn("books", "title")) {
+			jdbcTemplate.update(IMPORT_BOOK_DETAILS);
+			jdbcTemplate.update(LINK_TO_BOOK_DETAILS);
+		}
+	}
+
+	private boolean hasTable(String table) {
+		return hasColumn(table, null);
+	}
+
+	// metadata lookups are case sensitive, and databases differ in how they store unquoted names
+	private boolean hasColumn(String table, String column) {
+		Boolean found = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+			DatabaseMetaData metaData = connection.getMetaData();
+			for (String name : new String[] {table, table.toUpperCase()}) {
+				try (ResultSet columns = metaData.getColumns(null, null, name, null)) {
+					while (columns.next()) {
+						if (column == null || column.equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+							return true;
+						}
+					}
+				}
+			}
+			return false;
+		});
+		return Boolean.TRUE.equals(found);
+	}
+}
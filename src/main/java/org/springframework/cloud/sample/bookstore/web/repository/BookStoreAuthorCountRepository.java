@@ -0,0 +1,62 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.repository;
+
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreAuthorCount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+// Counts are read through constructor expressions, since rows changed in place are not refreshed in the
+// persistence context, and are inserted directly for the same reason.
+public interface BookStoreAuthorCountRepository
+		extends JpaRepository<BookStoreAuthorCount, BookStoreAuthorCount.Key> {
+	@Query("select new org.springframework.cloud.sample.bookstore.web.model.BookStoreAuthorCount(" +
+			"c.storeId, c.author, c.bookCount) from BookStoreAuthorCount c where c.storeId = :storeId " +
+			"order by c.bookCount desc, c.author")
+	List<BookStoreAuthorCount> findTopAuthors(@Param("storeId") String storeId, Pageable pageable);
+
+	@Modifying
+	@Query(value = "insert into bookstore_author_counts (store_id, author, book_count) " +
+			"values (:storeId, :author, :books)", nativeQuery = true)
+	int insertAuthor(@Param("storeId") String storeId, @Param("author") String author, @Param("books") int books);
+
+	@Modifying
+	@Query("update BookStoreAuthorCount c set c.bookCount = c.bookCount + :books " +
+			"where c.storeId = :storeId and c.author = :author")
+	int addBooks(@Param("storeId") String storeId, @Param("author") String author, @Param("books") int books);
+
+	// leaves the count as it is if the author has fewer books than that
+	@Modifying
+	@Query("update BookStoreAuthorCount c set c.bookCount = c.bookCount - :books " +
+			"where c.storeId = :storeId and c.author = :author and c.bookCount >= :books")
+	int removeBooks(@Param("storeId") String storeId, @Param("author") String author, @Param("books") int books);
+
+	@Modifying
+	@Query("delete from BookStoreAuthorCount c " +
+			"where c.storeId = :storeId and c.author = :author and c.bookCount = 0")
+	int deleteIfEmpty(@Param("storeId") String storeId, @Param("author") String author);
+
+	@Modifying
+	@Query("delete from BookStoreAuthorCount c where c.storeId = :storeId")
+	int deleteByStoreId(@Param("storeId") String storeId);
+}
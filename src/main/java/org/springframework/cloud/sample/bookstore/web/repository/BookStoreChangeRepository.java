@@ -0,0 +1,39 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.repository;
+
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface BookStoreChangeRepository extends JpaRepository<BookStoreChange, BookStoreChange.Key> {
+	List<BookStoreChange> findByStoreIdAndSequenceGreaterThanOrderBySequence(String storeId, long sequence,
+																			   Pageable pageable);
+
+	@Modifying
+	@Query("delete from BookStoreChange c where c.storeId = :storeId and c.sequence <= :sequence")
+	int deleteThrough(@Param("storeId") String storeId, @Param("sequence") long sequence);
+
+	@Modifying
+	@Query("delete from BookStoreChange c where c.storeId = :storeId")
+	int deleteByStoreId(@Param("storeId") String storeId);
+}
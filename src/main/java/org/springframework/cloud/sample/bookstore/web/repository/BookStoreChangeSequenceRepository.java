@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.repository;
+
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreChangeSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+public interface BookStoreChangeSequenceRepository extends JpaRepository<BookStoreChangeSequence, String> {
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select s from BookStoreChangeSequence s where s.storeId = :storeId")
+	Optional<BookStoreChangeSequence> findByIdForUpdate(@Param("storeId") String storeId);
+
+	@Modifying
+	@Query(value = "insert into bookstore_change_sequences (store_id, last_sequence, compacted_sequence) " +
+			"select s.id, 0, 0 from bookstores s " +
+			"where not exists (select 1 from bookstore_change_sequences c where c.store_id = s.id)",
+			nativeQuery = true)
+	int createMissingSequences();
+}
@@ -16,8 +16,25 @@
 
 package org.springframework.cloud.sample.bookstore.web.repository;
 
+import org.springframework.cloud.sample.bookstore.web.model.Book;
 import org.springframework.cloud.sample.bookstore.web.model.BookStore;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface BookStoreRepository extends JpaRepository<BookStore, String> {
+	@Query("select s.version from BookStore s where s.id = :storeId")
+	Long findVersionById(@Param("storeId") String storeId);
+
+	@Query("select s.id from BookStore s")
+	List<String> findAllIds();
+
+	@Query("select b from BookStore s join s.books b where s.id = :storeId and b.isbn = :isbn")
+	List<Book> findBooksByIsbn(@Param("storeId") String storeId, @Param("isbn") String isbn);
+
+	@Query("select b from BookStore s join s.books b where s.id = :storeId and b.id in :bookIds")
+	List<Book> findBooksByIds(@Param("storeId") String storeId, @Param("bookIds") Collection<String> bookIds);
 }
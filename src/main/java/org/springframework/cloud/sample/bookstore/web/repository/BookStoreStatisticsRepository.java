@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.repository;
+
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+// Like the author counts, the counts here are changed in place and read through a constructor expression.
+public interface BookStoreStatisticsRepository extends JpaRepository<BookStoreStatistics, String> {
+	@Query("select new org.springframework.cloud.sample.bookstore.web.model.BookStoreStatistics(" +
+			"s.storeId, s.bookCount, s.authorCount) from BookStoreStatistics s where s.storeId = :storeId")
+	Optional<BookStoreStatistics> findCurrent(@Param("storeId") String storeId);
+
+	// leaves the count as it is if it would drop below zero
+	@Modifying
+	@Query("update BookStoreStatistics s set s.bookCount = s.bookCount + :books " +
+			"where s.storeId = :storeId and s.bookCount + :books >= 0")
+	int addBooks(@Param("storeId") String storeId, @Param("books") int books);
+
+	@Modifying
+	@Query("update BookStoreStatistics s set s.authorCount = s.authorCount + :authors where s.storeId = :storeId")
+	int addAuthors(@Param("storeId") String storeId, @Param("authors") int authors);
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@SuppressWarnings("unused")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookOperationResultResource {
+	private final int status;
+	private final BookResource book;
+	private final String errorMessage;
+
+	BookOperationResultResource(int status, BookResource book, String errorMessage) {
+		this.status = status;
+		this.book = book;
+		this.errorMessage = errorMessage;
+	}
+
+	// the status the operation would have had as a request of its own
+	public int getStatus() {
+		return status;
+	}
+
+	public BookResource getBook() {
+		return book;
+	}
+
+	public String getErrorMessage() {
+		return errorMessage;
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import org.springframework.cloud.sample.bookstore.web.model.BookOperation;
+import org.springframework.cloud.sample.bookstore.web.service.BookOperationResult;
+import org.springframework.cloud.sample.bookstore.web.service.DuplicateIsbnException;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookOperationResultResourceAssembler {
+	public List<BookOperationResultResource> toResources(List<BookOperationResult> results, String bookStoreId) {
+		BookResourceAssembler bookAssembler = new BookResourceAssembler();
+		String booksHref = bookAssembler.booksHref(bookStoreId);
+
+		List<BookOperationResultResource> resources = new ArrayList<>(results.size());
+		for (BookOperationResult result : results) {
+			if (result.isSucceeded()) {
+				HttpStatus status = result.getOperation().getType() == BookOperation.Type.ADD ?
+						HttpStatus.CREATED : HttpStatus.OK;
+				BookResource bookResource = bookAssembler.createResource(result.getBook(), booksHref);
+				resources.add(new BookOperationResultResource(status.value(), bookResource, null));
+			} else {
+				HttpStatus status = result.getFailure() instanceof DuplicateIsbnException ?
+						HttpStatus.CONFLICT : HttpStatus.BAD_REQUEST;
+				resources.add(new BookOperationResultResource(status.value(), null, result.getFailure().getMessage()));
+			}
+		}
+		return resources;
+	}
+}
@@ -16,10 +16,12 @@
 
 package org.springframework.cloud.sample.bookstore.web.resource;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import org.springframework.cloud.sample.bookstore.web.model.Book;
 import org.springframework.hateoas.ResourceSupport;
 
 @SuppressWarnings("unused")
+@JsonPropertyOrder({"isbn", "title", "author"})
 public class BookResource extends ResourceSupport {
 	private final Book book;
 
@@ -18,6 +18,7 @@ package org.springframework.cloud.sample.bookstore.web.resource;
 
 import org.springframework.cloud.sample.bookstore.web.controller.BookController;
 import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.hateoas.Link;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -28,18 +29,25 @@ import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
 
 public class BookResourceAssembler {
 	public BookResource toResource(Book book, String bookStoreId) {
-		BookResource bookResource = new BookResource(book);
-		bookResource.add(
-				linkTo(BookController.class, bookStoreId)
-						.slash(book.getId())
-						.withSelfRel());
-
-		return bookResource;
+		return createResource(book, booksHref(bookStoreId));
 	}
 
 	public List<BookResource> toResources(Collection<Book> books, String bookStoreId) {
+		// linkTo() reflects on the controller mapping and the current request, so do it once for all books
+		String booksHref = booksHref(bookStoreId);
 		return books.stream()
-				.map(book -> toResource(book, bookStoreId))
+				.map(book -> createResource(book, booksHref))
 				.collect(Collectors.toCollection(() -> new ArrayList<>(books.size())));
 	}
+
+	BookResource createResource(Book book, String booksHref) {
+		BookResource bookResource = new BookResource(book);
+		bookResource.add(new Link(booksHref + book.getId()));
+
+		return bookResource;
+	}
+
+	String booksHref(String bookStoreId) {
+		return linkTo(BookController.class, bookStoreId).toUri().toString() + "/";
+	}
 }
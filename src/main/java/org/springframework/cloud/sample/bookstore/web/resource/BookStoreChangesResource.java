@@ -0,0 +1,73 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreChange;
+import org.springframework.hateoas.ResourceSupport;
+
+import java.util.List;
+
+@SuppressWarnings("unused")
+public class BookStoreChangesResource extends ResourceSupport {
+	private final long lastSequence;
+	private final List<ChangeResource> changes;
+
+	BookStoreChangesResource(long lastSequence, List<ChangeResource> changes) {
+		this.lastSequence = lastSequence;
+		this.changes = changes;
+	}
+
+	public long getLastSequence() {
+		return lastSequence;
+	}
+
+	public List<ChangeResource> getChanges() {
+		return changes;
+	}
+
+	public static class ChangeResource {
+		private final BookStoreChange change;
+
+		ChangeResource(BookStoreChange change) {
+			this.change = change;
+		}
+
+		public long getSequence() {
+			return change.getSequence();
+		}
+
+		public BookStoreChange.Type getType() {
+			return change.getType();
+		}
+
+		public String getBookId() {
+			return change.getBookId();
+		}
+
+		public String getIsbn() {
+			return change.getIsbn();
+		}
+
+		public String getTitle() {
+			return change.getTitle();
+		}
+
+		public String getAuthor() {
+			return change.getAuthor();
+		}
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import org.springframework.cloud.sample.bookstore.web.controller.BookStoreController;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreChangesResource.ChangeResource;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreChangeService.BookStoreChanges;
+import org.springframework.hateoas.Link;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
+public class BookStoreChangesResourceAssembler {
+	public BookStoreChangesResource toResource(BookStoreChanges changes) {
+		List<ChangeResource> changeResources = changes.getChanges().stream()
+				.map(ChangeResource::new)
+				.collect(Collectors.toList());
+
+		BookStoreChangesResource resource = new BookStoreChangesResource(changes.getLastSequence(), changeResources);
+		resource.add(changesLink(changes.getStoreId(), changes.getSince(), Link.REL_SELF));
+		resource.add(changesLink(changes.getStoreId(), changes.getNextSince(), Link.REL_NEXT));
+		return resource;
+	}
+
+	private Link changesLink(String storeId, long since, String rel) {
+		String href = linkTo(BookStoreController.class)
+				.slash(storeId)
+				.slash("changes")
+				.toUriComponentsBuilder()
+				.queryParam("since", since)
+				.toUriString();
+		return new Link(href, rel);
+	}
+}
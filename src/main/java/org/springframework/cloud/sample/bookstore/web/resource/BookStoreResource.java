@@ -16,19 +16,41 @@
 
 package org.springframework.cloud.sample.bookstore.web.resource;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
 import org.springframework.hateoas.ResourceSupport;
 
 import java.util.Collection;
 
-@SuppressWarnings("unused")
+// written by BookStoreResourceSerializer straight from the books, without a resource object per book
+@JsonSerialize(using = BookStoreResourceSerializer.class)
 public class BookStoreResource extends ResourceSupport {
-	private final Collection<BookResource> bookResources;
+	private final Collection<Book> books;
+	private final String booksHref;
+	private final Long changeSequence;
 
-	BookStoreResource(Collection<BookResource> bookResources) {
-		this.bookResources = bookResources;
+	BookStoreResource(Collection<Book> books, String booksHref, Long changeSequence) {
+		this.books = books;
+		this.booksHref = booksHref;
+		this.changeSequence = changeSequence;
 	}
 
-	public Collection<BookResource> getBooks() {
-		return bookResources;
+	public Collection<Book> getBooks() {
+		return books;
+	}
+
+	String getBooksHref() {
+		return booksHref;
+	}
+
+	String getBookHref(Book book) {
+		return booksHref + book.getId();
+	}
+
+	// the change feed sequence the books were read at, for clients that keep a copy up to date from the feed
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public Long getChangeSequence() {
+		return changeSequence;
 	}
 }
@@ -19,16 +19,17 @@ package org.springframework.cloud.sample.bookstore.web.resource;
 import org.springframework.cloud.sample.bookstore.web.controller.BookStoreController;
 import org.springframework.cloud.sample.bookstore.web.model.BookStore;
 
-import java.util.List;
-
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
 
 public class BookStoreResourceAssembler {
 	public BookStoreResource toResource(BookStore bookStore) {
-		BookResourceAssembler bookAssembler = new BookResourceAssembler();
-		List<BookResource> bookResources = bookAssembler.toResources(bookStore.getBooks(), bookStore.getId());
+		return toResource(bookStore, null);
+	}
+
+	public BookStoreResource toResource(BookStore bookStore, Long changeSequence) {
+		String booksHref = new BookResourceAssembler().booksHref(bookStore.getId());
 
-		BookStoreResource bookStoreResource = new BookStoreResource(bookResources);
+		BookStoreResource bookStoreResource = new BookStoreResource(bookStore.getBooks(), booksHref, changeSequence);
 		bookStoreResource.add(
 				linkTo(BookStoreController.class)
 						.slash(bookStore.getId())
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.hateoas.Link;
+
+import java.io.IOException;
+
+// writes the same JSON as serializing a BookResource per book would, property order and nulls included
+public class BookStoreResourceSerializer extends StdSerializer<BookStoreResource> {
+	public BookStoreResourceSerializer() {
+		super(BookStoreResource.class);
+	}
+
+	@Override
+	public void serialize(BookStoreResource resource, JsonGenerator generator, SerializerProvider provider)
+			throws IOException {
+		JsonSerializer<Object> linkSerializer = provider.findValueSerializer(Link.class);
+		// a Link parses its href as a URI template when it is created, which is most of the cost for a book, so the
+		// book links are copies of one parsed link with their own href; they are only written out, which reads
+		// nothing but the rel and the href
+		Link bookLink = new Link(resource.getBooksHref(), Link.REL_SELF);
+
+		generator.writeStartObject();
+		if (resource.getChangeSequence() != null) {
+			generator.writeNumberField("changeSequence", resource.getChangeSequence());
+		}
+
+		generator.writeArrayFieldStart("books");
+		for (Book book : resource.getBooks()) {
+			generator.writeStartObject();
+			generator.writeStringField("isbn", book.getIsbn());
+			generator.writeStringField("title", book.getTitle());
+			generator.writeStringField("author", book.getAuthor());
+			generator.writeArrayFieldStart("links");
+			linkSerializer.serialize(bookLink.withHref(resource.getBookHref(book)), generator, provider);
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+
+		generator.writeArrayFieldStart("links");
+		for (Link link : resource.getLinks()) {
+			linkSerializer.serialize(link, generator, provider);
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+	}
+}
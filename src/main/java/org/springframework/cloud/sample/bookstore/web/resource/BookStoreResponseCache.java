@@ -0,0 +1,192 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.controller.BookStoreController;
+import org.springframework.cloud.sample.bookstore.web.service.LruMap;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
+// Store responses are kept serialized, and gzipped when they reach the server's compression threshold, for the most
+// recently read stores. They are keyed by store version, so an unchanged store is served again without any
+// serialization or compression work. Each format and host a store is read with is a variant of its own; the Host and
+// X-Forwarded-Host headers come from clients, so only the most recently used variants of a store are kept.
+@Component
+public class BookStoreResponseCache {
+	private final List<AbstractJackson2HttpMessageConverter> converters = new ArrayList<>();
+	private final boolean compressionEnabled;
+	private final int compressionThreshold;
+	private final int maxVariants;
+	private final Map<String, CachedStore> cache;
+
+	public BookStoreResponseCache(HttpMessageConverters messageConverters, ServerProperties serverProperties,
+								  BookStoreProperties properties) {
+		messageConverters.getConverters().stream()
+				.filter(converter -> converter instanceof AbstractJackson2HttpMessageConverter)
+				.filter(converter -> converter.canWrite(BookStoreResource.class, null))
+				.forEach(converter -> converters.add((AbstractJackson2HttpMessageConverter) converter));
+		Compression compression = serverProperties.getCompression();
+		this.compressionEnabled = compression.getEnabled();
+		this.compressionThreshold = compression.getMinResponseSize();
+		this.maxVariants = properties.getResponseCache().getMaxVariantsPerStore();
+		this.cache = Collections.synchronizedMap(new LruMap<>(properties.getResponseCache().getMaxStores()));
+	}
+
+	// the first format the client accepts, by specificity and quality, among those the converters can write
+	public MediaType negotiate(String accept) throws HttpMediaTypeNotAcceptableException {
+		List<MediaType> acceptedTypes = accept == null ?
+				Collections.singletonList(MediaType.ALL) : MediaType.parseMediaTypes(accept);
+		MediaType.sortBySpecificityAndQuality(acceptedTypes);
+
+		List<MediaType> supportedTypes = new ArrayList<>();
+		for (AbstractJackson2HttpMessageConverter converter : converters) {
+			for (MediaType supportedType : converter.getSupportedMediaTypes()) {
+				if (supportedType.isConcrete()) {
+					supportedTypes.add(converter.getDefaultCharset() == null ?
+							supportedType : new MediaType(supportedType, converter.getDefaultCharset()));
+				}
+			}
+		}
+
+		for (MediaType acceptedType : acceptedTypes) {
+			if (acceptedType.getQualityValue() == 0) {
+				continue;
+			}
+			for (MediaType supportedType : supportedTypes) {
+				if (acceptedType.isCompatibleWith(supportedType)) {
+					return supportedType;
+				}
+			}
+		}
+		throw new HttpMediaTypeNotAcceptableException(supportedTypes);
+	}
+
+	public CachedResponse find(String storeId, long version, MediaType mediaType) {
+		CachedStore store = cache.get(storeId);
+		if (store == null || store.version != version) {
+			return null;
+		}
+		return store.responses.get(variant(mediaType));
+	}
+
+	public CachedResponse put(String storeId, long version, MediaType mediaType, BookStoreResource resource)
+			throws IOException {
+		byte[] body = converter(mediaType).getObjectMapper().writeValueAsBytes(resource);
+		byte[] compressedBody = compressionEnabled && body.length >= compressionThreshold ? gzip(body) : null;
+		CachedResponse response = new CachedResponse(version, mediaType, body, compressedBody);
+
+		// a response for an older version than the one cached is still returned, but never replaces it
+		CachedStore store = cache.compute(storeId, (id, existing) ->
+				existing != null && existing.version >= version ? existing : new CachedStore(version, maxVariants));
+		if (store.version == version) {
+			store.responses.put(variant(mediaType), response);
+		}
+		return response;
+	}
+
+	public static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.trim().split(";");
+			if (parts[0].trim().equalsIgnoreCase("gzip")) {
+				return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
+	}
+
+	// the links in a response are absolute, so requests for different hosts get separate responses
+	private String variant(MediaType mediaType) {
+		return mediaType + " " + linkTo(BookStoreController.class).toUri();
+	}
+
+	private AbstractJackson2HttpMessageConverter converter(MediaType mediaType) {
+		for (AbstractJackson2HttpMessageConverter converter : converters) {
+			if (converter.canWrite(BookStoreResource.class, mediaType)) {
+				return converter;
+			}
+		}
+		throw new IllegalStateException("No converter for " + mediaType);
+	}
+
+	private static byte[] gzip(byte[] body) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+			gzip.write(body);
+		}
+		return bytes.toByteArray();
+	}
+
+	public static class CachedResponse {
+		private final long version;
+		private final MediaType contentType;
+		private final byte[] body;
+		private final byte[] compressedBody;
+
+		CachedResponse(long version, MediaType contentType, byte[] body, byte[] compressedBody) {
+			this.version = version;
+			this.contentType = contentType;
+			this.body = body;
+			this.compressedBody = compressedBody;
+		}
+
+		public long getVersion() {
+			return version;
+		}
+
+		public MediaType getContentType() {
+			return contentType;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		// null when the body is too small to be worth compressing
+		public byte[] getCompressedBody() {
+			return compressedBody;
+		}
+	}
+
+	private static class CachedStore {
+		private final long version;
+		private final Map<String, CachedResponse> responses;
+
+		CachedStore(long version, int maxVariants) {
+			this.version = version;
+			this.responses = Collections.synchronizedMap(new LruMap<>(maxVariants));
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import org.springframework.hateoas.ResourceSupport;
+
+import java.util.List;
+
+@SuppressWarnings("unused")
+public class BookStoreStatisticsResource extends ResourceSupport {
+	private final int bookCount;
+	private final int authorCount;
+	private final List<AuthorCount> topAuthors;
+
+	BookStoreStatisticsResource(int bookCount, int authorCount, List<AuthorCount> topAuthors) {
+		this.bookCount = bookCount;
+		this.authorCount = authorCount;
+		this.topAuthors = topAuthors;
+	}
+
+	public int getBookCount() {
+		return bookCount;
+	}
+
+	public int getAuthorCount() {
+		return authorCount;
+	}
+
+	public double getBooksPerAuthor() {
+		return authorCount == 0 ? 0 : (double) bookCount / authorCount;
+	}
+
+	public List<AuthorCount> getTopAuthors() {
+		return topAuthors;
+	}
+
+	public static class AuthorCount {
+		private final String author;
+		private final int bookCount;
+
+		AuthorCount(String author, int bookCount) {
+			this.author = author;
+			this.bookCount = bookCount;
+		}
+
+		public String getAuthor() {
+			return author;
+		}
+
+		public int getBookCount() {
+			return bookCount;
+		}
+	}
+}
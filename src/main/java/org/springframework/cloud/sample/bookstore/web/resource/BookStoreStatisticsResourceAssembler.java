@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import org.springframework.cloud.sample.bookstore.web.controller.BookStoreController;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreAuthorCount;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreStatistics;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreStatisticsResource.AuthorCount;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
+public class BookStoreStatisticsResourceAssembler {
+	public BookStoreStatisticsResource toResource(BookStoreStatistics statistics,
+												  List<BookStoreAuthorCount> topAuthors) {
+		List<AuthorCount> authorCounts = topAuthors.stream()
+				.map(authorCount -> new AuthorCount(authorCount.getAuthor(), authorCount.getBookCount()))
+				.collect(Collectors.toList());
+
+		BookStoreStatisticsResource resource = new BookStoreStatisticsResource(statistics.getBookCount(),
+				statistics.getAuthorCount(), authorCounts);
+		resource.add(
+				linkTo(BookStoreController.class)
+						.slash(statistics.getStoreId())
+						.slash("stats")
+						.withSelfRel());
+		return resource;
+	}
+}
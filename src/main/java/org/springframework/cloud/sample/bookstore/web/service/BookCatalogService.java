@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookCatalogEntry;
+import org.springframework.cloud.sample.bookstore.web.repository.BookCatalogRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Title and author are kept once per set of details rather than once per book; the most recently used entries are
+// cached so that books loaded from any store share the same instance, and entries by the same author share the
+// author's name. Names come from clients, so they are shared through a bounded cache rather than interned.
+@Service
+public class BookCatalogService {
+	private final BookCatalogRepository repository;
+	private final TransactionTemplate insertTransaction;
+	private final Map<Long, BookCatalogEntry> entries;
+	private final Map<List<String>, BookCatalogEntry> entriesByDetails;
+	private final Map<String, String> authors;
+
+	public BookCatalogService(BookCatalogRepository repository, BookStoreProperties properties,
+							  PlatformTransactionManager transactionManager) {
+		this.repository = repository;
+		this.insertTransaction = new TransactionTemplate(transactionManager);
+		this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		int cacheSize = properties.getCatalog().getCacheSize();
+		this.entries = Collections.synchronizedMap(new LruMap<>(cacheSize));
+		this.entriesByDetails = Collections.synchronizedMap(new LruMap<>(cacheSize));
+		this.authors = Collections.synchronizedMap(new LruMap<>(cacheSize));
+	}
+
+	// Looks up the entry with these details, or inserts it. The insert commits on its own, so that a request that
+	// loses the race for the same details finds the winner's entry rather than a failed transaction; an entry left
+	// behind by a store update that is rolled back is simply unused.
+	public BookCatalogEntry register(String isbn, String title, String author) {
+		List<String> details = Arrays.asList(isbn, title, author);
+		BookCatalogEntry entry = entriesByDetails.get(details);
+		if (entry != null) {
+			return entry;
+		}
+
+		entry = findByDetails(isbn, title, author);
+		if (entry == null) {
+			try {
+				entry = insertTransaction.execute(status ->
+						repository.saveAndFlush(new BookCatalogEntry(isbn, title, author)));
+			} catch (DataIntegrityViolationException e) {
+				entry = findByDetails(isbn, title, author);
+				if (entry == null) {
+					throw e;
+				}
+			}
+		}
+		cache(entry);
+		return entry;
+	}
+
+	public BookCatalogEntry find(Long id) {
+		BookCatalogEntry entry = entries.get(id);
+		if (entry == null) {
+			entry = repository.findById(id).orElse(null);
+			if (entry != null) {
+				cache(entry);
+			}
+		}
+		return entry;
+	}
+
+	public void resolve(Collection<Book> books) {
+		Set<Long> missing = new TreeSet<>();
+		for (Book book : books) {
+			if (!attach(book)) {
+				missing.add(book.getCatalogId());
+			}
+		}
+		if (missing.isEmpty()) {
+			return;
+		}
+
+		for (BookCatalogEntry entry : repository.findAllById(missing)) {
+			cache(entry);
+		}
+		for (Book book : books) {
+			attach(book);
+		}
+	}
+
+	// entries with a missing title or author are not unique in the database, so any of them will do
+	private BookCatalogEntry findByDetails(String isbn, String title, String author) {
+		List<BookCatalogEntry> found = repository.findByIsbnAndTitleAndAuthor(isbn, title, author);
+		return found.isEmpty() ? null : found.get(0);
+	}
+
+	private void cache(BookCatalogEntry entry) {
+		if (entry.getAuthor() != null) {
+			entry.shareAuthor(authors.computeIfAbsent(entry.getAuthor(), author -> author));
+		}
+		entries.put(entry.getId(), entry);
+		entriesByDetails.put(Arrays.asList(entry.getIsbn(), entry.getTitle(), entry.getAuthor()), entry);
+	}
+
+	private boolean attach(Book book) {
+		if (book.getCatalogId() == null) {
+			return true;
+		}
+		BookCatalogEntry entry = entries.get(book.getCatalogId());
+		if (entry == null) {
+			return false;
+		}
+		book.setCatalogEntry(entry);
+		return true;
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookOperation;
+
+// the book an operation added, got or removed, or why it failed
+public class BookOperationResult {
+	private final BookOperation operation;
+	private final Book book;
+	private final RuntimeException failure;
+
+	private BookOperationResult(BookOperation operation, Book book, RuntimeException failure) {
+		this.operation = operation;
+		this.book = book;
+		this.failure = failure;
+	}
+
+	static BookOperationResult succeeded(BookOperation operation, Book book) {
+		return new BookOperationResult(operation, book, null);
+	}
+
+	static BookOperationResult failed(BookOperation operation, RuntimeException failure) {
+		return new BookOperationResult(operation, null, failure);
+	}
+
+	public BookOperation getOperation() {
+		return operation;
+	}
+
+	public Book getBook() {
+		return book;
+	}
+
+	public RuntimeException getFailure() {
+		return failure;
+	}
+
+	public boolean isSucceeded() {
+		return failure == null;
+	}
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// An in-memory word index over the titles and authors of each store. Stores are indexed on the first search after
+// startup, kept up to date as books are added and removed, and dropped when they are the least recently searched
+// once more than the configured number of stores are indexed. Every application instance keeps its own index.
+@Service
+public class BookSearchIndex {
+	private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+	private static final double TITLE_WEIGHT = 2.0;
+	private static final double AUTHOR_WEIGHT = 1.0;
+	private static final double PREFIX_SIMILARITY = 0.8;
+	private static final double MINIMUM_SIMILARITY = 0.3;
+	private static final int MINIMUM_PREFIX_LENGTH = 3;
+
+	private final Map<String, StoreIndex> indexes;
+
+	public BookSearchIndex(BookStoreProperties properties) {
+		this.indexes = Collections.synchronizedMap(new LruMap<>(properties.getSearch().getMaxIndexedStores()));
+	}
+
+	public List<Book> search(String storeId, String query, int limit, Supplier<Collection<Book>> books) {
+		List<String> terms = tokenize(query);
+		if (terms.isEmpty()) {
+			throw new IllegalArgumentException("Invalid search query " + query + ".");
+		}
+		if (limit < 1) {
+			throw new IllegalArgumentException("Invalid search limit " + limit + ".");
+		}
+
+		StoreIndex index = indexes.computeIfAbsent(storeId, id -> new StoreIndex());
+		synchronized (index) {
+			if (!index.built) {
+				index.build(books.get());
+			}
+			return index.search(terms, limit);
+		}
+	}
+
+	public void bookAdded(String storeId, Book book) {
+		StoreIndex index = indexes.get(storeId);
+		if (index != null) {
+			synchronized (index) {
+				if (index.built) {
+					index.add(book);
+				}
+			}
+		}
+	}
+
+	public void bookRemoved(String storeId, Book book) {
+		StoreIndex index = indexes.get(storeId);
+		if (index != null) {
+			synchronized (index) {
+				if (index.built) {
+					index.remove(book);
+				}
+			}
+		}
+	}
+
+	public void bookStoreDeleted(String storeId) {
+		indexes.remove(storeId);
+	}
+
+	// adding a book again replaces the words of its previous details
+	public void bookUpdated(String storeId, Book book) {
+		bookAdded(storeId, book);
+	}
+
+	static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null) {
+			return tokens;
+		}
+
+		String normalized = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+				.toLowerCase(Locale.ROOT);
+		int start = -1;
+		for (int i = 0; i <= normalized.length(); i++) {
+			boolean wordCharacter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+			if (wordCharacter && start < 0) {
+				start = i;
+			} else if (!wordCharacter && start >= 0) {
+				tokens.add(normalized.substring(start, i));
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	// trigrams of the word padded the way PostgreSQL's pg_trgm does, so short words and word starts still match
+	static Set<String> trigrams(String token) {
+		String padded = "  " + token + " ";
+		Set<String> trigrams = new HashSet<>();
+		for (int i = 0; i + 3 <= padded.length(); i++) {
+			trigrams.add(padded.substring(i, i + 3));
+		}
+		return trigrams;
+	}
+
+	private static class StoreIndex {
+		private volatile boolean built;
+
+		private final Map<String, Book> books = new HashMap<>();
+
+		private final Map<String, Set<String>> bookWords = new HashMap<>();
+
+		// word -> book id -> weight of the word in that book
+		private final TreeMap<String, Map<String, Double>> postings = new TreeMap<>();
+
+		private final Map<String, Set<String>> trigramWords = new HashMap<>();
+
+		void build(Collection<Book> books) {
+			for (Book book : books) {
+				add(book);
+			}
+			built = true;
+		}
+
+		void add(Book book) {
+			remove(book);
+			Map<String, Double> words = words(book);
+			books.put(book.getId(), book);
+			bookWords.put(book.getId(), words.keySet());
+			for (Map.Entry<String, Double> word : words.entrySet()) {
+				Map<String, Double> bookWeights = postings.get(word.getKey());
+				if (bookWeights == null) {
+					bookWeights = new HashMap<>();
+					postings.put(word.getKey(), bookWeights);
+					for (String trigram : trigrams(word.getKey())) {
+						trigramWords.computeIfAbsent(trigram, t -> new HashSet<>()).add(word.getKey());
+					}
+				}
+				bookWeights.put(book.getId(), word.getValue());
+			}
+		}
+
+		void remove(Book book) {
+			Book indexed = books.remove(book.getId());
+			if (indexed == null) {
+				return;
+			}
+			for (String word : bookWords.remove(indexed.getId())) {
+				Map<String, Double> bookWeights = postings.get(word);
+				bookWeights.remove(indexed.getId());
+				if (bookWeights.isEmpty()) {
+					postings.remove(word);
+					for (String trigram : trigrams(word)) {
+						Set<String> words = trigramWords.get(trigram);
+						words.remove(word);
+						if (words.isEmpty()) {
+							trigramWords.remove(trigram);
+						}
+					}
+				}
+			}
+		}
+
+		// a book scores the best similarity of any of its words to each query term, weighted by where the word is;
+		// among equal scores the book with fewer words is the closer match
+		List<Book> search(List<String> terms, int limit) {
+			Map<String, Double> scores = new HashMap<>();
+			for (String term : terms) {
+				Map<String, Double> termScores = new HashMap<>();
+				for (Map.Entry<String, Double> match : matchingWords(term).entrySet()) {
+					for (Map.Entry<String, Double> posting : postings.get(match.getKey()).entrySet()) {
+						termScores.merge(posting.getKey(), match.getValue() * posting.getValue(), Math::max);
+					}
+				}
+				termScores.forEach((bookId, score) -> scores.merge(bookId, score, Double::sum));
+			}
+
+			List<Book> results = new ArrayList<>();
+			scores.entrySet().stream()
+					.sorted(Map.Entry.<String, Double>comparingByValue().reversed()
+							.thenComparing(entry -> bookWords.get(entry.getKey()).size())
+							.thenComparing(entry -> books.get(entry.getKey()).getTitle(),
+									Comparator.nullsLast(Comparator.naturalOrder()))
+							.thenComparing(Map.Entry::getKey))
+					.limit(limit)
+					.forEach(entry -> results.add(books.get(entry.getKey())));
+			return results;
+		}
+
+		private Map<String, Double> matchingWords(String term) {
+			Map<String, Double> matches = new HashMap<>();
+
+			Set<String> termTrigrams = trigrams(term);
+			Map<String, Integer> sharedTrigrams = new HashMap<>();
+			for (String trigram : termTrigrams) {
+				for (String word : trigramWords.getOrDefault(trigram, Collections.emptySet())) {
+					sharedTrigrams.merge(word, 1, Integer::sum);
+				}
+			}
+			for (Map.Entry<String, Integer> shared : sharedTrigrams.entrySet()) {
+				int union = termTrigrams.size() + trigrams(shared.getKey()).size() - shared.getValue();
+				double similarity = shared.getValue() / (double) union;
+				if (similarity >= MINIMUM_SIMILARITY) {
+					matches.put(shared.getKey(), similarity);
+				}
+			}
+
+			if (term.length() >= MINIMUM_PREFIX_LENGTH) {
+				SortedMap<String, Map<String, Double>> prefixed = postings.subMap(term, term + Character.MAX_VALUE);
+				for (String word : prefixed.keySet()) {
+					matches.merge(word, PREFIX_SIMILARITY, Math::max);
+				}
+			}
+
+			if (postings.containsKey(term)) {
+				matches.put(term, 1.0);
+			}
+			return matches;
+		}
+
+		private static Map<String, Double> words(Book book) {
+			Map<String, Double> words = new HashMap<>();
+			for (String word : tokenize(book.getAuthor())) {
+				words.merge(word, AUTHOR_WEIGHT, Math::max);
+			}
+			for (String word : tokenize(book.getTitle())) {
+				words.merge(word, TITLE_WEIGHT, Math::max);
+			}
+			return words;
+		}
+	}
+}
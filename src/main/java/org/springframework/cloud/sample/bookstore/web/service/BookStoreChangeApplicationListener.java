@@ -0,0 +1,35 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BookStoreChangeApplicationListener implements ApplicationListener<ApplicationReadyEvent> {
+	private BookStoreChangeService changeService;
+
+	public BookStoreChangeApplicationListener(BookStoreChangeService changeService) {
+		this.changeService = changeService;
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		changeService.initializeSequences();
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreChange;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreChange.Type;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreChangeSequence;
+import org.springframework.cloud.sample.bookstore.web.repository.BookStoreChangeRepository;
+import org.springframework.cloud.sample.bookstore.web.repository.BookStoreChangeSequenceRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Every change to a store's books is recorded in the transaction that makes it, with the next sequence number of
+// that store. The sequence row stays locked until the change is committed, so changes become visible in sequence
+// order and a reader never skips one. Only the most recent changes of each store are retained.
+@Service
+public class BookStoreChangeService {
+	private final BookStoreChangeRepository changeRepository;
+	private final BookStoreChangeSequenceRepository sequenceRepository;
+	private final BookStoreProperties properties;
+	private final ApplicationEventPublisher eventPublisher;
+
+	public BookStoreChangeService(BookStoreChangeRepository changeRepository,
+								  BookStoreChangeSequenceRepository sequenceRepository, BookStoreProperties properties,
+								  ApplicationEventPublisher eventPublisher) {
+		this.changeRepository = changeRepository;
+		this.sequenceRepository = sequenceRepository;
+		this.properties = properties;
+		this.eventPublisher = eventPublisher;
+	}
+
+	@Transactional
+	public void initializeSequences() {
+		sequenceRepository.createMissingSequences();
+	}
+
+	// a store created again carries on with its sequence, so that a reader's cursor never matches a later change
+	@Transactional
+	public void bookStoreCreated(String storeId) {
+		if (!sequenceRepository.existsById(storeId)) {
+			sequenceRepository.save(new BookStoreChangeSequence(storeId));
+		}
+	}
+
+	@Transactional
+	public void bookStoreDeleted(String storeId) {
+		changeRepository.deleteByStoreId(storeId);
+		if (sequenceRepository.existsById(storeId)) {
+			sequenceRepository.deleteById(storeId);
+		}
+	}
+
+	@Transactional
+	public void recordAdded(String storeId, Book book) {
+		sequenceRepository.findByIdForUpdate(storeId)
+				.ifPresent(sequence -> append(sequence, Type.ADDED, book));
+	}
+
+	@Transactional
+	public void recordRemoved(String storeId, Book book) {
+		sequenceRepository.findByIdForUpdate(storeId)
+				.ifPresent(sequence -> append(sequence, Type.REMOVED, book));
+	}
+
+	@Transactional
+	public void recordUpdated(String storeId, Book book) {
+		sequenceRepository.findByIdForUpdate(storeId)
+				.ifPresent(sequence -> append(sequence, Type.UPDATED, book));
+	}
+
+	public long getLastSequence(String storeId) {
+		return getSequence(storeId).getLastSequence();
+	}
+
+	public BookStoreChanges getChanges(String storeId, long since, int limit) {
+		if (since < 0) {
+			throw new IllegalArgumentException("Invalid sequence " + since + ".");
+		}
+		if (limit < 1) {
+			throw new IllegalArgumentException("Invalid number of changes " + limit + ".");
+		}
+
+		BookStoreChangeSequence sequence = getSequence(storeId);
+		if (since < sequence.getCompactedSequence()) {
+			throw new ChangesCompactedException(storeId, since, sequence.getCompactedSequence());
+		}
+		List<BookStoreChange> changes = changeRepository.findByStoreIdAndSequenceGreaterThanOrderBySequence(
+				storeId, since, PageRequest.of(0, limit));
+		return new BookStoreChanges(storeId, since, sequence.getLastSequence(), changes);
+	}
+
+	private BookStoreChangeSequence getSequence(String storeId) {
+		return sequenceRepository.findById(storeId)
+				.orElseThrow(() -> new IllegalArgumentException("Invalid book store ID " + storeId + "."));
+	}
+
+	private void append(BookStoreChangeSequence sequence, Type type, Book book) {
+		long next = sequence.next();
+		BookStoreChange change = changeRepository.save(new BookStoreChange(sequence.getStoreId(), next, type, book));
+		// delivered to BookStoreEventHub once the transaction commits
+		eventPublisher.publishEvent(change);
+
+		// compact in batches rather than deleting one old change on every write
+		int retained = properties.getChanges().getRetainedPerStore();
+		long compactBefore = next - retained;
+		if (compactBefore - sequence.getCompactedSequence() >= Math.max(1, retained / 10)) {
+			changeRepository.deleteThrough(sequence.getStoreId(), compactBefore);
+			sequence.compactedThrough(compactBefore);
+		}
+		sequenceRepository.save(sequence);
+	}
+
+	public static class BookStoreChanges {
+		private final String storeId;
+		private final long since;
+		private final long lastSequence;
+		private final List<BookStoreChange> changes;
+
+		BookStoreChanges(String storeId, long since, long lastSequence, List<BookStoreChange> changes) {
+			this.storeId = storeId;
+			this.since = since;
+			this.lastSequence = lastSequence;
+			this.changes = changes;
+		}
+
+		public String getStoreId() {
+			return storeId;
+		}
+
+		public long getSince() {
+			return since;
+		}
+
+		public long getLastSequence() {
+			return lastSequence;
+		}
+
+		public List<BookStoreChange> getChanges() {
+			return changes;
+		}
+
+		// the sequence to ask for next; equal to the last sequence once the reader has caught up
+		public long getNextSince() {
+			return changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+		}
+	}
+}
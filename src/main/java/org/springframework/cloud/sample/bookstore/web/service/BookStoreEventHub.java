@@ -0,0 +1,345 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.config.VirtualThreads;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreChange;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pushes committed store changes to server-sent event subscribers. Publishing only appends to each subscriber's
+// queue, and the queues are written out by delivery threads. Writes block until the client takes the data, so each
+// subscriber is drained by one task at a time on a thread of its own while it is being written to: a stalled client
+// holds up its own thread, not a change or other subscribers. A subscriber whose queue fills up, or whose write has
+// not finished within the write timeout, is disconnected and can resume from the change feed with Last-Event-ID;
+// its thread is only freed once the container gives up on the write. The delivery threads are bounded, so while they
+// are all taken and their queue is full, new subscribers are turned away and those with events to send are
+// disconnected.
+// Changes reach the hub in the order their transactions' after-commit listeners run, which need not be the order of
+// their sequences; a change that arrives ahead of one not yet sent is preceded by the missing ones from the feed.
+@Service
+public class BookStoreEventHub implements DisposableBean {
+	private static final Object HEARTBEAT = new Object();
+	private static final int REPLAY_PAGE_SIZE = 100;
+
+	private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+	private final BookStoreProperties properties;
+	private final BookStoreChangeService changeService;
+	private final ExecutorService deliveryExecutor;
+	private final ScheduledExecutorService heartbeatExecutor;
+
+	public BookStoreEventHub(BookStoreProperties properties, BookStoreChangeService changeService) {
+		this.properties = properties;
+		this.changeService = changeService;
+		// at most one thread per subscriber being written to, reused once the write is done; a stalled write only
+		// holds a virtual thread
+		this.deliveryExecutor = properties.isVirtualThreads() ?
+				VirtualThreads.newThreadPerTaskExecutor("bookstore-events-") :
+				newDeliveryExecutor(properties.getEvents());
+		this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(daemonThreads("bookstore-heartbeat-"));
+		long heartbeatMillis = properties.getEvents().getHeartbeatInterval().toMillis();
+		heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis,
+				TimeUnit.MILLISECONDS);
+		long writeCheckMillis = Math.max(1, properties.getEvents().getWriteTimeout().toMillis() / 2);
+		heartbeatExecutor.scheduleWithFixedDelay(this::evictStalledWrites, writeCheckMillis, writeCheckMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	// events published before start() are held back, so that changes replayed from the feed are sent first
+	public Subscriber subscribe(String storeId, long lastSequence) {
+		SseEmitter emitter = new SseEmitter(properties.getEvents().getTimeout().toMillis());
+		return subscribe(storeId, lastSequence, emitter);
+	}
+
+	Subscriber subscribe(String storeId, long lastSequence, SseEmitter emitter) {
+		Subscriber subscriber = new Subscriber(storeId, lastSequence, emitter);
+		subscribers.compute(storeId, (id, storeSubscribers) -> {
+			Set<Subscriber> updated = storeSubscribers == null ? ConcurrentHashMap.newKeySet() : storeSubscribers;
+			updated.add(subscriber);
+			return updated;
+		});
+		emitter.onCompletion(subscriber::close);
+		emitter.onTimeout(subscriber::close);
+		emitter.onError(e -> subscriber.close());
+		return subscriber;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void changeCommitted(BookStoreChange change) {
+		Set<Subscriber> storeSubscribers = subscribers.get(change.getStoreId());
+		if (storeSubscribers != null) {
+			for (Subscriber subscriber : storeSubscribers) {
+				subscriber.publish(change);
+			}
+		}
+	}
+
+	public void bookStoreDeleted(String storeId) {
+		Set<Subscriber> storeSubscribers = subscribers.remove(storeId);
+		if (storeSubscribers != null) {
+			storeSubscribers.forEach(Subscriber::complete);
+		}
+	}
+
+	public int getSubscriberCount() {
+		return subscribers.values().stream().mapToInt(Set::size).sum();
+	}
+
+	@Override
+	public void destroy() {
+		heartbeatExecutor.shutdownNow();
+		deliveryExecutor.shutdownNow();
+		subscribers.values().forEach(storeSubscribers -> storeSubscribers.forEach(Subscriber::complete));
+	}
+
+	private void heartbeat() {
+		subscribers.values().forEach(storeSubscribers -> storeSubscribers.forEach(Subscriber::heartbeat));
+	}
+
+	private void evictStalledWrites() {
+		long writeTimeoutNanos = properties.getEvents().getWriteTimeout().toNanos();
+		subscribers.values().forEach(storeSubscribers ->
+				storeSubscribers.forEach(subscriber -> subscriber.evictIfStalled(writeTimeoutNanos)));
+	}
+
+	private static ExecutorService newDeliveryExecutor(BookStoreProperties.Events events) {
+		int queueSize = events.getDeliveryQueueSize();
+		BlockingQueue<Runnable> queue = queueSize > 0 ? new LinkedBlockingQueue<>(queueSize) : new SynchronousQueue<>();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(events.getDeliveryThreads(), events.getDeliveryThreads(),
+				60, TimeUnit.SECONDS, queue, daemonThreads("bookstore-events-"));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static ThreadFactory daemonThreads(String prefix) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	public class Subscriber {
+		private final String storeId;
+		private final SseEmitter emitter;
+
+		// an idle subscriber holds no buffer; the queue only grows while events are waiting to be written
+		private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger queued = new AtomicInteger();
+		private final AtomicBoolean draining = new AtomicBoolean();
+		private final AtomicBoolean closed = new AtomicBoolean();
+		private volatile boolean started;
+		private volatile boolean writing;
+		private volatile long writeStarted;
+		// every change up to this one has been sent
+		private long lastSequence;
+
+		Subscriber(String storeId, long lastSequence, SseEmitter emitter) {
+			this.storeId = storeId;
+			this.lastSequence = lastSequence;
+			this.emitter = emitter;
+		}
+
+		public SseEmitter getEmitter() {
+			return emitter;
+		}
+
+		// throws RejectedExecutionException, having closed the subscriber, while there is no room for its delivery
+		public void start(Collection<BookStoreChange> replayed) {
+			try {
+				deliveryExecutor.execute(() -> {
+					for (BookStoreChange change : replayed) {
+						if (!send(change)) {
+							return;
+						}
+					}
+					started = true;
+					drain();
+				});
+			} catch (RejectedExecutionException e) {
+				close();
+				throw e;
+			}
+		}
+
+		public void cancel() {
+			close();
+			complete();
+		}
+
+		void publish(Object event) {
+			if (closed.get()) {
+				return;
+			}
+			if (queued.incrementAndGet() > properties.getEvents().getBufferSize()) {
+				cancel();
+				return;
+			}
+			queue.add(event);
+			if (started) {
+				drain();
+			}
+		}
+
+		private void heartbeat() {
+			if (queued.get() == 0) {
+				publish(HEARTBEAT);
+			}
+		}
+
+		private void evictIfStalled(long writeTimeoutNanos) {
+			if (writing && System.nanoTime() - writeStarted > writeTimeoutNanos) {
+				cancel();
+			}
+		}
+
+		private void drain() {
+			if (!draining.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				deliveryExecutor.execute(() -> {
+					try {
+						Object event;
+						while ((event = queue.poll()) != null) {
+							queued.decrementAndGet();
+							if (!send(event)) {
+								return;
+							}
+						}
+					} finally {
+						draining.set(false);
+					}
+					if (!queue.isEmpty()) {
+						drain();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				draining.set(false);
+				cancel();
+			}
+		}
+
+		private boolean send(Object event) {
+			if (closed.get()) {
+				return false;
+			}
+			try {
+				if (event == HEARTBEAT) {
+					write(SseEmitter.event().comment("heartbeat"));
+				} else {
+					BookStoreChange change = (BookStoreChange) event;
+					// changes replayed from the feed may also have been published while the feed was read
+					if (change.getSequence() <= lastSequence) {
+						return true;
+					}
+					if (change.getSequence() > lastSequence + 1) {
+						sendMissed(change.getSequence());
+					}
+					sendChange(change);
+				}
+				return true;
+			} catch (IOException | RuntimeException e) {
+				close();
+				emitter.completeWithError(e);
+				return false;
+			}
+		}
+
+		// Sequences are taken under a lock held until the transaction commits, so the changes ahead of one that has
+		// been published are already in the feed. Once the feed has been compacted past them, reading it fails and
+		// the subscriber is disconnected, just as a client resuming from there would be turned away.
+		private void sendMissed(long sequence) throws IOException {
+			while (lastSequence < sequence - 1) {
+				List<BookStoreChange> missed =
+						changeService.getChanges(storeId, lastSequence, REPLAY_PAGE_SIZE).getChanges();
+				if (missed.isEmpty()) {
+					return;
+				}
+				for (BookStoreChange change : missed) {
+					if (change.getSequence() >= sequence) {
+						return;
+					}
+					sendChange(change);
+				}
+			}
+		}
+
+		private void sendChange(BookStoreChange change) throws IOException {
+			lastSequence = change.getSequence();
+			write(SseEmitter.event()
+					.id(Long.toString(change.getSequence()))
+					.name("book-" + change.getType().name().toLowerCase(Locale.ROOT))
+					.data(change));
+		}
+
+		private void write(SseEmitter.SseEventBuilder event) throws IOException {
+			writeStarted = System.nanoTime();
+			writing = true;
+			try {
+				emitter.send(event);
+			} finally {
+				writing = false;
+			}
+		}
+
+		// the emitter is locked for as long as a write is in progress, so completing it is left to a delivery
+		// thread rather than held up in the caller
+		private void complete() {
+			try {
+				deliveryExecutor.execute(emitter::complete);
+			} catch (RejectedExecutionException e) {
+				emitter.complete();
+			}
+		}
+
+		private void close() {
+			if (closed.compareAndSet(false, true)) {
+				subscribers.computeIfPresent(storeId, (id, storeSubscribers) -> {
+					storeSubscribers.remove(this);
+					return storeSubscribers.isEmpty() ? null : storeSubscribers;
+				});
+			}
+		}
+	}
+}
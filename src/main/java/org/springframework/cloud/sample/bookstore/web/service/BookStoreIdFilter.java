@@ -0,0 +1,249 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.repository.BookStoreRepository;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// a Bloom filter of the existing store IDs, so that requests for unknown stores are mostly rejected without a
+// database query; until it is built at startup every ID might be a store. It only hears of the stores this instance
+// creates, so when other instances share the database (bookstore.id-filter.shared-database=true) a miss is checked
+// there with a key lookup, and a store found there is added.
+@Component
+public class BookStoreIdFilter implements ApplicationListener<ApplicationReadyEvent>, MeterBinder {
+	private final BookStoreRepository repository;
+	private final BookStoreProperties properties;
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong falsePositives = new AtomicLong();
+	private final AtomicLong missed = new AtomicLong();
+	private final Set<String> uncommitted = ConcurrentHashMap.newKeySet();
+
+	private volatile Filter filter;
+
+	// guarded by this; receives the stores created while it is filled from the database
+	private Filter building;
+
+	public BookStoreIdFilter(BookStoreRepository repository, BookStoreProperties properties) {
+		this.repository = repository;
+		this.properties = properties;
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		rebuild();
+	}
+
+	public boolean mightContain(String storeId) {
+		Filter current = filter;
+		if (current == null || current.mightContain(storeId)) {
+			return true;
+		}
+		if (properties.getIdFilter().isSharedDatabase() && repository.existsById(storeId)) {
+			missed.incrementAndGet();
+			bookStoreFound(storeId);
+			return true;
+		}
+		rejected.incrementAndGet();
+		return false;
+	}
+
+	// called before the store is committed, so that it is never rejected once it can be found; until then a rebuild
+	// would not find it in the database
+	public void bookStoreCreated(String storeId) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			uncommitted.add(storeId);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					uncommitted.remove(storeId);
+				}
+			});
+		}
+
+		bookStoreFound(storeId);
+	}
+
+	// deleted stores cannot be taken out of a Bloom filter; they stay in it, counting towards its capacity, until it
+	// is rebuilt
+	public void bookStoreNotFound(String storeId) {
+		if (filter != null) {
+			falsePositives.incrementAndGet();
+		}
+	}
+
+	public void rebuild() {
+		if (!properties.getIdFilter().isEnabled()) {
+			return;
+		}
+		Filter rebuilding;
+		synchronized (this) {
+			if (building != null) {
+				return;
+			}
+			rebuilding = startRebuild();
+		}
+		finishRebuild(rebuilding);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("bookstore.id.filter.rejected", rejected, AtomicLong::get)
+				.description("Requests for unknown book stores rejected by the filter")
+				.register(registry);
+		FunctionCounter.builder("bookstore.id.filter.false.positives", falsePositives, AtomicLong::get)
+				.description("Unknown book stores the filter did not rule out")
+				.register(registry);
+		FunctionCounter.builder("bookstore.id.filter.missed", missed, AtomicLong::get)
+				.description("Book stores created by other instances that the filter ruled out")
+				.register(registry);
+		Gauge.builder("bookstore.id.filter.false.positive.rate", this, BookStoreIdFilter::getFalsePositiveRate)
+				.description("Estimated share of unknown book store IDs the filter does not rule out")
+				.register(registry);
+	}
+
+	public double getFalsePositiveRate() {
+		Filter current = filter;
+		return current != null ? current.getFalsePositiveRate() : 1.0;
+	}
+
+	private void bookStoreFound(String storeId) {
+		Filter rebuilding = null;
+		synchronized (this) {
+			Filter current = filter;
+			if (current != null) {
+				current.add(storeId);
+			}
+			if (building != null) {
+				building.add(storeId);
+			} else if (current != null && current.isFull()) {
+				rebuilding = startRebuild();
+				rebuilding.add(storeId);
+			}
+		}
+		if (rebuilding != null) {
+			finishRebuild(rebuilding);
+		}
+	}
+
+	// sized for twice the current stores, so that it is not rebuilt again soon
+	private Filter startRebuild() {
+		BookStoreProperties.IdFilter config = properties.getIdFilter();
+		long capacity = Math.max(Math.max(1, config.getExpectedStores()), 2 * repository.count());
+		building = new Filter((int) Math.min(capacity, Integer.MAX_VALUE / 16), config.getFalsePositiveRate());
+		return building;
+	}
+
+	private void finishRebuild(Filter rebuilding) {
+		try {
+			// read first, as a store no longer uncommitted is in the database by then
+			uncommitted.forEach(rebuilding::add);
+			for (String storeId : repository.findAllIds()) {
+				rebuilding.add(storeId);
+			}
+			synchronized (this) {
+				filter = rebuilding;
+			}
+		} finally {
+			synchronized (this) {
+				building = null;
+			}
+		}
+	}
+
+	private static class Filter {
+		private final AtomicLongArray bits;
+		private final long bitCount;
+		private final int hashCount;
+		private final int capacity;
+		private final AtomicInteger size = new AtomicInteger();
+
+		Filter(int capacity, double falsePositiveRate) {
+			long bitCount = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+			this.bits = new AtomicLongArray((int) Math.max(1, (bitCount + 63) / 64));
+			this.bitCount = bits.length() * 64L;
+			this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / capacity * Math.log(2)));
+			this.capacity = capacity;
+		}
+
+		void add(String storeId) {
+			long hash = hash(storeId);
+			for (int i = 0; i < hashCount; i++) {
+				long bit = bitIndex(hash, i);
+				long mask = 1L << bit;
+				bits.accumulateAndGet((int) (bit >>> 6), mask, (word, added) -> word | added);
+			}
+			size.incrementAndGet();
+		}
+
+		boolean mightContain(String storeId) {
+			long hash = hash(storeId);
+			for (int i = 0; i < hashCount; i++) {
+				long bit = bitIndex(hash, i);
+				if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		boolean isFull() {
+			return size.get() > capacity;
+		}
+
+		double getFalsePositiveRate() {
+			long set = 0;
+			for (int i = 0; i < bits.length(); i++) {
+				set += Long.bitCount(bits.get(i));
+			}
+			return Math.pow((double) set / bitCount, hashCount);
+		}
+
+		// the hashes are derived from the two halves of one 64-bit hash
+		private long bitIndex(long hash, int i) {
+			int combined = (int) hash + i * (int) (hash >>> 32);
+			return (combined & 0xffffffffL) % bitCount;
+		}
+
+		// FNV-1a with a final mix, as String.hashCode only has 32 bits
+		private static long hash(String storeId) {
+			long hash = 0xcbf29ce484222325L;
+			for (int i = 0; i < storeId.length(); i++) {
+				hash ^= storeId.charAt(i);
+				hash *= 0x100000001b3L;
+			}
+			hash ^= hash >>> 33;
+			hash *= 0xff51afd7ed558ccdL;
+			hash ^= hash >>> 33;
+			return hash;
+		}
+	}
+}
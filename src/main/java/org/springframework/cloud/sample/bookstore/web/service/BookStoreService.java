@@ -16,51 +16,253 @@
 
 package org.springframework.cloud.sample.bookstore.web.service;
 
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties.DuplicateIsbns;
 import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookCatalogEntry;
+import org.springframework.cloud.sample.bookstore.web.model.BookOperation;
 import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreChange;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreAuthorCount;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreStatistics;
+import org.springframework.cloud.sample.bookstore.web.model.Isbn;
 import org.springframework.cloud.sample.bookstore.web.repository.BookStoreRepository;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreChangeService.BookStoreChanges;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreEventHub.Subscriber;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.IdGenerator;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.Optional;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 
 @Service
 public class BookStoreService {
+	private static final int REPLAY_PAGE_SIZE = 500;
+	private static final int MAX_UPDATE_ATTEMPTS = 3;
+
 	private BookStoreRepository repository;
+	private final BookStoreIdFilter idFilter;
+	private final BookCatalogService catalogService;
+	private final BookSearchIndex searchIndex;
+	private final BookStoreStatisticsService statisticsService;
+	private final BookStoreChangeService changeService;
+	private final BookStoreEventHub eventHub;
+	private final BookStoreProperties properties;
+	private final IdGenerator idGenerator;
+	private final TransactionTemplate updateTransaction;
+	private final Map<String, CompletableFuture<BookStore>> bookStoreLoads = new ConcurrentHashMap<>();
 
-	public BookStoreService(BookStoreRepository bookStoreRepository) {
+	public BookStoreService(BookStoreRepository bookStoreRepository, BookStoreIdFilter idFilter,
+							BookCatalogService catalogService, BookSearchIndex searchIndex, BookStoreStatisticsService statisticsService,
+							BookStoreChangeService changeService, BookStoreEventHub eventHub,
+							BookStoreProperties properties, IdGenerator idGenerator,
+							PlatformTransactionManager transactionManager) {
 		this.repository = bookStoreRepository;
+		this.idFilter = idFilter;
+		this.catalogService = catalogService;
+		this.searchIndex = searchIndex;
+		this.statisticsService = statisticsService;
+		this.changeService = changeService;
+		this.eventHub = eventHub;
+		this.properties = properties;
+		this.idGenerator = idGenerator;
+		this.updateTransaction = new TransactionTemplate(transactionManager);
 	}
 
+	// A store created again starts out empty, but keeps counting versions so that earlier ETags never match it. Its
+	// books are removed as a REMOVE operation removes them, so that the changes, events, statistics and search index
+	// follow, and its changes carry on with the same sequence.
+	@Transactional
 	public BookStore createBookStore(String storeId) {
-		BookStore bookStore = new BookStore(storeId);
+		BookStore bookStore = repository.findById(storeId).orElse(null);
+		idFilter.bookStoreCreated(storeId);
+		changeService.bookStoreCreated(storeId);
+		if (bookStore == null) {
+			bookStore = repository.save(new BookStore(storeId));
+			statisticsService.bookStoreCreated(storeId);
+		} else if (!bookStore.getBooks().isEmpty()) {
+			catalogService.resolve(bookStore.getBooks());
+			StoreChanges changes = new StoreChanges();
+			bookStore.getBooks().forEach(changes::removed);
+			bookStore.getBooks().clear();
+			repository.saveAndFlush(bookStore);
+			recordChanges(storeId, changes);
+		}
+		bookStoreChanged(storeId);
 
-		return repository.save(bookStore);
+		return bookStore;
 	}
 
 	public BookStore createBookStore() {
-		return createBookStore(generateRandomId());
+		return createBookStore(generateId());
 	}
 
+	// Concurrent reads of a store share one load, so outside a transaction the store returned is a snapshot that
+	// cannot be modified and is not attached to the loading thread's persistence context. Within a transaction the
+	// store is the transaction's own.
 	public BookStore getBookStore(String storeId) {
-		Optional<BookStore> store = repository.findById(storeId);
-		return store.orElseThrow(() -> new IllegalArgumentException("Invalid book store ID " + storeId + "."));
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return loadBookStore(storeId);
+		}
+
+		CompletableFuture<BookStore> load = new CompletableFuture<>();
+		CompletableFuture<BookStore> inFlight = bookStoreLoads.putIfAbsent(storeId, load);
+		if (inFlight != null) {
+			try {
+				return inFlight.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+			}
+		}
+
+		try {
+			BookStore bookStore = loadBookStore(storeId).snapshot();
+			load.complete(bookStore);
+			return bookStore;
+		} catch (RuntimeException | Error e) {
+			load.completeExceptionally(e);
+			throw e;
+		} finally {
+			bookStoreLoads.remove(storeId, load);
+		}
 	}
 
 	public void deleteBookStore(String id) {
 		repository.deleteById(id);
+		bookStoreChanged(id);
+		searchIndex.bookStoreDeleted(id);
+		statisticsService.bookStoreDeleted(id);
+		changeService.bookStoreDeleted(id);
+		eventHub.bookStoreDeleted(id);
+	}
+
+	public long getVersion(String storeId) {
+		checkBookStoreId(storeId);
+		Long version = repository.findVersionById(storeId);
+		if (version == null) {
+			throw bookStoreNotFound(storeId);
+		}
+		return version;
 	}
 
 	public Book putBookInStore(String storeId, Book book) {
-		String bookId = generateRandomId();
-		Book bookWithId = new Book(bookId, book);
+		return putBookInStore(storeId, book, null);
+	}
 
-		BookStore store = getBookStore(storeId);
-		store.addBook(bookWithId);
+	// expectedVersions, when given, are the versions the caller has seen; the book is only added to one of those.
+	// They are checked before the catalog entry is registered, and again in the transaction that adds the book.
+	public Book putBookInStore(String storeId, Book book, Set<Long> expectedVersions) {
+		String isbn = Isbn.toIsbn13(book.getIsbn());
+		checkVersion(storeId, getVersion(storeId), expectedVersions);
+
+		BookCatalogEntry catalogEntry = catalogService.register(isbn, book.getTitle(), book.getAuthor());
+		return updateBookStore(storeId, expectedVersions,
+				(store, changes) -> addBook(store, isbn, catalogEntry, changes));
+	}
+
+	// The operations are applied in order in one transaction, and the store is saved once. A failed operation, such as
+	// removing an unknown book, is reported in its result and leaves the other operations in place. As for a single
+	// book, the catalog entries are registered before the transaction, and the versions are checked again in it.
+	public List<BookOperationResult> applyBookOperations(String storeId, List<BookOperation> operations,
+														 Set<Long> expectedVersions) {
+		int maxOperations = properties.getBatch().getMaxOperations();
+		if (operations.size() > maxOperations) {
+			throw new IllegalArgumentException("A batch can have at most " + maxOperations + " operations.");
+		}
+		checkVersion(storeId, getVersion(storeId), expectedVersions);
+
+		List<BookCatalogEntry> catalogEntries = registerCatalogEntries(operations);
+		return updateBookStore(storeId, expectedVersions, (store, changes) -> {
+			List<BookOperationResult> results = new ArrayList<>(operations.size());
+			for (int i = 0; i < operations.size(); i++) {
+				BookOperation operation = operations.get(i);
+				try {
+					Book book;
+					switch (operation.getType()) {
+						case ADD:
+							String isbn = Isbn.toIsbn13(operation.getIsbn());
+							book = addBook(store, isbn, catalogEntries.get(i), changes);
+							break;
+						case REMOVE:
+							book = store.remove(operation.getId()).orElseThrow(() -> invalidBookId(storeId, operation));
+							changes.removed(book);
+							break;
+						default:
+							book = store.getBookById(operation.getId())
+									.orElseThrow(() -> invalidBookId(storeId, operation));
+					}
+					results.add(BookOperationResult.succeeded(operation, book));
+				} catch (IllegalArgumentException | DuplicateIsbnException e) {
+					results.add(BookOperationResult.failed(operation, e));
+				}
+			}
+			return results;
+		});
+	}
 
-		repository.save(store);
+	// an operation other than ADD has no entry, and neither has an ADD with an invalid ISBN, which fails when applied
+	private List<BookCatalogEntry> registerCatalogEntries(List<BookOperation> operations) {
+		List<BookCatalogEntry> catalogEntries = new ArrayList<>(operations.size());
+		for (BookOperation operation : operations) {
+			BookCatalogEntry catalogEntry = null;
+			if (operation.getType() == BookOperation.Type.ADD) {
+				try {
+					catalogEntry = catalogService.register(Isbn.toIsbn13(operation.getIsbn()), operation.getTitle(),
+							operation.getAuthor());
+				} catch (IllegalArgumentException e) {
+					// reported in the operation's result
+				}
+			}
+			catalogEntries.add(catalogEntry);
+		}
+		return catalogEntries;
+	}
+
+	// With merged duplicates a book for an ISBN the store already holds changes the details of the store's books
+	// with that ISBN instead; the books of other stores keep the entry they refer to.
+	private Book addBook(BookStore store, String isbn, BookCatalogEntry catalogEntry, StoreChanges changes) {
+		DuplicateIsbns duplicateIsbns = properties.getDuplicateIsbns();
+		List<Book> existingBooks = duplicateIsbns == DuplicateIsbns.ALLOW ? Collections.emptyList() :
+				store.getBooks().stream().filter(book -> book.getCatalogEntry().hasSameIsbn(catalogEntry))
+						.collect(Collectors.toList());
+		if (existingBooks.isEmpty()) {
+			Book book = new Book(generateId(), catalogEntry);
+			store.addBook(book);
+			changes.added(book);
+			return book;
+		}
+		if (duplicateIsbns == DuplicateIsbns.REJECT) {
+			throw new DuplicateIsbnException(store.getId(), isbn);
+		}
 
-		return bookWithId;
+		for (Book book : existingBooks) {
+			if (book.getCatalogEntry().getId() != catalogEntry.getId()) {
+				changes.updated(book, book.getCatalogEntry());
+				book.setCatalogEntry(catalogEntry);
+			}
+		}
+		return existingBooks.get(0);
 	}
 
 	public Book getBookFromStore(String storeId, String bookId) {
@@ -69,13 +271,234 @@ public class BookStoreService {
 				.orElseThrow(() -> new IllegalArgumentException("Invalid book ID " + storeId + ":" + bookId + "."));
 	}
 
+	// only the requested books are read, with one query; an unknown ID fails on its own like a GET operation would
+	public List<BookOperationResult> getBooksFromStore(String storeId, List<String> bookIds) {
+		int maxOperations = properties.getBatch().getMaxOperations();
+		if (bookIds.size() > maxOperations) {
+			throw new IllegalArgumentException("At most " + maxOperations + " books can be requested at once.");
+		}
+		checkBookStoreId(storeId);
+		if (!repository.existsById(storeId)) {
+			throw bookStoreNotFound(storeId);
+		}
+
+		Map<String, Book> books = new HashMap<>();
+		if (!bookIds.isEmpty()) {
+			for (Book book : repository.findBooksByIds(storeId, new HashSet<>(bookIds))) {
+				books.putIfAbsent(book.getId(), book);
+			}
+		}
+		catalogService.resolve(books.values());
+
+		List<BookOperationResult> results = new ArrayList<>(bookIds.size());
+		for (String bookId : bookIds) {
+			BookOperation operation = BookOperation.get(bookId);
+			Book book = books.get(bookId);
+			results.add(book != null ? BookOperationResult.succeeded(operation, book) :
+					BookOperationResult.failed(operation, invalidBookId(storeId, operation)));
+		}
+		return results;
+	}
+
+	public List<Book> getBooksByIsbn(String storeId, String isbn) {
+		checkBookStoreId(storeId);
+		if (!repository.existsById(storeId)) {
+			throw bookStoreNotFound(storeId);
+		}
+		List<Book> books = repository.findBooksByIsbn(storeId, Isbn.toIsbn13(isbn));
+		catalogService.resolve(books);
+		return books;
+	}
+
+	public List<Book> searchBooks(String storeId, String query, int limit) {
+		return searchIndex.search(storeId, query, limit, () -> getBookStore(storeId).getBooks());
+	}
+
+	public BookStoreStatistics getStatistics(String storeId) {
+		return statisticsService.getStatistics(storeId, () -> getBookStore(storeId));
+	}
+
+	public List<BookStoreAuthorCount> getTopAuthors(String storeId, int limit) {
+		return statisticsService.getTopAuthors(storeId, limit);
+	}
+
+	public long getChangeSequence(String storeId) {
+		checkBookStoreId(storeId);
+		return changeService.getLastSequence(storeId);
+	}
+
+	public BookStoreChanges getChanges(String storeId, long since, int limit) {
+		checkBookStoreId(storeId);
+		return changeService.getChanges(storeId, since, limit);
+	}
+
+	// without a Last-Event-ID the subscriber only receives changes made from now on
+	public SseEmitter subscribe(String storeId, Long lastEventId) {
+		checkBookStoreId(storeId);
+		long since = lastEventId != null ? lastEventId : changeService.getLastSequence(storeId);
+		Subscriber subscriber = eventHub.subscribe(storeId, since);
+		try {
+			List<BookStoreChange> replayed = new ArrayList<>();
+			if (lastEventId != null) {
+				BookStoreChanges changes;
+				do {
+					changes = changeService.getChanges(storeId, since, REPLAY_PAGE_SIZE);
+					replayed.addAll(changes.getChanges());
+					since = changes.getNextSince();
+				} while (changes.getChanges().size() == REPLAY_PAGE_SIZE);
+			}
+			subscriber.start(replayed);
+		} catch (RuntimeException e) {
+			subscriber.cancel();
+			throw e;
+		}
+		return subscriber.getEmitter();
+	}
+
 	public Book removeBookFromStore(String storeId, String bookId) {
-		BookStore store = getBookStore(storeId);
-		return store.remove(bookId)
-				.orElseThrow(() -> new IllegalArgumentException("Invalid book ID " + storeId + ":" + bookId + "."));
+		return removeBookFromStore(storeId, bookId, null);
+	}
+
+	public Book removeBookFromStore(String storeId, String bookId, Set<Long> expectedVersions) {
+		return updateBookStore(storeId, expectedVersions, (store, changes) -> {
+			Book book = store.remove(bookId)
+					.orElseThrow(() -> new IllegalArgumentException("Invalid book ID " + storeId + ":" + bookId + "."));
+			changes.removed(book);
+			return book;
+		});
+	}
+
+	// Every attempt is one transaction, in which the statistics and the change records follow the saved store. The
+	// store version is checked again when the store is flushed, so a concurrent change is never overwritten; an
+	// unconditional update is simply applied again to the newer store. Within a surrounding transaction there is
+	// only one attempt, as the failed flush has marked that transaction for rollback.
+	private <T> T updateBookStore(String storeId, Set<Long> expectedVersions,
+								  BiFunction<BookStore, StoreChanges, T> update) {
+		boolean retry = !TransactionSynchronizationManager.isActualTransactionActive();
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return updateTransaction.execute(status -> {
+					BookStore store = loadBookStore(storeId);
+					checkVersion(storeId, store.getVersion(), expectedVersions);
+					StoreChanges changes = new StoreChanges();
+					T result = update.apply(store, changes);
+					if (!changes.isEmpty()) {
+						repository.saveAndFlush(store);
+						bookStoreChanged(storeId);
+						recordChanges(storeId, changes);
+					}
+					return result;
+				});
+			} catch (OptimisticLockingFailureException e) {
+				if (expectedVersions != null) {
+					throw new BookStoreModifiedException(storeId);
+				}
+				if (!retry || attempt == MAX_UPDATE_ATTEMPTS) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	// the search index is not transactional, so it only follows what was committed
+	private void recordChanges(String storeId, StoreChanges changes) {
+		for (Book book : changes.added) {
+			afterCommit(() -> searchIndex.bookAdded(storeId, book));
+			statisticsService.bookAdded(storeId, book);
+			changeService.recordAdded(storeId, book);
+		}
+		changes.updated.forEach((book, previousEntry) -> {
+			afterCommit(() -> searchIndex.bookUpdated(storeId, book));
+			statisticsService.bookUpdated(storeId, previousEntry.getAuthor(), book);
+			changeService.recordUpdated(storeId, book);
+		});
+		for (Book book : changes.removed) {
+			afterCommit(() -> searchIndex.bookRemoved(storeId, book));
+			statisticsService.bookRemoved(storeId, book);
+			changeService.recordRemoved(storeId, book);
+		}
+	}
+
+	private void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	private BookStore loadBookStore(String storeId) {
+		checkBookStoreId(storeId);
+		BookStore bookStore = repository.findById(storeId)
+				.orElseThrow(() -> bookStoreNotFound(storeId));
+		catalogService.resolve(bookStore.getBooks());
+		return bookStore;
+	}
+
+	// a load that started before a change is not shared with readers that arrive after it
+	private void bookStoreChanged(String storeId) {
+		afterCommit(() -> bookStoreLoads.remove(storeId));
 	}
 
-	private String generateRandomId() {
-		return UUID.randomUUID().toString();
+	private void checkBookStoreId(String storeId) {
+		if (!idFilter.mightContain(storeId)) {
+			throw invalidBookStoreId(storeId);
+		}
+	}
+
+	private IllegalArgumentException bookStoreNotFound(String storeId) {
+		idFilter.bookStoreNotFound(storeId);
+		return invalidBookStoreId(storeId);
+	}
+
+	private IllegalArgumentException invalidBookStoreId(String storeId) {
+		return new IllegalArgumentException("Invalid book store ID " + storeId + ".");
+	}
+
+	private IllegalArgumentException invalidBookId(String storeId, BookOperation operation) {
+		return new IllegalArgumentException("Invalid book ID " + storeId + ":" + operation.getId() + ".");
+	}
+
+	private void checkVersion(String storeId, long version, Set<Long> expectedVersions) {
+		if (expectedVersions != null && !expectedVersions.contains(version)) {
+			throw new BookStoreModifiedException(storeId);
+		}
+	}
+
+	private String generateId() {
+		return idGenerator.generateId().toString();
+	}
+
+	// what an update did to a store's books; a book added and removed again in the same update was never seen
+	// outside of it, and a book added in it has its latest details already
+	private static class StoreChanges {
+		private final List<Book> added = new ArrayList<>();
+		private final Map<Book, BookCatalogEntry> updated = new LinkedHashMap<>();
+		private final List<Book> removed = new ArrayList<>();
+
+		void added(Book book) {
+			added.add(book);
+		}
+
+		void updated(Book book, BookCatalogEntry previousEntry) {
+			if (!added.contains(book)) {
+				updated.putIfAbsent(book, previousEntry);
+			}
+		}
+
+		void removed(Book book) {
+			if (!added.remove(book)) {
+				removed.add(book);
+			}
+		}
+
+		boolean isEmpty() {
+			return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+		}
 	}
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreAuthorCount;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreStatistics;
+import org.springframework.cloud.sample.bookstore.web.repository.BookStoreAuthorCountRepository;
+import org.springframework.cloud.sample.bookstore.web.repository.BookStoreStatisticsRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+// Statistics rows are created with the store. Stores created before statistics were kept have no row until their
+// statistics are first read, when the row is built from the store's books. Counts are changed in place, so that a
+// book added or removed costs the same however many authors the store has. A count that would go below zero means
+// the statistics no longer match the books; it is left as it is and logged.
+@Service
+public class BookStoreStatisticsService {
+	private static final Log logger = LogFactory.getLog(BookStoreStatisticsService.class);
+
+	private final BookStoreStatisticsRepository repository;
+	private final BookStoreAuthorCountRepository authorCountRepository;
+	private final TransactionTemplate buildTransaction;
+
+	public BookStoreStatisticsService(BookStoreStatisticsRepository repository,
+									  BookStoreAuthorCountRepository authorCountRepository,
+									  PlatformTransactionManager transactionManager) {
+		this.repository = repository;
+		this.authorCountRepository = authorCountRepository;
+		this.buildTransaction = new TransactionTemplate(transactionManager);
+	}
+
+	public void bookStoreCreated(String storeId) {
+		repository.save(new BookStoreStatistics(storeId));
+	}
+
+	@Transactional
+	public void bookStoreDeleted(String storeId) {
+		authorCountRepository.deleteByStoreId(storeId);
+		if (repository.existsById(storeId)) {
+			repository.deleteById(storeId);
+		}
+	}
+
+	@Transactional
+	public void bookAdded(String storeId, Book book) {
+		count(storeId, book.getAuthor(), 1);
+	}
+
+	@Transactional
+	public void bookRemoved(String storeId, Book book) {
+		count(storeId, book.getAuthor(), -1);
+	}
+
+	@Transactional
+	public void bookUpdated(String storeId, String previousAuthor, Book book) {
+		if (Objects.equals(previousAuthor, book.getAuthor()) || !repository.existsById(storeId)) {
+			return;
+		}
+		countAuthor(storeId, previousAuthor, -1);
+		countAuthor(storeId, book.getAuthor(), 1);
+	}
+
+	public BookStoreStatistics getStatistics(String storeId, Supplier<BookStore> bookStore) {
+		return repository.findCurrent(storeId).orElseGet(() -> {
+			BookStore store = bookStore.get();
+			try {
+				return buildTransaction.execute(status -> build(storeId, store.getBooks()));
+			} catch (DataIntegrityViolationException e) {
+				// another request built the row first
+				return repository.findCurrent(storeId).orElseThrow(() -> e);
+			}
+		});
+	}
+
+	// most books first; authors with the same number of books are ordered by name
+	public List<BookStoreAuthorCount> getTopAuthors(String storeId, int limit) {
+		if (limit < 0) {
+			throw new IllegalArgumentException("Invalid number of authors " + limit + ".");
+		}
+		return limit == 0 ? Collections.emptyList() :
+				authorCountRepository.findTopAuthors(storeId, PageRequest.of(0, limit));
+	}
+
+	private void count(String storeId, String author, int books) {
+		if (repository.addBooks(storeId, books) == 0) {
+			if (!repository.existsById(storeId)) {
+				return;
+			}
+			logger.warn("Book count of book store " + storeId + " is out of step with its books; not counting " +
+					books + " book(s).");
+		}
+		countAuthor(storeId, author, books);
+	}
+
+	private void countAuthor(String storeId, String author, int books) {
+		if (author == null) {
+			return;
+		}
+		if (books > 0) {
+			if (authorCountRepository.addBooks(storeId, author, books) == 0) {
+				authorCountRepository.insertAuthor(storeId, author, books);
+				repository.addAuthors(storeId, 1);
+			}
+		} else if (authorCountRepository.removeBooks(storeId, author, -books) == 0) {
+			logger.warn("Book count of author " + author + " in book store " + storeId + " is out of step with " +
+					"its books; not removing " + -books + " book(s).");
+		} else if (authorCountRepository.deleteIfEmpty(storeId, author) > 0) {
+			repository.addAuthors(storeId, -1);
+		}
+	}
+
+	private BookStoreStatistics build(String storeId, List<Book> books) {
+		Map<String, Integer> authorCounts = new TreeMap<>();
+		for (Book book : books) {
+			if (book.getAuthor() != null) {
+				authorCounts.merge(book.getAuthor(), 1, Integer::sum);
+			}
+		}
+		BookStoreStatistics statistics = new BookStoreStatistics(storeId, books.size(), authorCounts.size());
+		repository.saveAndFlush(statistics);
+		authorCountRepository.deleteByStoreId(storeId);
+		authorCounts.forEach((author, count) -> authorCountRepository.insertAuthor(storeId, author, count));
+		return statistics;
+	}
+}
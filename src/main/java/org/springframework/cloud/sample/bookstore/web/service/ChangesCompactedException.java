@@ -0,0 +1,24 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+public class ChangesCompactedException extends RuntimeException {
+	public ChangesCompactedException(String storeId, long since, long compactedSequence) {
+		super("Changes to book store " + storeId + " after sequence " + since + " are no longer available; " +
+				"changes up to sequence " + compactedSequence + " have been compacted.");
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// a map that drops its least recently used entry once it holds more than its maximum size; it is not thread-safe,
+// so shared maps are wrapped with Collections.synchronizedMap
+public class LruMap<K, V> extends LinkedHashMap<K, V> {
+	private final int maximumSize;
+
+	public LruMap(int maximumSize) {
+		super(16, 0.75f, true);
+		this.maximumSize = maximumSize;
+	}
+
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+		return size() > maximumSize;
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.springframework.util.IdGenerator;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Version 7 UUIDs: 48 bits of Unix milliseconds and a 12 bit sequence within the millisecond, then 62 random bits.
+// Timestamp and sequence come from one atomic counter, so the IDs sort in the order they were issued, across
+// threads and without a lock; past 4096 IDs in a millisecond the timestamp runs ahead of the clock until it catches up.
+public class TimeOrderedIdGenerator implements IdGenerator {
+	private static final int SEQUENCE_BITS = 12;
+	private static final long VERSION = 7L << SEQUENCE_BITS;
+	private static final long VARIANT = 0x8000000000000000L;
+	private static final long RANDOM_MASK = 0x3fffffffffffffffL;
+
+	private final LongSupplier clock;
+	private final AtomicLong lastTimestampAndSequence = new AtomicLong();
+
+	public TimeOrderedIdGenerator() {
+		this(System::currentTimeMillis);
+	}
+
+	TimeOrderedIdGenerator(LongSupplier clock) {
+		this.clock = clock;
+	}
+
+	@Override
+	public UUID generateId() {
+		long now = clock.getAsLong() << SEQUENCE_BITS;
+		long timestampAndSequence = lastTimestampAndSequence.updateAndGet(last -> Math.max(now, last + 1));
+		long timestamp = timestampAndSequence >>> SEQUENCE_BITS;
+		long sequence = timestampAndSequence & ((1L << SEQUENCE_BITS) - 1);
+
+		// IDs are not secrets, so the random bits do not need a shared SecureRandom
+		long random = ThreadLocalRandom.current().nextLong();
+		return new UUID(timestamp << 16 | VERSION | sequence, random & RANDOM_MASK | VARIANT);
+	}
+}
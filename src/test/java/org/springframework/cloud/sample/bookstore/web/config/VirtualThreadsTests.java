@@ -0,0 +1,52 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.config;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+public class VirtualThreadsTests {
+	@Test
+	public void tasksRunOnNamedVirtualThreads() throws Exception {
+		assumeTrue(VirtualThreads.isAvailable());
+
+		ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+		try {
+			String threadName = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+			assertThat(threadName).startsWith("test-");
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void olderJdksAreRejected() {
+		assumeFalse(VirtualThreads.isAvailable());
+
+		assertThatThrownBy(() -> VirtualThreads.newThreadPerTaskExecutor("test-"))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Java 21");
+	}
+}
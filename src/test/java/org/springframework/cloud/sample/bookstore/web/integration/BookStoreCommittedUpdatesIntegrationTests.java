@@ -0,0 +1,167 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.integration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cloud.sample.bookstore.web.controller.BookController;
+import org.springframework.cloud.sample.bookstore.web.controller.BookStoreController;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreResponseCache;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreService;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+// the updates are committed, so that what follows a commit happens as in the application
+@DataJpaTest
+@Import(BookStoreTestConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookStoreCommittedUpdatesIntegrationTests {
+	private MockMvc mockMvc;
+
+	@Autowired
+	private HttpMessageConverters messageConverters;
+
+	@Autowired
+	private BookStoreService service;
+
+	@Autowired
+	private BookStoreResponseCache responseCache;
+
+	private String bookStoreId;
+
+	@Before
+	public void setUp() {
+		mockMvc = MockMvcBuilders
+				.standaloneSetup(new BookStoreController(service, responseCache), new BookController(service))
+				.setMessageConverters(messageConverters.getConverters().toArray(new HttpMessageConverter<?>[0]))
+				.defaultRequest(get("/").accept(MediaType.APPLICATION_JSON))
+				.build();
+
+		bookStoreId = service.createBookStore().getId();
+		service.putBookInStore(bookStoreId, new Book("978-1617292545", "Spring Boot in Action", "Craig Walls"));
+	}
+
+	@After
+	public void tearDown() {
+		service.deleteBookStore(bookStoreId);
+	}
+
+	@Test
+	public void searchFollowsAddedAndDeletedBooks() throws Exception {
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books/search", bookStoreId)
+				.param("q", "cloud native"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(0)));
+
+		Book book = service.putBookInStore(bookStoreId, new Book("978-1449374648", "Cloud Native Java", "Josh Long"));
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books/search", bookStoreId)
+				.param("q", "cloud native"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].title", equalTo("Cloud Native Java")));
+
+		service.removeBookFromStore(bookStoreId, book.getId());
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books/search", bookStoreId)
+				.param("q", "cloud native"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(0)));
+	}
+
+	@Test
+	public void storeCreatedAgainLeavesNoBooksInSearchOrStatistics() throws Exception {
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books/search", bookStoreId)
+				.param("q", "spring boot"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(1)));
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/stats", bookStoreId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.topAuthors", hasSize(1)));
+
+		service.createBookStore(bookStoreId);
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books/search", bookStoreId)
+				.param("q", "spring boot"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(0)));
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/stats", bookStoreId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookCount", equalTo(0)))
+				.andExpect(jsonPath("$.authorCount", equalTo(0)))
+				.andExpect(jsonPath("$.topAuthors", hasSize(0)));
+	}
+
+	@Test
+	public void readsOutsideATransactionShareSnapshotsThatFollowCommits() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<BookStore>> reads = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				reads.add(executor.submit(() -> service.getBookStore(bookStoreId)));
+			}
+			for (Future<BookStore> read : reads) {
+				assertThat(read.get(10, TimeUnit.SECONDS).getBooks()).extracting(Book::getTitle)
+						.containsExactly("Spring Boot in Action");
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		BookStore snapshot = service.getBookStore(bookStoreId);
+		assertThatThrownBy(() -> snapshot.addBook(new Book("978-1449374648", "Cloud Native Java", "Josh Long")))
+				.isInstanceOf(UnsupportedOperationException.class);
+
+		service.putBookInStore(bookStoreId, new Book("978-1449374648", "Cloud Native Java", "Josh Long"));
+
+		assertThat(snapshot.getBooks()).hasSize(1);
+		assertThat(service.getBookStore(bookStoreId).getBooks()).extracting(Book::getTitle)
+				.containsExactlyInAnyOrder("Spring Boot in Action", "Cloud Native Java");
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.books", hasSize(2)));
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.integration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties.DuplicateIsbns;
+import org.springframework.cloud.sample.bookstore.web.controller.BookController;
+import org.springframework.cloud.sample.bookstore.web.controller.BookStoreController;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.cloud.sample.bookstore.web.repository.BookCatalogRepository;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreResponseCache;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreService;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(BookStoreTestConfiguration.class)
+public class BookStoreConditionalRequestsIntegrationTests {
+	private MockMvc mockMvc;
+
+	@Autowired
+	private HttpMessageConverters messageConverters;
+
+	@Autowired
+	private BookStoreService service;
+
+	@Autowired
+	private BookStoreResponseCache responseCache;
+
+	@Autowired
+	private BookStoreProperties properties;
+
+	@Autowired
+	private BookCatalogRepository catalogRepository;
+
+	private String bookStoreId;
+
+	private String bookId;
+
+	@Before
+	public void setUp() {
+		// no JSON expectation for every response, a 304 has no body
+		mockMvc = MockMvcBuilders
+				.standaloneSetup(new BookStoreController(service, responseCache), new BookController(service))
+				.defaultRequest(get("/")
+						.accept(MediaType.APPLICATION_JSON)
+						.contentType(MediaType.APPLICATION_JSON))
+				.setMessageConverters(messageConverters.getConverters().toArray(new HttpMessageConverter<?>[0]))
+				.build();
+
+		BookStore bookStore = service.createBookStore();
+		Book book = service.putBookInStore(bookStore.getId(),
+				new Book("978-1617292545", "Spring Boot in Action", "Craig Walls"));
+
+		bookStoreId = bookStore.getId();
+		bookId = book.getId();
+	}
+
+	@Test
+	public void bookStoreAndBooksCarryTheStoreVersion() throws Exception {
+		String eTag = eTag();
+
+		assertThat(eTag).startsWith("W/\"");
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books/{bookId}", bookStoreId, bookId))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", equalTo(eTag)));
+	}
+
+	@Test
+	public void gzippedBookStoreCarriesTheSameWeakTag() throws Exception {
+		String eTag = eTag();
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId)
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", equalTo(eTag)));
+	}
+
+	@Test
+	public void unchangedBookStoreIsNotModified() throws Exception {
+		String eTag = eTag();
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId)
+				.header("If-None-Match", eTag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", equalTo(eTag)))
+				.andExpect(content().string(""));
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books/{bookId}", bookStoreId, bookId)
+				.header("If-None-Match", "\"-1\", " + eTag.substring(2)))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	public void changedBookStoreHasNewVersion() throws Exception {
+		String eTag = eTag();
+
+		service.putBookInStore(bookStoreId, new Book("978-1784393021", "Learning Spring Boot", "Greg L. Turnquist"));
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId)
+				.header("If-None-Match", eTag))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", not(equalTo(eTag))))
+				.andExpect(jsonPath("$.books[1].title", equalTo("Learning Spring Boot")));
+	}
+
+	@Test
+	@DirtiesContext
+	public void mergesIntoOtherStoresLeaveTheVersion() throws Exception {
+		properties.setDuplicateIsbns(DuplicateIsbns.MERGE);
+		String eTag = eTag();
+
+		BookStore otherStore = service.createBookStore();
+		service.putBookInStore(otherStore.getId(), new Book("978-1617292545", "Spring Boot in Action", "Craig Walls"));
+		service.putBookInStore(otherStore.getId(), new Book("978-1617292545", "Second Edition", "Craig Walls"));
+
+		assertThat(eTag()).isEqualTo(eTag);
+		assertThat(service.getBookFromStore(bookStoreId, bookId).getTitle()).isEqualTo("Spring Boot in Action");
+	}
+
+	@Test
+	@DirtiesContext
+	public void staleMergeChangesNothing() throws Exception {
+		properties.setDuplicateIsbns(DuplicateIsbns.MERGE);
+		String eTag = eTag();
+		service.putBookInStore(bookStoreId, new Book("978-1784393021", "Learning Spring Boot", "Greg L. Turnquist"));
+		String currentETag = eTag();
+
+		this.mockMvc.perform(put("/bookstores/{bookStoreId}/books", bookStoreId)
+				.header("If-Match", eTag)
+				.content("{\"isbn\":\"9781617292545\", \"title\":\"Stale Edition\", \"author\":\"Craig Walls\"}"))
+				.andExpect(status().isPreconditionFailed());
+
+		assertThat(eTag()).isEqualTo(currentETag);
+		assertThat(service.getBookFromStore(bookStoreId, bookId).getTitle()).isEqualTo("Spring Boot in Action");
+		assertThat(catalogRepository.findByIsbnAndTitleAndAuthor("9781617292545", "Stale Edition", "Craig Walls"))
+				.isEmpty();
+	}
+
+	@Test
+	public void writesWithCurrentVersionAreApplied() throws Exception {
+		String eTag = eTag();
+
+		this.mockMvc.perform(put("/bookstores/{bookStoreId}/books", bookStoreId)
+				.header("If-Match", "\"-1\", " + eTag)
+				.content("{\"isbn\":\"9781784393021\", \"title\":\"Learning Spring Boot\", \"author\":\"Greg L. Turnquist\"}"))
+				.andExpect(status().isCreated());
+
+		this.mockMvc.perform(delete("/bookstores/{bookStoreId}/books/{bookId}", bookStoreId, bookId)
+				.header("If-Match", eTag()))
+				.andExpect(status().isOk());
+
+		assertThat(service.getBookStore(bookStoreId).getBooks()).extracting(Book::getTitle)
+				.containsExactly("Learning Spring Boot");
+	}
+
+	@Test
+	public void writesWithStaleVersionAreRejected() throws Exception {
+		String eTag = eTag();
+		service.putBookInStore(bookStoreId, new Book("978-1784393021", "Learning Spring Boot", "Greg L. Turnquist"));
+
+		this.mockMvc.perform(put("/bookstores/{bookStoreId}/books", bookStoreId)
+				.header("If-Match", eTag)
+				.content("{\"isbn\":\"9781449374648\", \"title\":\"Cloud Native Java\", \"author\":\"Josh Long\"}"))
+				.andExpect(status().isPreconditionFailed());
+
+		// a strong tag with the stale version does not match either
+		this.mockMvc.perform(delete("/bookstores/{bookStoreId}/books/{bookId}", bookStoreId, bookId)
+				.header("If-Match", eTag.substring(2)))
+				.andExpect(status().isPreconditionFailed());
+
+		assertThat(service.getBookStore(bookStoreId).getBooks()).hasSize(2);
+	}
+
+	private String eTag() throws Exception {
+		return this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.sample.bookstore.ServiceBrokerApplication;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreService;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.sample.bookstore.web.security.SecurityAuthorities.FULL_ACCESS;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ServiceBrokerApplication.class)
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@WithMockUser(authorities = {FULL_ACCESS})
+public class BookStoreContentNegotiationIntegrationTests {
+	private static final MediaType APPLICATION_CBOR = MediaType.valueOf("application/cbor");
+	private static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+	@Autowired
+	private BookStoreService bookStoreService;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private String bookStoreId;
+
+	private String bookId;
+
+	@Before
+	public void setUp() {
+		BookStore bookStore = bookStoreService.createBookStore();
+		bookStoreId = bookStore.getId();
+
+		bookId = bookStoreService.putBookInStore(bookStoreId,
+				new Book("978-1617292545", "Spring Boot in Action", "Craig Walls")).getId();
+		bookStoreService.putBookInStore(bookStoreId,
+				new Book("978-1784393021", "Learning Spring Boot", null));
+	}
+
+	@Test
+	public void jsonIsTheDefault() throws Exception {
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+	}
+
+	@Test
+	public void bookStoreIsReadInBinaryFormats() throws Exception {
+		JsonNode json = read("/bookstores/{bookStoreId}", MediaType.APPLICATION_JSON, new ObjectMapper());
+
+		assertThat(read("/bookstores/{bookStoreId}", APPLICATION_CBOR, new ObjectMapper(new CBORFactory())))
+				.isEqualTo(json);
+		assertThat(read("/bookstores/{bookStoreId}", APPLICATION_SMILE, new ObjectMapper(new SmileFactory())))
+				.isEqualTo(json);
+		assertThat(json.get("books")).hasSize(2);
+	}
+
+	@Test
+	public void binaryFormatsCarryTheSameWeakTag() throws Exception {
+		String eTag = eTag(MediaType.APPLICATION_JSON);
+
+		assertThat(eTag).startsWith("W/");
+		assertThat(eTag(APPLICATION_CBOR)).isEqualTo(eTag);
+		assertThat(eTag(APPLICATION_SMILE)).isEqualTo(eTag);
+	}
+
+	@Test
+	public void booksAreReadInBinaryFormats() throws Exception {
+		String path = "/bookstores/{bookStoreId}/books/" + bookId;
+		JsonNode json = read(path, MediaType.APPLICATION_JSON, new ObjectMapper());
+
+		assertThat(read(path, APPLICATION_SMILE, new ObjectMapper(new SmileFactory()))).isEqualTo(json);
+		assertThat(json.get("title").asText()).isEqualTo("Spring Boot in Action");
+	}
+
+	@Test
+	public void booksAreAddedInBinaryFormats() throws Exception {
+		ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+		Map<String, String> book = new LinkedHashMap<>();
+		book.put("isbn", "978-1449374648");
+		book.put("title", "Cloud Native Java");
+		book.put("author", "Josh Long");
+
+		byte[] response = this.mockMvc.perform(put("/bookstores/{bookStoreId}/books", bookStoreId)
+				.contentType(APPLICATION_CBOR)
+				.accept(APPLICATION_CBOR)
+				.content(cborMapper.writeValueAsBytes(book)))
+				.andExpect(status().isCreated())
+				.andExpect(content().contentTypeCompatibleWith(APPLICATION_CBOR))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		assertThat(cborMapper.readTree(response).get("isbn").asText()).isEqualTo("9781449374648");
+	}
+
+	private String eTag(MediaType mediaType) throws Exception {
+		return this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId).accept(mediaType))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+	}
+
+	private JsonNode read(String path, MediaType mediaType, ObjectMapper objectMapper) throws Exception {
+		byte[] content = this.mockMvc.perform(get(path, bookStoreId).accept(mediaType))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(mediaType))
+				.andReturn().getResponse().getContentAsByteArray();
+		return objectMapper.readTree(content);
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.integration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cloud.sample.bookstore.web.controller.BookStoreController;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreResponseCache;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreEventHub;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreService;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+// the changes are committed, so that the events are published as in the application
+@DataJpaTest
+@Import(BookStoreTestConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookStoreEventsIntegrationTests {
+	private MockMvc mockMvc;
+
+	@Autowired
+	private HttpMessageConverters messageConverters;
+
+	@Autowired
+	private BookStoreService service;
+
+	@Autowired
+	private BookStoreResponseCache responseCache;
+
+	@Autowired
+	private BookStoreEventHub eventHub;
+
+	private String bookStoreId;
+
+	@Before
+	public void setUp() {
+		mockMvc = MockMvcBuilders
+				.standaloneSetup(new BookStoreController(service, responseCache))
+				.setMessageConverters(messageConverters.getConverters().toArray(new HttpMessageConverter<?>[0]))
+				.build();
+
+		BookStore bookStore = service.createBookStore();
+		service.putBookInStore(bookStore.getId(),
+				new Book("978-1617292545", "Spring Boot in Action", "Craig Walls"));
+		service.putBookInStore(bookStore.getId(),
+				new Book("978-1784393021", "Learning Spring Boot", "Greg L. Turnquist"));
+
+		bookStoreId = bookStore.getId();
+	}
+
+	@After
+	public void tearDown() {
+		service.deleteBookStore(bookStoreId);
+	}
+
+	@Test
+	public void changesArePushedToSubscribers() throws Exception {
+		MvcResult result = this.mockMvc.perform(get("/bookstores/{bookStoreId}/events", bookStoreId)
+				.accept(MediaType.TEXT_EVENT_STREAM))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		Book book = service.putBookInStore(bookStoreId,
+				new Book("978-1449374648", "Cloud Native Java", "Josh Long"));
+		service.removeBookFromStore(bookStoreId, book.getId());
+
+		String events = awaitContent(result, "event:book-removed");
+		assertThat(events).contains("id:3", "event:book-added", "Cloud Native Java", "id:4", book.getId());
+		assertThat(events).doesNotContain("Spring Boot in Action");
+	}
+
+	@Test
+	public void subscribersResumeFromLastEventId() throws Exception {
+		MvcResult result = this.mockMvc.perform(get("/bookstores/{bookStoreId}/events", bookStoreId)
+				.accept(MediaType.TEXT_EVENT_STREAM)
+				.header("Last-Event-ID", "1"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		String events = awaitContent(result, "Learning Spring Boot");
+		assertThat(events).contains("id:2").doesNotContain("id:1");
+	}
+
+	@Test
+	public void subscribingToUnknownStoreIsRejected() throws Exception {
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/events", "unknown")
+				.accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+
+		assertThat(eventHub.getSubscriberCount()).isZero();
+	}
+
+	private String awaitContent(MvcResult result, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		String content = result.getResponse().getContentAsString();
+		while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+			content = result.getResponse().getContentAsString();
+		}
+		return content;
+	}
+}
@@ -20,52 +20,88 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties.DuplicateIsbns;
 import org.springframework.cloud.sample.bookstore.web.controller.BookController;
 import org.springframework.cloud.sample.bookstore.web.controller.BookStoreController;
 import org.springframework.cloud.sample.bookstore.web.model.Book;
 import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreAuthorCount;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreChange;
 import org.springframework.cloud.sample.bookstore.web.repository.BookStoreRepository;
+import org.springframework.cloud.sample.bookstore.web.repository.BookStoreStatisticsRepository;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreResponseCache;
 import org.springframework.cloud.sample.bookstore.web.service.BookStoreService;
+import org.springframework.context.annotation.Import;
 import org.springframework.hateoas.Link;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
 
+import java.io.ByteArrayInputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
 @DataJpaTest
+@Import(BookStoreTestConfiguration.class)
 public class BookStoreIntegrationTests {
 	private MockMvc mockMvc;
 
+	@Autowired
+	private TestEntityManager entityManager;
+
 	@Autowired
 	private BookStoreRepository repository;
 
+	@Autowired
+	private BookStoreStatisticsRepository statisticsRepository;
+
+	@Autowired
+	private BookStoreProperties properties;
+
+	@Autowired
+	private HttpMessageConverters messageConverters;
+
+	@Autowired
+	private BookStoreService service;
+
+	@Autowired
+	private BookStoreResponseCache responseCache;
+
 	private String bookStoreId;
 
 	@Before
 	public void setUp() {
-		BookStoreService service = new BookStoreService(repository);
-
-		BookStoreController bookStoreController = new BookStoreController(service);
+		BookStoreController bookStoreController = new BookStoreController(service, responseCache);
 		BookController bookController = new BookController(service);
 
 		mockMvc = MockMvcBuilders
@@ -74,7 +110,7 @@ public class BookStoreIntegrationTests {
 						.accept(MediaType.APPLICATION_JSON)
 						.contentType(MediaType.APPLICATION_JSON))
 				.alwaysExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-				.setMessageConverters(new MappingJackson2HttpMessageConverter())
+				.setMessageConverters(messageConverters.getConverters().toArray(new HttpMessageConverter<?>[0]))
 				.build();
 
 		BookStore bookStore = service.createBookStore();
@@ -112,6 +148,55 @@ public class BookStoreIntegrationTests {
 				.andExpect(jsonPath("$.links[0].rel", equalTo(Link.REL_SELF)));
 	}
 
+	@Test
+	public void bookStoreIsCompressedForGzipClients() throws Exception {
+		byte[] body = this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		byte[] compressedBody = this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId)
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT_ENCODING)))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		assertThat(compressedBody.length).isLessThan(body.length);
+		assertThat(StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(compressedBody))))
+				.isEqualTo(body);
+	}
+
+	@Test
+	public void smallBookStoreIsNotCompressed() throws Exception {
+		BookStore bookStore = service.createBookStore();
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStore.getId())
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+				.andExpect(jsonPath("$.books", hasSize(0)));
+	}
+
+	@Test
+	public void cachedBookStoreIsReplacedWhenStoreChanges() throws Exception {
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId))
+				.andExpect(jsonPath("$.books", hasSize(2)));
+
+		// bypasses the store version, so the cached response is still served
+		entityManager.getEntityManager()
+				.createNativeQuery("delete from books where bookstore_id = :bookStoreId")
+				.setParameter("bookStoreId", bookStoreId)
+				.executeUpdate();
+		entityManager.clear();
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId))
+				.andExpect(jsonPath("$.books", hasSize(2)));
+
+		service.putBookInStore(bookStoreId, new Book("978-1449374648", "Cloud Native Java", "Josh Long"));
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId))
+				.andExpect(jsonPath("$.books", hasSize(1)));
+	}
+
 	@Test
 	public void bookIsRetrieved() throws Exception {
 		BookStore bookStore = getBookStoreFromRepository();
@@ -135,7 +220,7 @@ public class BookStoreIntegrationTests {
 				.content("{\"isbn\":\"978-1785284151\", \"title\":\"Spring Boot Cookbook\", \"author\":\"Alex Antonov\"}"))
 				.andExpect(status().isCreated())
 
-				.andExpect(jsonPath("$.isbn", equalTo("978-1785284151")))
+				.andExpect(jsonPath("$.isbn", equalTo("9781785284151")))
 
 				.andExpect(jsonPath("$.links", hasSize(1)))
 				.andExpect(jsonPath("$.links[0].href", containsString(buildBookRef(bookStore.getId()))))
@@ -144,6 +229,390 @@ public class BookStoreIntegrationTests {
 		assertThat(getBooksFromRepository()).size().isEqualTo(3);
 	}
 
+	@Test
+	public void isbn10IsNormalizedToIsbn13() throws Exception {
+		BookStore bookStore = getBookStoreFromRepository();
+
+		this.mockMvc.perform(put("/bookstores/{bookStoreId}/books", bookStore.getId())
+				.content("{\"isbn\":\"1-78528-415-0\", \"title\":\"Spring Boot Cookbook\", \"author\":\"Alex Antonov\"}"))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.isbn", equalTo("9781785284151")));
+	}
+
+	@Test
+	public void invalidIsbnIsRejected() throws Exception {
+		BookStore bookStore = getBookStoreFromRepository();
+
+		this.mockMvc.perform(put("/bookstores/{bookStoreId}/books", bookStore.getId())
+				.content("{\"isbn\":\"978-1785284152\", \"title\":\"Spring Boot Cookbook\", \"author\":\"Alex Antonov\"}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errorMessage", containsString("978-1785284152")));
+
+		assertThat(getBooksFromRepository()).size().isEqualTo(2);
+	}
+
+	@Test
+	public void booksAreFoundByIsbn() throws Exception {
+		BookStore bookStore = getBookStoreFromRepository();
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books", bookStore.getId())
+				.param("isbn", "978-1-61729-254-5"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].isbn", equalTo("9781617292545")))
+				.andExpect(jsonPath("$[0].title", equalTo("Spring Boot in Action")));
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books", bookStore.getId())
+				.param("isbn", "978-1785284151"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(0)));
+	}
+
+	@Test
+	public void booksAreSearchedByTitleAndAuthor() throws Exception {
+		BookStore bookStore = getBookStoreFromRepository();
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books/search", bookStore.getId())
+				.param("q", "spring boot"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(2)));
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books/search", bookStore.getId())
+				.param("q", "Turnqist"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].title", equalTo("Learning Spring Boot")));
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books/search", bookStore.getId())
+				.param("q", "action walls"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].title", equalTo("Spring Boot in Action")))
+				.andExpect(jsonPath("$[0].links[0].href", containsString(buildBookRef(bookStore.getId()))));
+	}
+
+	@Test
+	public void emptySearchIsRejected() throws Exception {
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books/search", bookStoreId)
+				.param("q", " - "))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void statisticsAreRetrieved() throws Exception {
+		service.putBookInStore(bookStoreId, new Book("978-1617294945", "Spring in Action", "Craig Walls"));
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/stats", bookStoreId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookCount", equalTo(3)))
+				.andExpect(jsonPath("$.authorCount", equalTo(2)))
+				.andExpect(jsonPath("$.booksPerAuthor", equalTo(1.5)))
+				.andExpect(jsonPath("$.topAuthors[0].author", equalTo("Craig Walls")))
+				.andExpect(jsonPath("$.topAuthors[0].bookCount", equalTo(2)))
+				.andExpect(jsonPath("$.topAuthors[1].author", equalTo("Greg L. Turnquist")))
+				.andExpect(jsonPath("$.links[0].href", endsWith(buildBookStoreRef(bookStoreId) + "/stats")));
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/stats", bookStoreId)
+				.param("top", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.topAuthors", hasSize(1)));
+	}
+
+	@Test
+	@DirtiesContext
+	public void statisticsFollowRemovedBooksAndChangedAuthors() throws Exception {
+		properties.setDuplicateIsbns(DuplicateIsbns.MERGE);
+		BookStore bookStore = getBookStoreFromRepository();
+		Book book = bookStore.getBooks().stream()
+				.filter(b -> b.getIsbn().equals("9781784393021"))
+				.findFirst().orElse(null);
+
+		service.putBookInStore(bookStoreId, new Book("9781617292545", "Spring Boot in Action", "C. Walls"));
+		service.removeBookFromStore(bookStoreId, book.getId());
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/stats", bookStoreId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookCount", equalTo(1)))
+				.andExpect(jsonPath("$.topAuthors", hasSize(1)))
+				.andExpect(jsonPath("$.topAuthors[0].author", equalTo("C. Walls")));
+	}
+
+	@Test
+	public void statisticsAreBuiltForExistingStores() throws Exception {
+		statisticsRepository.deleteById(bookStoreId);
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/stats", bookStoreId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookCount", equalTo(2)))
+				.andExpect(jsonPath("$.authorCount", equalTo(2)));
+
+		assertThat(statisticsRepository.existsById(bookStoreId)).isTrue();
+	}
+
+	@Test
+	public void statisticsKeepManyAuthors() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			service.putBookInStore(bookStoreId, new Book(isbn(i), "Spring Boot Recipes, Volume " + i, "Author " + i));
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/stats", bookStoreId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.authorCount", equalTo(102)));
+	}
+
+	@Test
+	public void statisticsOutOfStepWithTheBooksAreNotClamped() throws Exception {
+		statisticsRepository.addBooks(bookStoreId, -2);
+		BookStore bookStore = getBookStoreFromRepository();
+
+		service.removeBookFromStore(bookStoreId, bookStore.getBooks().get(0).getId());
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/stats", bookStoreId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookCount", equalTo(0)))
+				.andExpect(jsonPath("$.authorCount", equalTo(1)));
+	}
+
+	@Test
+	public void statisticsOfUnknownStoreAreRejected() throws Exception {
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/stats", "unknown"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void changesAreRetrievedSinceSequence() throws Exception {
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}", bookStoreId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.changeSequence", equalTo(2)));
+
+		Book book = service.putBookInStore(bookStoreId,
+				new Book("978-1449374648", "Cloud Native Java", "Josh Long"));
+		service.removeBookFromStore(bookStoreId, book.getId());
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/changes", bookStoreId)
+				.param("since", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.lastSequence", equalTo(4)))
+				.andExpect(jsonPath("$.changes", hasSize(2)))
+				.andExpect(jsonPath("$.changes[0].sequence", equalTo(3)))
+				.andExpect(jsonPath("$.changes[0].type", equalTo("ADDED")))
+				.andExpect(jsonPath("$.changes[0].bookId", equalTo(book.getId())))
+				.andExpect(jsonPath("$.changes[0].title", equalTo("Cloud Native Java")))
+				.andExpect(jsonPath("$.changes[1].sequence", equalTo(4)))
+				.andExpect(jsonPath("$.changes[1].type", equalTo("REMOVED")))
+				.andExpect(jsonPath("$.links[1].rel", equalTo("next")))
+				.andExpect(jsonPath("$.links[1].href", endsWith(buildBookStoreRef(bookStoreId) + "/changes?since=4")));
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/changes", bookStoreId)
+				.param("since", "0")
+				.param("limit", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.changes", hasSize(1)))
+				.andExpect(jsonPath("$.changes[0].isbn", equalTo("9781617292545")))
+				.andExpect(jsonPath("$.links[1].href", endsWith("/changes?since=1")));
+	}
+
+	@Test
+	public void changesContinueWhenAStoreIsCreatedAgain() throws Exception {
+		service.createBookStore(bookStoreId);
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/changes", bookStoreId)
+				.param("since", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.lastSequence", equalTo(4)))
+				.andExpect(jsonPath("$.changes", hasSize(2)))
+				.andExpect(jsonPath("$.changes[*].type", contains("REMOVED", "REMOVED")));
+	}
+
+	@Test
+	@DirtiesContext
+	public void catalogUpdatesAreChanges() throws Exception {
+		properties.setDuplicateIsbns(DuplicateIsbns.MERGE);
+		service.putBookInStore(bookStoreId, new Book("9781617292545", "Second Edition", "Craig Walls"));
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/changes", bookStoreId)
+				.param("since", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.changes", hasSize(1)))
+				.andExpect(jsonPath("$.changes[0].type", equalTo("UPDATED")))
+				.andExpect(jsonPath("$.changes[0].title", equalTo("Second Edition")));
+	}
+
+	@Test
+	@DirtiesContext
+	public void compactedChangesAreGone() throws Exception {
+		properties.getChanges().setRetainedPerStore(2);
+		for (int i = 0; i < 3; i++) {
+			service.putBookInStore(bookStoreId, new Book("978-1449374648", "Cloud Native Java", "Josh Long"));
+		}
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/changes", bookStoreId)
+				.param("since", "1"))
+				.andExpect(status().isGone())
+				.andExpect(jsonPath("$.errorMessage", containsString("compacted")));
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/changes", bookStoreId)
+				.param("since", "3"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.changes", hasSize(2)));
+	}
+
+	@Test
+	public void duplicateIsbnIsAllowedByDefault() throws Exception {
+		BookStore bookStore = getBookStoreFromRepository();
+
+		this.mockMvc.perform(put("/bookstores/{bookStoreId}/books", bookStore.getId())
+				.content("{\"isbn\":\"9781617292545\", \"title\":\"Spring Boot in Action\", \"author\":\"Craig Walls\"}"))
+				.andExpect(status().isCreated());
+
+		assertThat(getBooksFromRepository()).size().isEqualTo(3);
+	}
+
+	@Test
+	@DirtiesContext
+	public void duplicateIsbnIsRejected() throws Exception {
+		properties.setDuplicateIsbns(DuplicateIsbns.REJECT);
+		BookStore bookStore = getBookStoreFromRepository();
+
+		this.mockMvc.perform(put("/bookstores/{bookStoreId}/books", bookStore.getId())
+				.content("{\"isbn\":\"9781617292545\", \"title\":\"Spring Boot in Action\", \"author\":\"Craig Walls\"}"))
+				.andExpect(status().isConflict())
+				.andExpect(jsonPath("$.errorMessage", containsString("9781617292545")));
+
+		assertThat(getBooksFromRepository()).size().isEqualTo(2);
+	}
+
+	@Test
+	@DirtiesContext
+	public void duplicateIsbnIsMerged() throws Exception {
+		properties.setDuplicateIsbns(DuplicateIsbns.MERGE);
+		BookStore bookStore = getBookStoreFromRepository();
+		Book existingBook = bookStore.getBookById(bookStore.getBooks().get(0).getId()).orElse(null);
+
+		this.mockMvc.perform(put("/bookstores/{bookStoreId}/books", bookStore.getId())
+				.content("{\"isbn\":\"" + existingBook.getIsbn() + "\", \"title\":\"Second Edition\", \"author\":\"Someone Else\"}"))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.title", equalTo("Second Edition")))
+				.andExpect(jsonPath("$.links[0].href", endsWith(buildBookRef(bookStore.getId(), existingBook.getId()))));
+
+		List<Book> books = service.getBookStore(bookStore.getId()).getBooks();
+		assertThat(books).size().isEqualTo(2);
+		assertThat(books).filteredOn(book -> book.hasId(existingBook.getId()))
+				.extracting(book -> tuple(book.getTitle(), book.getAuthor()))
+				.containsExactly(tuple("Second Edition", "Someone Else"));
+	}
+
+	@Test
+	@DirtiesContext
+	public void mergedDetailsStayInTheirStore() throws Exception {
+		properties.setDuplicateIsbns(DuplicateIsbns.MERGE);
+		String otherStoreId = service.createBookStore().getId();
+		service.putBookInStore(otherStoreId, new Book("9781617292545", "Spring Boot in Action", "Craig Walls"));
+		long otherVersion = service.getVersion(otherStoreId);
+		long otherChanges = service.getChangeSequence(otherStoreId);
+
+		service.putBookInStore(bookStoreId, new Book("9781617292545", "Second Edition", "Someone Else"));
+
+		assertThat(service.getVersion(otherStoreId)).isEqualTo(otherVersion);
+		assertThat(service.getChangeSequence(otherStoreId)).isEqualTo(otherChanges);
+		assertThat(service.getBookStore(otherStoreId).getBooks())
+				.extracting(book -> tuple(book.getTitle(), book.getAuthor()))
+				.containsExactly(tuple("Spring Boot in Action", "Craig Walls"));
+		assertThat(service.getTopAuthors(otherStoreId, 10)).extracting(BookStoreAuthorCount::getAuthor)
+				.containsExactly("Craig Walls");
+	}
+
+	@Test
+	public void batchOperationsAreApplied() throws Exception {
+		BookStore bookStore = getBookStoreFromRepository();
+		Book first = bookStore.getBooks().get(0);
+		Book second = bookStore.getBooks().get(1);
+
+		this.mockMvc.perform(post("/bookstores/{bookStoreId}/books/batch", bookStoreId)
+				.content("[" +
+						"{\"type\":\"ADD\", \"isbn\":\"978-1449374648\", \"title\":\"Cloud Native Java\", \"author\":\"Josh Long\"}," +
+						"{\"type\":\"GET\", \"id\":\"" + first.getId() + "\"}," +
+						"{\"type\":\"REMOVE\", \"id\":\"" + second.getId() + "\"}," +
+						"{\"type\":\"REMOVE\", \"id\":\"unknown\"}," +
+						"{\"type\":\"ADD\", \"isbn\":\"978-0000000000\", \"title\":\"Invalid\", \"author\":\"Nobody\"}" +
+						"]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].status", contains(201, 200, 200, 400, 400)))
+				.andExpect(jsonPath("$[0].book.title", equalTo("Cloud Native Java")))
+				.andExpect(jsonPath("$[0].book.links[0].href", startsWith("http://localhost" + buildBookRef(bookStoreId))))
+				.andExpect(jsonPath("$[1].book.isbn", equalTo(first.getIsbn())))
+				.andExpect(jsonPath("$[2].book.isbn", equalTo(second.getIsbn())))
+				.andExpect(jsonPath("$[3].errorMessage", containsString("unknown")))
+				.andExpect(jsonPath("$[4].book").doesNotExist());
+
+		assertThat(service.getBookStore(bookStoreId).getBooks())
+				.extracting(Book::getTitle)
+				.containsExactlyInAnyOrder(first.getTitle(), "Cloud Native Java");
+		assertThat(service.getChanges(bookStoreId, 2, 10).getChanges())
+				.extracting(BookStoreChange::getType)
+				.containsExactly(BookStoreChange.Type.ADDED, BookStoreChange.Type.REMOVED);
+	}
+
+	@Test
+	@DirtiesContext
+	public void batchOperationsFollowDuplicateIsbnPolicy() throws Exception {
+		properties.setDuplicateIsbns(DuplicateIsbns.REJECT);
+		String book = "{\"type\":\"ADD\", \"isbn\":\"9781449374648\", \"title\":\"Cloud Native Java\", \"author\":\"Josh Long\"}";
+
+		this.mockMvc.perform(post("/bookstores/{bookStoreId}/books/batch", bookStoreId)
+				.content("[" + book + "," + book + "]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].status", contains(201, 409)));
+
+		assertThat(getBooksFromRepository()).size().isEqualTo(3);
+	}
+
+	@Test
+	@DirtiesContext
+	public void oversizedBatchIsRejected() throws Exception {
+		properties.getBatch().setMaxOperations(1);
+
+		this.mockMvc.perform(post("/bookstores/{bookStoreId}/books/batch", bookStoreId)
+				.content("[{\"type\":\"GET\", \"id\":\"a\"}, {\"type\":\"GET\", \"id\":\"b\"}]"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errorMessage", containsString("at most 1")));
+	}
+
+	@Test
+	public void booksAreRetrievedByIds() throws Exception {
+		BookStore bookStore = getBookStoreFromRepository();
+		Book first = bookStore.getBooks().get(0);
+		Book second = bookStore.getBooks().get(1);
+
+		this.mockMvc.perform(get("/bookstores/{bookStoreId}/books", bookStoreId)
+				.param("ids", second.getId() + ",unknown," + first.getId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].status", contains(200, 400, 200)))
+				.andExpect(jsonPath("$[0].book.isbn", equalTo(second.getIsbn())))
+				.andExpect(jsonPath("$[0].book.links[0].href", endsWith(buildBookRef(bookStoreId, second.getId()))))
+				.andExpect(jsonPath("$[1].errorMessage", containsString("unknown")))
+				.andExpect(jsonPath("$[2].book.isbn", equalTo(first.getIsbn())));
+	}
+
+	@Test
+	@DirtiesContext
+	public void booksAreLookedUpByIds() throws Exception {
+		Book first = getBooksFromRepository().get(0);
+
+		this.mockMvc.perform(post("/bookstores/{bookStoreId}/books/lookup", bookStoreId)
+				.content("[\"" + first.getId() + "\", \"unknown\"]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].status", contains(200, 400)))
+				.andExpect(jsonPath("$[0].book.isbn", equalTo(first.getIsbn())));
+
+		properties.getBatch().setMaxOperations(1);
+
+		this.mockMvc.perform(post("/bookstores/{bookStoreId}/books/lookup", bookStoreId)
+				.content("[\"a\", \"b\"]"))
+				.andExpect(status().isBadRequest());
+	}
+
 	@Test
 	public void bookIsDeleted() throws Exception {
 		BookStore bookStore = getBookStoreFromRepository();
@@ -161,6 +630,15 @@ public class BookStoreIntegrationTests {
 		assertThat(getBooksFromRepository()).size().isEqualTo(1);
 	}
 
+	private String isbn(int number) {
+		String digits = String.format("978%09d", number);
+		int sum = 0;
+		for (int i = 0; i < digits.length(); i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+
 	private List<Book> getBooksFromRepository() {
 		return getBookStoreFromRepository().getBooks();
 	}
@@ -41,6 +41,7 @@ import static org.springframework.cloud.sample.bookstore.web.security.SecurityAu
 import static org.springframework.cloud.sample.bookstore.web.security.SecurityAuthorities.READ_ONLY;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -141,6 +142,18 @@ public class BookStoreSecurityIntegrationTests {
 				status().isForbidden());
 	}
 
+	@Test
+	@WithMockUser(authorities = {READ_ONLY, BOOK_STORE_ID_PREFIX + BOOKSTORE_INSTANCE_ID})
+	public void readOnlyBatchIsAllowedWithReadOnlyAccess() throws Exception {
+		this.mockMvc.perform(post("/bookstores/{bookStoreId}/books/batch", bookStoreId)
+				.content("[{\"type\":\"GET\", \"id\":\"" + bookId + "\"}]"))
+				.andExpect(status().isOk());
+
+		this.mockMvc.perform(post("/bookstores/{bookStoreId}/books/batch", bookStoreId)
+				.content("[{\"type\":\"GET\", \"id\":\"" + bookId + "\"}, {\"type\":\"REMOVE\", \"id\":\"" + bookId + "\"}]"))
+				.andExpect(status().isForbidden());
+	}
+
 	private void assertExpectedResponseStatus(ResultMatcher getAllStatus,
 											  ResultMatcher getStatus,
 											  ResultMatcher putStatus,
@@ -153,7 +166,7 @@ public class BookStoreSecurityIntegrationTests {
 				.andExpect(getStatus);
 
 		this.mockMvc.perform(put("/bookstores/{bookStoreId}/books", bookStoreId)
-				.content("{\"isbn\":\"111-1111111111\", \"title\":\"test book\", \"author\":\"test author\"}"))
+				.content("{\"isbn\":\"978-1785284151\", \"title\":\"test book\", \"author\":\"test author\"}"))
 				.andExpect(putStatus);
 
 		this.mockMvc.perform(delete("/bookstores/{bookStoreId}/books/{bookId}",
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.integration;
+
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.config.IdGeneratorConfiguration;
+import org.springframework.cloud.sample.bookstore.web.resource.BookStoreResponseCache;
+import org.springframework.cloud.sample.bookstore.web.service.BookCatalogService;
+import org.springframework.cloud.sample.bookstore.web.service.BookSearchIndex;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreChangeService;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreEventHub;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreIdFilter;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreService;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreStatisticsService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.util.Arrays;
+
+// The bookstore services as the application wires them, on top of the repositories of a @DataJpaTest. Tests that
+// change the shared BookStoreProperties mark themselves with @DirtiesContext.
+@TestConfiguration
+@EnableConfigurationProperties(BookStoreProperties.class)
+@Import({BookStoreService.class, BookStoreIdFilter.class, BookCatalogService.class, BookSearchIndex.class,
+		BookStoreStatisticsService.class, BookStoreChangeService.class, BookStoreEventHub.class,
+		IdGeneratorConfiguration.class})
+public class BookStoreTestConfiguration {
+	@Bean
+	public HttpMessageConverters messageConverters() {
+		return new HttpMessageConverters(false, Arrays.asList(new StringHttpMessageConverter(),
+				new ByteArrayHttpMessageConverter(), new MappingJackson2HttpMessageConverter()));
+	}
+
+	// a lower threshold than the application's, so that the small stores of the tests are compressed
+	@Bean
+	public BookStoreResponseCache responseCache(HttpMessageConverters messageConverters,
+												BookStoreProperties properties) {
+		ServerProperties serverProperties = new ServerProperties();
+		serverProperties.getCompression().setEnabled(true);
+		serverProperties.getCompression().setMinResponseSize(256);
+		return new BookStoreResponseCache(messageConverters, serverProperties, properties);
+	}
+}
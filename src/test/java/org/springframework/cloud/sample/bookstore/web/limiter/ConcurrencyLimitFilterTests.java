@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.limiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyLimitFilterTests {
+	private final BookStoreProperties properties = new BookStoreProperties();
+
+	private ConcurrencyLimitFilter filter;
+
+	@Before
+	public void setUp() {
+		properties.getConcurrencyLimit().setInitialLimit(1);
+		properties.getConcurrencyLimit().setMinLimit(1);
+		properties.getConcurrencyLimit().setRetryAfter(Duration.ofSeconds(2));
+		filter = new ConcurrencyLimitFilter(properties.getConcurrencyLimit());
+	}
+
+	@Test
+	public void requestsBeyondTheLimitAreShed() throws Exception {
+		List<MockHttpServletResponse> responses = new ArrayList<>();
+
+		// the second request arrives while the first still holds the only slot
+		perform("/bookstores/store-1", (request, response) ->
+				responses.add(perform("/bookstores/store-1", new MockFilterChain())));
+
+		MockHttpServletResponse shed = responses.get(0);
+		assertThat(shed.getStatus()).isEqualTo(503);
+		assertThat(shed.getHeader("Retry-After")).isEqualTo("2");
+		assertThat(shed.getContentAsString()).contains("errorMessage");
+
+		assertThat(perform("/bookstores/store-1", new MockFilterChain()).getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	public void bookStoreAndBrokerRequestsHaveSeparateLimits() throws Exception {
+		List<MockHttpServletResponse> responses = new ArrayList<>();
+
+		perform("/bookstores/store-1", (request, response) -> {
+			responses.add(perform("/v2/catalog", new MockFilterChain()));
+			responses.add(perform("/actuator/health", new MockFilterChain()));
+		});
+
+		assertThat(responses).extracting(MockHttpServletResponse::getStatus).containsExactly(200, 200);
+	}
+
+	@Test
+	public void limitsAndRejectionsAreMeasured() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		filter.bindTo(registry);
+
+		perform("/v2/catalog", (request, response) -> perform("/v2/catalog", new MockFilterChain()));
+
+		assertThat(registry.get("bookstore.concurrency.rejected").tag("group", "broker").functionCounter().count())
+				.isEqualTo(1);
+		assertThat(registry.get("bookstore.concurrency.rejected").tag("group", "bookstore").functionCounter().count())
+				.isZero();
+		assertThat(registry.get("bookstore.concurrency.limit").tag("group", "bookstore").gauge().value())
+				.isEqualTo(1);
+		assertThat(registry.get("bookstore.concurrency.in.flight").tag("group", "broker").gauge().value())
+				.isZero();
+	}
+
+	private MockHttpServletResponse perform(String path, FilterChain chain) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			filter.doFilter(request, response, chain);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		return response;
+	}
+}
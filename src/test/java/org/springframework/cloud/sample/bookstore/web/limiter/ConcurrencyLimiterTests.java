@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.limiter;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConcurrencyLimiterTests {
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+	@Test
+	public void requestsBeyondTheLimitAreRejected() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10, 1.5);
+
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isFalse();
+		assertThat(limiter.getInFlight()).isEqualTo(2);
+		assertThat(limiter.getRejected()).isEqualTo(1);
+
+		limiter.release();
+		assertThat(limiter.tryAcquire()).isTrue();
+	}
+
+	@Test
+	public void limitGrowsWhileLatencyHolds() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 100, 1.5);
+
+		runAtLimit(limiter, 20, FAST);
+
+		assertThat(limiter.getLimit()).isGreaterThan(20).isLessThanOrEqualTo(100);
+	}
+
+	@Test
+	public void limitShrinksWhenLatencyRises() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(50, 4, 100, 1.5);
+		runAtLimit(limiter, 10, FAST);
+		int limit = limiter.getLimit();
+
+		runAtLimit(limiter, 10, SLOW);
+		assertThat(limiter.getLimit()).isLessThan(limit / 2);
+
+		runAtLimit(limiter, 50, SLOW * 10);
+		assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(4);
+	}
+
+	@Test
+	public void unusedLimitDoesNotGrow() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 100, 1.5);
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(limiter.tryAcquire()).isTrue();
+			limiter.release(FAST);
+		}
+
+		assertThat(limiter.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	public void invalidSettingsAreRejected() {
+		assertThatThrownBy(() -> new ConcurrencyLimiter(10, 0, 100, 1.5))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new ConcurrencyLimiter(10, 20, 10, 1.5))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new ConcurrencyLimiter(10, 1, 100, 0.5))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	// fills the limit and then completes every request, round after round
+	private void runAtLimit(ConcurrencyLimiter limiter, int rounds, long rttNanos) {
+		for (int round = 0; round < rounds; round++) {
+			int acquired = 0;
+			while (limiter.tryAcquire()) {
+				acquired++;
+			}
+			for (int i = 0; i < acquired; i++) {
+				limiter.release(rttNanos);
+			}
+		}
+	}
+}
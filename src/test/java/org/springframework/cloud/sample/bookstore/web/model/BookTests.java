@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.model;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BookTests {
+	private static final String TITLE = "Spring Boot in Action";
+	private static final String AUTHOR = "Craig Walls";
+
+	@Test
+	public void isbnIsReturnedAsGiven() {
+		String[] isbns = {
+				"978-1617292545", "9781617292545", "978-1-61729-254-5", "0-8044-2957-X", "080442957X",
+				"0012345678", "111-1111111111", "1", "ISBN 978-1617292545", "978--1617292545", "-978",
+				"978-", "97816172925451234", "X", "978-161729254x", "", null
+		};
+
+		for (String isbn : isbns) {
+			assertThat(new Book(isbn, TITLE, AUTHOR).getIsbn()).isEqualTo(isbn);
+		}
+	}
+
+	@Test
+	public void titleIsReturnedAsGivenWithAnyIsbn() {
+		String[] isbns = {"9781617292545", "0012345678901", "978-1617292545", "", null};
+		String[] titles = {TITLE, "Spring im Einsatz \u00fc\u00ff", "\ud83d\udcda", "", null};
+
+		for (String isbn : isbns) {
+			for (String title : titles) {
+				Book book = new Book(isbn, title, AUTHOR);
+
+				assertThat(book.getIsbn()).isEqualTo(isbn);
+				assertThat(book.getTitle()).isEqualTo(title);
+				assertThat(book.getAuthor()).isEqualTo(AUTHOR);
+			}
+		}
+	}
+
+	@Test
+	public void onlyTheSameIsbnMatches() {
+		BookCatalogEntry entry = new BookCatalogEntry("9781617292545", TITLE, AUTHOR);
+		BookCatalogEntry textEntry = new BookCatalogEntry("978-1617292545", TITLE, AUTHOR);
+
+		assertThat(entry.hasSameIsbn(new BookCatalogEntry("9781617292545", "Other", "Other"))).isTrue();
+		assertThat(entry.hasSameIsbn(textEntry)).isFalse();
+		assertThat(textEntry.hasSameIsbn(new BookCatalogEntry("978-1617292545", null, null))).isTrue();
+		assertThat(textEntry.hasSameIsbn(new BookCatalogEntry("978-161729254", TITLE, AUTHOR))).isFalse();
+		assertThat(textEntry.hasSameIsbn(new BookCatalogEntry(null, TITLE, AUTHOR))).isFalse();
+	}
+
+	@Test
+	public void onlyTheSameAuthorCanBeShared() {
+		BookCatalogEntry entry = new BookCatalogEntry("9781617292545", TITLE, new String(AUTHOR));
+
+		entry.shareAuthor(AUTHOR);
+
+		assertThat(entry.getAuthor()).isSameAs(AUTHOR);
+		assertThatThrownBy(() -> entry.shareAuthor("Josh Long")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void idIsReturnedAsGiven() {
+		String[] ids = {
+				UUID.randomUUID().toString(), "0000000a-0000-0000-0000-000000000000",
+				"00000000-0000-0000-0000-000000000000", UUID.randomUUID().toString().toUpperCase(),
+				"book-1", "", null
+		};
+
+		for (String id : ids) {
+			assertThat(new Book(id, new Book("978-1617292545", TITLE, AUTHOR)).getId()).isEqualTo(id);
+		}
+	}
+
+	@Test
+	public void bookWithoutIdHasNoId() {
+		Book book = new Book("978-1617292545", TITLE, AUTHOR);
+
+		assertThat(book.getId()).isNull();
+		assertThat(book.hasId(null)).isTrue();
+		assertThat(book.hasId(UUID.randomUUID().toString())).isFalse();
+	}
+
+	@Test
+	public void hasIdMatchesOnlyTheSameId() {
+		String id = UUID.randomUUID().toString();
+		Book book = new Book(id, new Book("978-1617292545", TITLE, AUTHOR));
+
+		assertThat(book.hasId(id)).isTrue();
+		assertThat(book.hasId(new String(id))).isTrue();
+		assertThat(book.hasId(id.toUpperCase())).isFalse();
+		assertThat(book.hasId(UUID.randomUUID().toString())).isFalse();
+		assertThat(book.hasId(id.substring(1))).isFalse();
+		assertThat(book.hasId(id.replace('-', '0'))).isFalse();
+		assertThat(book.hasId(null)).isFalse();
+
+		Book textIdBook = new Book("book-1", book);
+
+		assertThat(textIdBook.hasId("book-1")).isTrue();
+		assertThat(textIdBook.hasId("book-2")).isFalse();
+	}
+
+	@Test
+	public void copyKeepsBookDetails() {
+		Book book = new Book("978-1617292545", TITLE, AUTHOR);
+
+		Book copy = new Book(UUID.randomUUID().toString(), book);
+
+		assertThat(copy.getIsbn()).isEqualTo("978-1617292545");
+		assertThat(copy.getTitle()).isEqualTo(TITLE);
+		assertThat(copy.getAuthor()).isEqualTo(AUTHOR);
+		assertThat(copy.getCatalogEntry()).isSameAs(book.getCatalogEntry());
+	}
+
+	@Test
+	public void catalogEntryMustMatchIsbn() {
+		Book book = new Book("book-1", new Book("9781617292545", null, null));
+		BookCatalogEntry entry = new BookCatalogEntry("9781617292545", TITLE, AUTHOR);
+
+		book.setCatalogEntry(entry);
+
+		assertThat(book.getTitle()).isEqualTo(TITLE);
+		assertThat(book.getCatalogEntry()).isSameAs(entry);
+		assertThatThrownBy(() -> book.setCatalogEntry(new BookCatalogEntry("9781784393021", TITLE, AUTHOR)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.model;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IsbnTests {
+	@Test
+	public void isbn13IsNormalized() {
+		assertThat(Isbn.toIsbn13("9781617292545")).isEqualTo("9781617292545");
+		assertThat(Isbn.toIsbn13("978-1617292545")).isEqualTo("9781617292545");
+		assertThat(Isbn.toIsbn13("978-1-61729-254-5")).isEqualTo("9781617292545");
+		assertThat(Isbn.toIsbn13("978 1 61729 254 5")).isEqualTo("9781617292545");
+		assertThat(Isbn.toIsbn13("979-10-90636-07-1")).isEqualTo("9791090636071");
+	}
+
+	@Test
+	public void isbn10IsConvertedToIsbn13() {
+		assertThat(Isbn.toIsbn13("1617292540")).isEqualTo("9781617292545");
+		assertThat(Isbn.toIsbn13("1-78528-415-0")).isEqualTo("9781785284151");
+		assertThat(Isbn.toIsbn13("0-8044-2957-X")).isEqualTo("9780804429573");
+		assertThat(Isbn.toIsbn13("080442957x")).isEqualTo("9780804429573");
+	}
+
+	@Test
+	public void invalidIsbnIsRejected() {
+		String[] invalidIsbns = {
+				"978-1617292546", "977-1617292545", "111-1111111111", "1617292541", "161729254X",
+				"X617292540", "978161729254", "97816172925450", "978-161729254A", "", null
+		};
+
+		for (String isbn : invalidIsbns) {
+			assertThatThrownBy(() -> Isbn.toIsbn13(isbn))
+					.isInstanceOf(IllegalArgumentException.class)
+					.hasMessage("Invalid ISBN " + isbn + ".");
+		}
+	}
+}
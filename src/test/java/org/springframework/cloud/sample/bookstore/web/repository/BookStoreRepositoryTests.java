@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class BookStoreRepositoryTests {
+	@Autowired
+	private BookStoreRepository repository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Before
+	public void setUp() {
+		BookStore bookStore = new BookStore("store-1");
+		bookStore.addBook(new Book("book-1", new Book("9781617292545", "Spring Boot in Action", "Craig Walls")));
+		bookStore.addBook(new Book("book-2", new Book("9781784393021", "Learning Spring Boot", "Greg L. Turnquist")));
+		repository.save(bookStore);
+
+		BookStore otherBookStore = new BookStore("store-2");
+		otherBookStore.addBook(new Book("book-3", new Book("9781617292545", "Spring Boot in Action", "Craig Walls")));
+		repository.save(otherBookStore);
+
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	public void findBooksByIsbn() {
+		List<Book> books = repository.findBooksByIsbn("store-1", "9781617292545");
+
+		assertThat(books).extracting(Book::getId, Book::getIsbn)
+				.containsExactly(tuple("book-1", "9781617292545"));
+		assertThat(repository.findBooksByIsbn("store-1", "9781785284151")).isEmpty();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void booksAreIndexedByStoreAndIsbn() {
+		List<Object> indexedColumns = entityManager.getEntityManager()
+				.createNativeQuery("select column_name from information_schema.system_indexinfo " +
+						"where index_name = 'BOOKS_BOOKSTORE_ISBN_IDX' order by ordinal_position")
+				.getResultList();
+
+		assertThat(indexedColumns).containsExactly("BOOKSTORE_ID", "ISBN");
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.hateoas.ResourceSupport;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookStoreResourceSerializerTests {
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	private BookStore bookStore;
+
+	@Before
+	public void setUp() {
+		RequestContextHolder.setRequestAttributes(
+				new ServletRequestAttributes(new MockHttpServletRequest("GET", "/bookstores/store-1")));
+
+		bookStore = new BookStore("store-1");
+		bookStore.addBook(new Book("book-1", new Book("9781617292545", "Spring Boot in Action", "Craig Walls")));
+		bookStore.addBook(new Book("book-2", new Book("9783161484100", "Müller's \"Café\"\tGuide", null)));
+	}
+
+	@After
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	public void outputMatchesResourcePerBook() throws Exception {
+		assertThat(objectMapper.writeValueAsString(new BookStoreResourceAssembler().toResource(bookStore, 42L)))
+				.isEqualTo(objectMapper.writeValueAsString(resourcePerBook(bookStore, 42L)));
+		assertThat(objectMapper.writeValueAsString(new BookStoreResourceAssembler().toResource(bookStore)))
+				.isEqualTo(objectMapper.writeValueAsString(resourcePerBook(bookStore, null)));
+	}
+
+	@Test
+	public void emptyStoreHasNoBooks() throws Exception {
+		assertThat(objectMapper.writeValueAsString(new BookStoreResourceAssembler().toResource(new BookStore("store-2"))))
+				.startsWith("{\"books\":[],\"links\":[{\"rel\":\"self\",\"href\":\"http://localhost/bookstores/store-2\"");
+	}
+
+	private ResourceSupport resourcePerBook(BookStore bookStore, Long changeSequence) {
+		ResourcePerBook resource = new ResourcePerBook(
+				new BookResourceAssembler().toResources(bookStore.getBooks(), bookStore.getId()), changeSequence);
+		resource.add(new BookStoreResourceAssembler().toResource(bookStore).getLinks());
+		return resource;
+	}
+
+	// how the store was written before it had its own serializer
+	@SuppressWarnings("unused")
+	private static class ResourcePerBook extends ResourceSupport {
+		private final Collection<BookResource> bookResources;
+		private final Long changeSequence;
+
+		ResourcePerBook(Collection<BookResource> bookResources, Long changeSequence) {
+			this.bookResources = bookResources;
+			this.changeSequence = changeSequence;
+		}
+
+		public Collection<BookResource> getBooks() {
+			return bookResources;
+		}
+
+		@JsonInclude(JsonInclude.Include.NON_NULL)
+		public Long getChangeSequence() {
+			return changeSequence;
+		}
+	}
+}
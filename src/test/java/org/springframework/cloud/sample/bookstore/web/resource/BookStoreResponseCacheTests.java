@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.resource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookStoreResponseCacheTests {
+	private final BookStoreProperties properties = new BookStoreProperties();
+
+	private BookStoreResponseCache cache;
+
+	@Before
+	public void setUp() {
+		properties.getResponseCache().setMaxVariantsPerStore(2);
+		cache = new BookStoreResponseCache(new HttpMessageConverters(), new ServerProperties(), properties);
+	}
+
+	@After
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	public void responsesAreCachedPerHost() throws Exception {
+		put("a.example.com");
+		put("b.example.com");
+
+		assertThat(body(find("a.example.com"))).contains("//a.example.com/");
+		assertThat(body(find("b.example.com"))).contains("//b.example.com/");
+	}
+
+	@Test
+	public void leastRecentlyUsedHostsAreEvicted() throws Exception {
+		put("a.example.com");
+		put("b.example.com");
+		find("a.example.com");
+
+		put("c.example.com");
+
+		assertThat(find("a.example.com")).isNotNull();
+		assertThat(find("b.example.com")).isNull();
+		assertThat(find("c.example.com")).isNotNull();
+	}
+
+	private void put(String host) throws Exception {
+		onHost(host);
+		cache.put("store-1", 1, MediaType.APPLICATION_JSON,
+				new BookStoreResourceAssembler().toResource(new BookStore("store-1")));
+	}
+
+	private BookStoreResponseCache.CachedResponse find(String host) {
+		onHost(host);
+		return cache.find("store-1", 1, MediaType.APPLICATION_JSON);
+	}
+
+	private static void onHost(String host) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bookstores/store-1");
+		request.setServerName(host);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	private static String body(BookStoreResponseCache.CachedResponse response) {
+		return new String(response.getBody(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookCatalogEntry;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.cloud.sample.bookstore.web.repository.BookCatalogRepository;
+import org.springframework.cloud.sample.bookstore.web.repository.BookStoreRepository;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class BookCatalogServiceTests {
+	@Autowired
+	private BookCatalogRepository catalogRepository;
+
+	@Autowired
+	private BookStoreRepository bookStoreRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private BookCatalogService service;
+
+	@Before
+	public void setUp() {
+		service = new BookCatalogService(catalogRepository, new BookStoreProperties(), transactionManager);
+	}
+
+	@Test
+	public void registeringTheSameDetailsReusesTheEntry() {
+		BookCatalogEntry entry = service.register("9781617292545", "Spring Boot in Action", "Craig Walls");
+
+		assertThat(service.register("9781617292545", "Spring Boot in Action", "Craig Walls")).isSameAs(entry);
+		assertThat(catalogRepository.findByIsbnAndTitleAndAuthor("9781617292545", "Spring Boot in Action",
+				"Craig Walls")).hasSize(1);
+	}
+
+	@Test
+	public void registeringNewDetailsLeavesTheEntryAsItIs() {
+		BookCatalogEntry entry = service.register("9781617292545", "Spring Boot in Action", "Craig Walls");
+
+		BookCatalogEntry otherEntry = service.register("9781617292545", "Second Edition", "Someone Else");
+
+		assertThat(otherEntry.getId()).isNotEqualTo(entry.getId());
+		assertThat(service.find(entry.getId())).isSameAs(entry);
+		entityManager.clear();
+		assertThat(catalogRepository.findById(entry.getId()).get())
+				.extracting(BookCatalogEntry::getTitle, BookCatalogEntry::getAuthor)
+				.containsExactly("Spring Boot in Action", "Craig Walls");
+	}
+
+	@Test
+	public void missingDetailsAreRegisteredOnce() {
+		BookCatalogEntry entry = service.register("9781617292545", null, null);
+
+		BookCatalogService uncachedService =
+				new BookCatalogService(catalogRepository, new BookStoreProperties(), transactionManager);
+		assertThat(uncachedService.register("9781617292545", null, null).getId()).isEqualTo(entry.getId());
+	}
+
+	@Test
+	public void booksInDifferentStoresShareTheEntry() {
+		BookCatalogEntry entry = service.register("9781617292545", "Spring Boot in Action", "Craig Walls");
+		BookStore bookStore = new BookStore("store-1");
+		bookStore.addBook(new Book("book-1", entry));
+		bookStoreRepository.save(bookStore);
+		BookStore otherBookStore = new BookStore("store-2");
+		otherBookStore.addBook(new Book("book-2", entry));
+		bookStoreRepository.save(otherBookStore);
+		entityManager.flush();
+		entityManager.clear();
+
+		BookCatalogService uncachedService =
+				new BookCatalogService(catalogRepository, new BookStoreProperties(), transactionManager);
+		List<Book> books = bookStoreRepository.findById("store-1").get().getBooks();
+		List<Book> otherBooks = bookStoreRepository.findById("store-2").get().getBooks();
+		uncachedService.resolve(books);
+		uncachedService.resolve(otherBooks);
+
+		assertThat(books).extracting(Book::getId, Book::getTitle, Book::getAuthor)
+				.containsExactly(tuple("book-1", "Spring Boot in Action", "Craig Walls"));
+		assertThat(otherBooks.get(0).getCatalogEntry()).isSameAs(books.get(0).getCatalogEntry());
+	}
+
+	@Test
+	public void entriesByTheSameAuthorShareTheName() {
+		BookCatalogEntry entry = service.register("9781617292545", "Spring Boot in Action", "Craig Walls");
+
+		BookCatalogEntry otherEntry = service.register("9781617294945", "Spring in Action", new String("Craig Walls"));
+
+		assertThat(otherEntry.getAuthor()).isSameAs(entry.getAuthor());
+	}
+
+	@Test
+	public void leastRecentlyUsedEntriesAreEvicted() {
+		BookStoreProperties properties = new BookStoreProperties();
+		properties.getCatalog().setCacheSize(1);
+		BookCatalogService smallService = new BookCatalogService(catalogRepository, properties, transactionManager);
+
+		BookCatalogEntry entry = smallService.register("9781617292545", "Spring Boot in Action", "Craig Walls");
+		smallService.register("9781784393021", "Learning Spring Boot", "Greg L. Turnquist");
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(smallService.find(entry.getId())).isNotSameAs(entry)
+				.extracting(BookCatalogEntry::getTitle).containsExactly("Spring Boot in Action");
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BookSearchIndexTests {
+	private static final Book SPRING_BOOT_IN_ACTION =
+			new Book("book-1", new Book("9781617292545", "Spring Boot in Action", "Craig Walls"));
+	private static final Book LEARNING_SPRING_BOOT =
+			new Book("book-2", new Book("9781784393021", "Learning Spring Boot", "Greg L. Turnquist"));
+	private static final Book SPRING_IN_ACTION =
+			new Book("book-3", new Book("9781617294945", "Spring in Action", "Craig Walls"));
+	private static final Book CLOUD_NATIVE_JAVA =
+			new Book("book-4", new Book("9781449374648", "Cloud Native Java", "Josh Long"));
+
+	private final BookStoreProperties properties = new BookStoreProperties();
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private BookSearchIndex index;
+
+	@Before
+	public void setUp() {
+		index = new BookSearchIndex(properties);
+	}
+
+	@Test
+	public void wordsAreNormalized() {
+		assertThat(BookSearchIndex.tokenize("Müller's Café-Guide, 2nd ed."))
+				.containsExactly("muller", "s", "cafe", "guide", "2nd", "ed");
+		assertThat(BookSearchIndex.tokenize(" -- ")).isEmpty();
+	}
+
+	@Test
+	public void resultsAreRanked() {
+		assertThat(search("store-1", "spring in action"))
+				.containsExactly(SPRING_IN_ACTION, SPRING_BOOT_IN_ACTION, LEARNING_SPRING_BOOT);
+		assertThat(search("store-1", "walls")).containsExactly(SPRING_IN_ACTION, SPRING_BOOT_IN_ACTION);
+		assertThat(index.search("store-1", "spring", 1, books())).hasSize(1);
+	}
+
+	@Test
+	public void misspelledAndPartialWordsMatch() {
+		assertThat(search("store-1", "turnqist")).containsExactly(LEARNING_SPRING_BOOT);
+		assertThat(search("store-1", "natve")).containsExactly(CLOUD_NATIVE_JAVA);
+		assertThat(search("store-1", "learn")).containsExactly(LEARNING_SPRING_BOOT);
+		assertThat(search("store-1", "kotlin")).isEmpty();
+	}
+
+	@Test
+	public void storeIsIndexedOnce() {
+		search("store-1", "spring");
+		search("store-1", "java");
+
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	public void addedAndRemovedBooksAreIndexed() {
+		search("store-1", "spring");
+		Book book = new Book("book-5", new Book("9781617293207", "Spring Microservices in Action", "John Carnell"));
+
+		index.bookAdded("store-1", book);
+		assertThat(search("store-1", "microservices")).containsExactly(book);
+
+		index.bookRemoved("store-1", book);
+		assertThat(search("store-1", "microservices")).isEmpty();
+
+		index.bookRemoved("store-1", CLOUD_NATIVE_JAVA);
+		assertThat(search("store-1", "java")).isEmpty();
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	public void updatedBooksAreIndexedWithTheirNewDetails() {
+		search("store-1", "spring");
+		Book book = new Book("book-1", new Book("9781617292545", "Spring Boot in Practice", "Somnath Musib"));
+
+		index.bookUpdated("store-1", book);
+
+		assertThat(search("store-1", "practice")).containsExactly(book);
+		assertThat(search("store-1", "walls")).containsExactly(SPRING_IN_ACTION);
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	public void leastRecentlySearchedStoresAreEvicted() {
+		properties.getSearch().setMaxIndexedStores(2);
+		index = new BookSearchIndex(properties);
+
+		search("store-1", "spring");
+		search("store-2", "spring");
+		search("store-1", "spring");
+		search("store-3", "spring");
+		search("store-1", "spring");
+		search("store-2", "spring");
+
+		assertThat(loads).hasValue(4);
+	}
+
+	@Test
+	public void invalidSearchesAreRejected() {
+		assertThatThrownBy(() -> search("store-1", "?"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> index.search("store-1", "spring", 0, books()))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private List<Book> search(String storeId, String query) {
+		return index.search(storeId, query, 20, books());
+	}
+
+	private Supplier<Collection<Book>> books() {
+		return () -> {
+			loads.incrementAndGet();
+			return Arrays.asList(SPRING_BOOT_IN_ACTION, LEARNING_SPRING_BOOT, SPRING_IN_ACTION, CLOUD_NATIVE_JAVA);
+		};
+	}
+}
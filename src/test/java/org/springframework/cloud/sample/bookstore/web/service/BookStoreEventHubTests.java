@@ -0,0 +1,215 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreChange;
+import org.springframework.cloud.sample.bookstore.web.model.BookStoreChange.Type;
+import org.springframework.cloud.sample.bookstore.web.service.BookStoreChangeService.BookStoreChanges;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class BookStoreEventHubTests {
+	private static final Book BOOK =
+			new Book("book-1", new Book("9781617292545", "Spring Boot in Action", "Craig Walls"));
+
+	private final BookStoreProperties properties = new BookStoreProperties();
+
+	private final BookStoreChangeService changeService = mock(BookStoreChangeService.class);
+
+	private BookStoreEventHub hub;
+
+	@After
+	public void tearDown() {
+		hub.destroy();
+	}
+
+	@Test
+	public void subscribersAreKeptPerStore() {
+		hub = new BookStoreEventHub(properties, changeService);
+
+		BookStoreEventHub.Subscriber subscriber = hub.subscribe("store-1", 0);
+		hub.subscribe("store-2", 0);
+		assertThat(hub.getSubscriberCount()).isEqualTo(2);
+
+		subscriber.cancel();
+		assertThat(hub.getSubscriberCount()).isEqualTo(1);
+
+		hub.bookStoreDeleted("store-2");
+		assertThat(hub.getSubscriberCount()).isZero();
+	}
+
+	@Test
+	public void slowSubscribersAreDisconnected() {
+		properties.getEvents().setBufferSize(2);
+		hub = new BookStoreEventHub(properties, changeService);
+
+		// not started, so nothing is written and every change stays queued
+		hub.subscribe("store-1", 0);
+		BookStoreEventHub.Subscriber other = hub.subscribe("store-2", 0);
+		other.start(Collections.emptyList());
+
+		for (int sequence = 1; sequence <= 3; sequence++) {
+			hub.changeCommitted(new BookStoreChange("store-1", sequence, Type.ADDED, BOOK));
+		}
+
+		assertThat(hub.getSubscriberCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void changesPublishedOutOfOrderAreSentInOrder() throws Exception {
+		hub = new BookStoreEventHub(properties, changeService);
+		BookStoreChange first = new BookStoreChange("store-1", 1, Type.ADDED, BOOK);
+		BookStoreChange second = new BookStoreChange("store-1", 2, Type.REMOVED, BOOK);
+		BookStoreChange third = new BookStoreChange("store-1", 3, Type.ADDED, BOOK);
+		when(changeService.getChanges(eq("store-1"), eq(0L), anyInt()))
+				.thenReturn(new BookStoreChanges("store-1", 0, 3, Arrays.asList(first, second, third)));
+		RecordingEmitter emitter = new RecordingEmitter(3);
+		hub.subscribe("store-1", 0, emitter).start(Collections.emptyList());
+
+		hub.changeCommitted(third);
+		hub.changeCommitted(first);
+		hub.changeCommitted(second);
+
+		assertThat(emitter.awaitIds()).containsExactly("1", "2", "3");
+	}
+
+	@Test
+	public void changesAheadOfTheReplayedOnesAreNotSkipped() throws Exception {
+		hub = new BookStoreEventHub(properties, changeService);
+		BookStoreChange first = new BookStoreChange("store-1", 1, Type.ADDED, BOOK);
+		BookStoreChange second = new BookStoreChange("store-1", 2, Type.ADDED, BOOK);
+		RecordingEmitter emitter = new RecordingEmitter(2);
+		BookStoreEventHub.Subscriber subscriber = hub.subscribe("store-1", 0, emitter);
+
+		hub.changeCommitted(second);
+		subscriber.start(Collections.singletonList(first));
+
+		assertThat(emitter.awaitIds()).containsExactly("1", "2");
+		verifyZeroInteractions(changeService);
+	}
+
+	@Test
+	public void stalledWritesAreDisconnectedWithoutHoldingUpOthers() throws Exception {
+		properties.getEvents().setWriteTimeout(Duration.ofMillis(100));
+		hub = new BookStoreEventHub(properties, changeService);
+		CountDownLatch unstall = new CountDownLatch(1);
+		SseEmitter stalled = new SseEmitter() {
+			@Override
+			public void send(SseEventBuilder builder) throws IOException {
+				try {
+					unstall.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+		};
+		RecordingEmitter emitter = new RecordingEmitter(2);
+		hub.subscribe("store-1", 0, stalled).start(Collections.emptyList());
+		hub.subscribe("store-1", 0, emitter).start(Collections.emptyList());
+
+		try {
+			hub.changeCommitted(new BookStoreChange("store-1", 1, Type.ADDED, BOOK));
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (hub.getSubscriberCount() > 1 && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			hub.changeCommitted(new BookStoreChange("store-1", 2, Type.ADDED, BOOK));
+
+			assertThat(hub.getSubscriberCount()).isEqualTo(1);
+			assertThat(emitter.awaitIds()).containsExactly("1", "2");
+		} finally {
+			unstall.countDown();
+		}
+	}
+
+	@Test
+	public void subscribersAreTurnedAwayWhileEveryDeliveryThreadIsTaken() throws Exception {
+		properties.getEvents().setDeliveryThreads(1);
+		properties.getEvents().setDeliveryQueueSize(0);
+		hub = new BookStoreEventHub(properties, changeService);
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch unstall = new CountDownLatch(1);
+		SseEmitter stalled = new SseEmitter() {
+			@Override
+			public void send(SseEventBuilder builder) throws IOException {
+				writing.countDown();
+				try {
+					unstall.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+		};
+
+		try {
+			hub.subscribe("store-1", 0, stalled)
+					.start(Collections.singletonList(new BookStoreChange("store-1", 1, Type.ADDED, BOOK)));
+			assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+
+			BookStoreEventHub.Subscriber rejected = hub.subscribe("store-1", 0);
+			assertThatThrownBy(() -> rejected.start(Collections.emptyList()))
+					.isInstanceOf(RejectedExecutionException.class);
+			assertThat(hub.getSubscriberCount()).isEqualTo(1);
+		} finally {
+			unstall.countDown();
+		}
+	}
+
+	private static class RecordingEmitter extends SseEmitter {
+		private final List<String> ids = new CopyOnWriteArrayList<>();
+		private final CountDownLatch sent;
+
+		RecordingEmitter(int events) {
+			this.sent = new CountDownLatch(events);
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) {
+			builder.build().stream()
+					.map(data -> data.getData().toString())
+					.filter(data -> data.startsWith("id:"))
+					.forEach(data -> ids.add(data.substring(3, data.indexOf('\n'))));
+			sent.countDown();
+		}
+
+		List<String> awaitIds() throws InterruptedException {
+			assertThat(sent.await(10, TimeUnit.SECONDS)).isTrue();
+			return ids;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.repository.BookStoreRepository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BookStoreIdFilterTests {
+	@Mock
+	private BookStoreRepository repository;
+
+	private final BookStoreProperties properties = new BookStoreProperties();
+
+	private BookStoreIdFilter filter;
+
+	@Before
+	public void setUp() {
+		filter = new BookStoreIdFilter(repository, properties);
+	}
+
+	@Test
+	public void everyStoreMightExistUntilTheFilterIsBuilt() {
+		assertThat(filter.mightContain("store-1")).isTrue();
+	}
+
+	@Test
+	public void existingAndCreatedStoresAreNeverRejected() {
+		List<String> storeIds = storeIds("store-", 5_000);
+		when(repository.findAllIds()).thenReturn(storeIds);
+		filter.rebuild();
+		filter.bookStoreCreated("created");
+
+		assertThat(storeIds).allMatch(filter::mightContain);
+		assertThat(filter.mightContain("created")).isTrue();
+	}
+
+	@Test
+	public void mostUnknownStoresAreRejected() {
+		properties.getIdFilter().setExpectedStores(5_000);
+		when(repository.findAllIds()).thenReturn(storeIds("store-", 5_000));
+		filter.rebuild();
+
+		long passed = storeIds("unknown-", 10_000).stream().filter(filter::mightContain).count();
+		assertThat(passed / 10_000.0).isLessThan(0.02);
+		assertThat(filter.getFalsePositiveRate()).isCloseTo(0.01, within(0.005));
+	}
+
+	@Test
+	public void storesOfOtherInstancesAreFoundInASharedDatabase() {
+		properties.getIdFilter().setSharedDatabase(true);
+		when(repository.findAllIds()).thenReturn(new ArrayList<>());
+		filter.rebuild();
+		when(repository.existsById("elsewhere")).thenReturn(true);
+
+		assertThat(filter.mightContain("elsewhere")).isTrue();
+		assertThat(filter.mightContain("elsewhere")).isTrue();
+		assertThat(filter.mightContain("unknown")).isFalse();
+		verify(repository).existsById("elsewhere");
+	}
+
+	@Test
+	public void databaseIsNotQueriedForMissesByDefault() {
+		when(repository.findAllIds()).thenReturn(new ArrayList<>());
+		filter.rebuild();
+
+		assertThat(filter.mightContain("unknown")).isFalse();
+		verify(repository, never()).existsById("unknown");
+	}
+
+	@Test
+	public void fullFilterIsRebuiltLarger() {
+		properties.getIdFilter().setExpectedStores(10);
+		List<String> created = storeIds("created-", 11);
+		when(repository.count()).thenReturn(0L, 10L);
+		when(repository.findAllIds()).thenReturn(new ArrayList<>()).thenReturn(created.subList(0, 10));
+		filter.rebuild();
+
+		created.forEach(filter::bookStoreCreated);
+
+		verify(repository, times(2)).findAllIds();
+		assertThat(created).allMatch(filter::mightContain);
+	}
+
+	@Test
+	public void uncommittedStoresSurviveARebuild() {
+		when(repository.findAllIds()).thenReturn(new ArrayList<>());
+		filter.rebuild();
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			filter.bookStoreCreated("created");
+			filter.rebuild();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertThat(filter.mightContain("created")).isTrue();
+	}
+
+	@Test
+	public void disabledFilterRejectsNothing() {
+		properties.getIdFilter().setEnabled(false);
+		filter.rebuild();
+
+		assertThat(filter.mightContain("unknown")).isTrue();
+	}
+
+	private List<String> storeIds(String prefix, int count) {
+		return IntStream.range(0, count).mapToObj(i -> prefix + i).collect(toList());
+	}
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.cloud.sample.bookstore.web.config.BookStoreProperties;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+import org.springframework.cloud.sample.bookstore.web.model.BookCatalogEntry;
+import org.springframework.cloud.sample.bookstore.web.model.BookOperation;
+import org.springframework.cloud.sample.bookstore.web.model.BookStore;
+import org.springframework.cloud.sample.bookstore.web.repository.BookStoreRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BookStoreServiceTests {
+	private static final String STORE_ID = "store-1";
+
+	@Mock
+	private BookStoreRepository repository;
+
+	@Mock
+	private BookCatalogService catalogService;
+
+	@Mock
+	private BookSearchIndex searchIndex;
+
+	@Mock
+	private BookStoreStatisticsService statisticsService;
+
+	@Mock
+	private BookStoreChangeService changeService;
+
+	@Mock
+	private BookStoreEventHub eventHub;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	private final BookStoreProperties properties = new BookStoreProperties();
+
+	private final CountDownLatch loading = new CountDownLatch(1);
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private BookStoreIdFilter idFilter;
+
+	private BookStoreService service;
+
+	@Before
+	public void setUp() {
+		idFilter = new BookStoreIdFilter(repository, properties);
+		service = new BookStoreService(repository, idFilter, catalogService, searchIndex, statisticsService,
+				changeService, eventHub, properties, new TimeOrderedIdGenerator(), transactionManager);
+	}
+
+	@Test
+	public void concurrentReadsShareOneLoad() throws Exception {
+		BookStore bookStore = new BookStore(STORE_ID);
+		when(repository.findById(STORE_ID)).then(invocation -> {
+			loading.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return Optional.of(bookStore);
+		});
+
+		List<Future<BookStore>> reads = startReads(4);
+		release.countDown();
+
+		BookStore shared = reads.get(0).get(5, TimeUnit.SECONDS);
+		for (Future<BookStore> read : reads) {
+			assertThat(read.get(5, TimeUnit.SECONDS)).isSameAs(shared);
+		}
+		verify(repository, times(1)).findById(STORE_ID);
+	}
+
+	@Test
+	public void sharedLoadIsASnapshot() {
+		BookStore bookStore = new BookStore(STORE_ID);
+		bookStore.addBook(new Book("book-1", new Book("9781617292545", "Spring Boot in Action", "Craig Walls")));
+		when(repository.findById(STORE_ID)).thenReturn(Optional.of(bookStore));
+
+		BookStore snapshot = service.getBookStore(STORE_ID);
+		bookStore.getBooks().clear();
+
+		assertThat(snapshot).isNotSameAs(bookStore);
+		assertThat(snapshot.getId()).isEqualTo(STORE_ID);
+		assertThat(snapshot.getBooks()).extracting(Book::getId, Book::getTitle)
+				.containsExactly(tuple("book-1", "Spring Boot in Action"));
+		assertThatThrownBy(() -> snapshot.addBook(new Book("9781784393021", "Learning Spring Boot", null)))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void failedLoadIsSharedWithWaitingReads() throws Exception {
+		when(repository.findById(STORE_ID)).then(invocation -> {
+			loading.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return Optional.empty();
+		});
+
+		List<Future<BookStore>> reads = startReads(2);
+		release.countDown();
+
+		for (Future<BookStore> read : reads) {
+			assertThatThrownBy(() -> read.get(5, TimeUnit.SECONDS))
+					.hasCauseInstanceOf(IllegalArgumentException.class);
+		}
+		verify(repository, times(1)).findById(STORE_ID);
+	}
+
+	@Test
+	public void failedLoadIsSharedAsTheErrorItself() throws Exception {
+		when(repository.findById(STORE_ID)).then(invocation -> {
+			loading.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			throw new StackOverflowError();
+		});
+
+		List<Future<BookStore>> reads = startReads(2);
+		release.countDown();
+
+		for (Future<BookStore> read : reads) {
+			assertThatThrownBy(() -> read.get(5, TimeUnit.SECONDS))
+					.hasCauseExactlyInstanceOf(StackOverflowError.class);
+		}
+		verify(repository, times(1)).findById(STORE_ID);
+	}
+
+	@Test
+	public void readsAfterAChangeDoNotShareAnEarlierLoad() throws Exception {
+		BookStore bookStore = new BookStore(STORE_ID);
+		when(repository.findById(STORE_ID)).then(invocation -> {
+			if (loading.getCount() > 0) {
+				loading.countDown();
+				release.await(5, TimeUnit.SECONDS);
+			}
+			return Optional.of(bookStore);
+		});
+
+		List<Future<BookStore>> reads = startReads(1);
+		service.deleteBookStore(STORE_ID);
+
+		assertThat(service.getBookStore(STORE_ID).getId()).isEqualTo(STORE_ID);
+		verify(repository, times(2)).findById(STORE_ID);
+
+		release.countDown();
+		reads.get(0).get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void unknownStoresAreRejectedWithoutAQuery() {
+		when(repository.findAllIds()).thenReturn(Collections.singletonList(STORE_ID));
+		when(repository.findVersionById(anyString())).thenReturn(1L);
+		idFilter.rebuild();
+
+		assertThat(service.getVersion(STORE_ID)).isEqualTo(1L);
+		assertThatThrownBy(() -> service.getVersion("unknown"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("unknown");
+		verify(repository, never()).findVersionById("unknown");
+
+		service.createBookStore("unknown");
+		service.getVersion("unknown");
+		verify(repository).findVersionById("unknown");
+	}
+
+	@Test
+	public void batchIsCheckedAgainstTheVersionItIsAppliedTo() {
+		BookStore bookStore = new BookStore(STORE_ID);
+		ReflectionTestUtils.setField(bookStore, "version", 2L);
+		when(repository.findVersionById(STORE_ID)).thenReturn(1L);
+		when(repository.findById(STORE_ID)).thenReturn(Optional.of(bookStore));
+
+		assertThatThrownBy(() -> service.applyBookOperations(STORE_ID,
+				Collections.singletonList(BookOperation.remove("book-1")), Collections.singleton(1L)))
+				.isInstanceOf(BookStoreModifiedException.class);
+		verify(repository, never()).saveAndFlush(any());
+	}
+
+	@Test
+	public void batchRegistersCatalogEntriesBeforeItsTransaction() {
+		BookCatalogEntry catalogEntry = new BookCatalogEntry("9781617292545", "Spring Boot in Action", "Craig Walls");
+		when(repository.findVersionById(STORE_ID)).thenReturn(0L);
+		when(repository.findById(STORE_ID)).thenReturn(Optional.of(new BookStore(STORE_ID)));
+		when(catalogService.register("9781617292545", "Spring Boot in Action", "Craig Walls"))
+				.thenReturn(catalogEntry);
+		List<BookOperation> operations = Arrays.asList(
+				new BookOperation(BookOperation.Type.ADD, null, "9781617292545", "Spring Boot in Action", "Craig Walls"),
+				new BookOperation(BookOperation.Type.ADD, null, "invalid", "Learning Spring Boot", null));
+
+		List<BookOperationResult> results = service.applyBookOperations(STORE_ID, operations, null);
+
+		assertThat(results).extracting(BookOperationResult::isSucceeded).containsExactly(true, false);
+		assertThat(results.get(0).getBook().getCatalogEntry()).isSameAs(catalogEntry);
+		InOrder inOrder = inOrder(catalogService, transactionManager);
+		inOrder.verify(catalogService).register("9781617292545", "Spring Boot in Action", "Craig Walls");
+		inOrder.verify(transactionManager).getTransaction(any());
+		verify(catalogService, times(1)).register(any(), any(), any());
+	}
+
+	// the first read is loading when the others start, and the others are waiting for it when this returns
+	private List<Future<BookStore>> startReads(int count) throws Exception {
+		List<Future<BookStore>> reads = new ArrayList<>();
+		List<Thread> readers = new CopyOnWriteArrayList<>();
+		reads.add(executor.submit(() -> service.getBookStore(STORE_ID)));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		for (int i = 1; i < count; i++) {
+			reads.add(executor.submit(() -> {
+				readers.add(Thread.currentThread());
+				return service.getBookStore(STORE_ID);
+			}));
+		}
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!allWaiting(readers, count - 1) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		executor.shutdown();
+		return reads;
+	}
+
+	private boolean allWaiting(List<Thread> readers, int count) {
+		return readers.size() == count &&
+				readers.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sample.bookstore.web.service;
+
+import org.junit.Test;
+import org.springframework.cloud.sample.bookstore.web.model.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimeOrderedIdGeneratorTests {
+	private final AtomicLong clock = new AtomicLong(1_500_000_000_000L);
+
+	private final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock::get);
+
+	@Test
+	public void idsAreVersion7Uuids() {
+		UUID id = generator.generateId();
+
+		assertThat(id.version()).isEqualTo(7);
+		assertThat(id.variant()).isEqualTo(2);
+		assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(clock.get());
+		assertThat(new Book(id.toString(), new Book("9781617292545", null, null)).getId())
+				.isEqualTo(id.toString());
+	}
+
+	@Test
+	public void idsSortInTheOrderTheyWereIssued() {
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			ids.add(generator.generateId().toString());
+			if (i == 5_000) {
+				// a clock set back does not reorder the IDs
+				clock.addAndGet(-1_000);
+			}
+		}
+
+		assertThat(ids).isSorted().doesNotHaveDuplicates();
+	}
+
+	@Test
+	public void timestampRunsAheadWhenASequenceIsUsedUp() {
+		UUID last = null;
+		for (int i = 0; i <= 4096; i++) {
+			last = generator.generateId();
+		}
+
+		assertThat(last.getMostSignificantBits() >>> 16).isEqualTo(clock.get() + 1);
+		assertThat(last.getMostSignificantBits() & 0xfff).isZero();
+	}
+
+	@Test
+	public void concurrentlyIssuedIdsAreUnique() throws Exception {
+		TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+		Set<UUID> ids = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<?>> tasks = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			tasks.add(executor.submit(() -> {
+				for (int j = 0; j < 10_000; j++) {
+					ids.add(generator.generateId());
+				}
+			}));
+		}
+		for (Future<?> task : tasks) {
+			task.get(10, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertThat(ids).hasSize(80_000);
+	}
+}